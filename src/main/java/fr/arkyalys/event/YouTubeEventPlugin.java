@@ -8,24 +8,31 @@ import fr.arkyalys.event.config.ConfigManager;
 import fr.arkyalys.event.display.YouTubeDisplay;
 import fr.arkyalys.event.events.EventManager;
 import fr.arkyalys.event.game.GameManager;
+import fr.arkyalys.event.metrics.MetricsRegistry;
 import fr.arkyalys.event.util.DebugLogger;
 import fr.arkyalys.event.youtube.YouTubeAPI;
+import fr.arkyalys.event.youtube.YouTubeHttpClient;
 import fr.arkyalys.event.youtube.LiveChatPoller;
 import fr.arkyalys.event.youtube.LiveAutoDetector;
 import fr.arkyalys.event.youtube.LikeTracker;
+import fr.arkyalys.event.youtube.provider.ChatProvider;
+import fr.arkyalys.event.youtube.provider.ReplayChatProvider;
 import fr.arkyalys.event.placeholders.YouTubeEventExpansion;
 import fr.arkyalys.event.web.OverlayWebServer;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
 import java.util.UUID;
 
 public class YouTubeEventPlugin extends JavaPlugin {
 
     private static YouTubeEventPlugin instance;
 
+    private final MetricsRegistry metrics = new MetricsRegistry();
     private ConfigManager configManager;
+    private YouTubeHttpClient httpClient;
     private YouTubeAPI youtubeAPI;
     private LiveChatPoller liveChatPoller;
     private LiveAutoDetector autoDetector;
@@ -52,6 +59,7 @@ public class YouTubeEventPlugin extends JavaPlugin {
         // Initialiser les managers
         this.configManager = new ConfigManager(this);
         this.eventManager = new EventManager(this);
+        this.httpClient = new YouTubeHttpClient(this);
         this.youtubeAPI = new YouTubeAPI(this);
 
         // Configurer les préférences de provider
@@ -135,7 +143,15 @@ public class YouTubeEventPlugin extends JavaPlugin {
             webServer.stop();
         }
 
+        // Fermer les connexions HTTP
+        if (httpClient != null) {
+            httpClient.shutdown();
+        }
+
         getLogger().info("YouTubeEvent desactive.");
+
+        // Écrire les dernières lignes de debug et fermer le fichier
+        DebugLogger.shutdown();
     }
 
     /**
@@ -147,6 +163,11 @@ public class YouTubeEventPlugin extends JavaPlugin {
         eventManager.reload();
         gameManager.reload();
 
+        // Recharger les fichiers des overlays (thème personnalisé)
+        if (webServer != null && webServer.isRunning()) {
+            webServer.reloadAssets();
+        }
+
         // Reconfigurer les préférences de provider
         youtubeAPI.setPreferInnerTube(configManager.isPreferInnerTube());
         youtubeAPI.setFallbackToDataAPI(configManager.isFallbackToDataAPI());
@@ -184,6 +205,32 @@ public class YouTubeEventPlugin extends JavaPlugin {
         return liveChatPoller.start(extractedId);
     }
 
+    /**
+     * Rejoue un enregistrement du chat comme s'il s'agissait d'un live (tests de charge)
+     * @param speed Facteur de vitesse (0 = au plus vite)
+     */
+    public boolean startReplay(File recording, double speed) {
+        return startSimulated(new ReplayChatProvider(this, recording, speed, configManager.getReplayMaxBatch()),
+                "replay:" + recording.getName());
+    }
+
+    /**
+     * Connecte le chat à un provider local (rejeu, trafic synthétique) au lieu de YouTube
+     * Pas de suivi des likes: seuls les messages du provider passent dans la chaîne
+     */
+    public boolean startSimulated(ChatProvider provider, String label) {
+        youtubeAPI.setOverrideProvider(provider);
+
+        display.startLive();
+        display.showAll();
+
+        if (!liveChatPoller.start(label)) {
+            youtubeAPI.setOverrideProvider(null);
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Arrête la connexion au live YouTube
      */
@@ -251,10 +298,21 @@ public class YouTubeEventPlugin extends JavaPlugin {
         return instance;
     }
 
+    /**
+     * Registre des métriques (exporté sur /metrics par le serveur overlay)
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
     public ConfigManager getConfigManager() {
         return configManager;
     }
 
+    public YouTubeHttpClient getHttpClient() {
+        return httpClient;
+    }
+
     public YouTubeAPI getYouTubeAPI() {
         return youtubeAPI;
     }
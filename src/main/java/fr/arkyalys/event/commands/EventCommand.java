@@ -4,6 +4,7 @@ import fr.arkyalys.event.YouTubeEventPlugin;
 import fr.arkyalys.event.game.GameEvent;
 import fr.arkyalys.event.game.GameManager;
 import fr.arkyalys.event.game.GameState;
+import fr.arkyalys.event.game.arena.SchematicCache;
 import fr.arkyalys.event.game.games.FeuilleGame;
 import fr.arkyalys.event.game.games.TNTLiveGame;
 import org.bukkit.Bukkit;
@@ -305,13 +306,13 @@ public class EventCommand implements CommandExecutor, TabCompleter {
     }
 
     /**
-     * /event reset <event>
+     * /event reset <event> [reindex]
      */
     private void handleReset(CommandSender sender, String[] args) {
         if (!hasPermission(sender, "youtubeevent.event.admin")) return;
 
         if (args.length < 2) {
-            sender.sendMessage((prefix + "&cUtilisation: /event reset <nom_event>").replace("&", "§"));
+            sender.sendMessage((prefix + "&cUtilisation: /event reset <nom_event> [reindex]").replace("&", "§"));
             return;
         }
 
@@ -323,13 +324,24 @@ public class EventCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
+        // reindex: la map a été modifiée (WorldEdit, nouveau schematic...), re-scanner les régions
+        boolean reindex = args.length >= 3 && args[2].equalsIgnoreCase("reindex");
+
         // Reset spécifique selon le type d'event
         if (game instanceof FeuilleGame feuilleGame) {
+            if (reindex) {
+                feuilleGame.invalidateLeafIndexes();
+                sender.sendMessage((prefix + "&7Index des feuilles supprimé, nouveau scan des régions...").replace("&", "§"));
+            }
             feuilleGame.resetLeaves();
             sender.sendMessage((prefix + "&aFeuilles de l'event &6" + game.getDisplayName() + " &aréinitialisées!").replace("&", "§"));
         } else if (game instanceof TNTLiveGame tntLiveGame) {
             // Recharger la config du schematic (au cas où elle a été modifiée)
             tntLiveGame.reloadSchematicConfig();
+            if (reindex) {
+                tntLiveGame.invalidateBarrierIndex();
+                sender.sendMessage((prefix + "&7Index des barriers supprimé (reconstruit au prochain lancement)").replace("&", "§"));
+            }
 
             // Afficher les infos de debug
             sender.sendMessage((prefix + "&7Schematic: &f" + tntLiveGame.getSchematicName()).replace("&", "§"));
@@ -520,6 +532,20 @@ public class EventCommand implements CommandExecutor, TabCompleter {
             sender.sendMessage("&7Live YouTube: &cDéconnecté".replace("&", "§"));
         }
 
+        // Schematics en mémoire (admins)
+        if (sender.hasPermission("youtubeevent.event.admin")) {
+            SchematicCache cache = gameManager.getSchematicCache();
+            sender.sendMessage(("&7Schematics en cache: &f" + cache.getEntries().size() + " &7(~" +
+                    SchematicCache.toMegabytes(cache.getMemoryBytes()) + "/" +
+                    SchematicCache.toMegabytes(plugin.getConfigManager().getSchematicCacheBytes()) + " Mo), &f" +
+                    cache.getHits() + " &7hits, &f" + cache.getMisses() + " &7lectures" +
+                    (cache.getLoadingCount() > 0 ? ", &e" + cache.getLoadingCount() + " en cours" : "")).replace("&", "§"));
+            for (SchematicCache.Entry entry : cache.getEntries()) {
+                sender.sendMessage(("&8- &f" + entry.file().getName() + " &7~" + SchematicCache.toMegabytes(entry.estimatedBytes()) +
+                        " Mo, lu en " + entry.loadMillis() + "ms").replace("&", "§"));
+            }
+        }
+
         sender.sendMessage("&6====================================".replace("&", "§"));
     }
 
@@ -766,7 +792,7 @@ public class EventCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage("&e/event leave &7- Quitter l'event".replace("&", "§"));
         sender.sendMessage("&e/event setspawn <event|spawn> &7- Définir le spawn".replace("&", "§"));
         sender.sendMessage("&e/event autojoin [on|off] &7- Auto-TP nouveaux joueurs".replace("&", "§"));
-        sender.sendMessage("&e/event reset <event> &7- Reset l'event".replace("&", "§"));
+        sender.sendMessage("&e/event reset <event> [reindex] &7- Reset l'event (reindex: re-scanner l'arène)".replace("&", "§"));
         sender.sendMessage("&e/event status &7- Voir le statut".replace("&", "§"));
         sender.sendMessage("&e/event reload &7- Recharger les configs".replace("&", "§"));
         sender.sendMessage("&6---------- &eTNTLive &6----------".replace("&", "§"));
@@ -869,6 +895,10 @@ public class EventCommand implements CommandExecutor, TabCompleter {
                 if ("streamer".startsWith(current)) completions.add("streamer");
                 if ("sub".startsWith(current)) completions.add("sub");
             }
+            // reset <event> reindex
+            else if (subCommand.equals("reset")) {
+                if ("reindex".startsWith(current)) completions.add("reindex");
+            }
             // give: items (TNT custom + quelques items utiles)
             else if (subCommand.equals("give")) {
                 List<String> items = Arrays.asList("mega_tnt", "nuke", "mini_tnt", "tnt", "arrow", "diamond_sword", "bow");
@@ -1,6 +1,10 @@
 package fr.arkyalys.event.commands;
 
 import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.events.TriggerProfiler;
+import fr.arkyalys.event.youtube.ChatRecorder;
+import fr.arkyalys.event.youtube.StressTest;
+import fr.arkyalys.event.youtube.provider.SyntheticChatProvider;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -8,6 +12,12 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -16,6 +26,7 @@ public class YouTubeCommand implements CommandExecutor, TabCompleter {
 
     private final YouTubeEventPlugin plugin;
     private final String prefix;
+    private StressTest stressTest;
 
     public YouTubeCommand(YouTubeEventPlugin plugin) {
         this.plugin = plugin;
@@ -43,6 +54,9 @@ public class YouTubeCommand implements CommandExecutor, TabCompleter {
             case "reload" -> handleReload(sender);
             case "test" -> handleTest(sender, args);
             case "scoreboard", "sb" -> handleScoreboard(sender, args);
+            case "profile" -> handleProfile(sender, args);
+            case "record" -> handleRecord(sender, args);
+            case "replay" -> handleReplay(sender, args);
             case "help" -> sendHelp(sender);
             default -> {
                 sender.sendMessage(prefix + "&cCommande inconnue. Utilisez /youtube help".replace("&", "\u00A7"));
@@ -113,8 +127,35 @@ public class YouTubeCommand implements CommandExecutor, TabCompleter {
             sender.sendMessage(("&7Live ID: &f" + liveId).replace("&", "\u00A7"));
             sender.sendMessage(("&7Uptime: &f" + uptime).replace("&", "\u00A7"));
             sender.sendMessage(("&7Messages recus: &f" + messages).replace("&", "\u00A7"));
+            sender.sendMessage(("&7Intervalle de polling: &f" + plugin.getLiveChatPoller().getCurrentPollDelay() + "ms").replace("&", "\u00A7"));
+
+            var polls = plugin.getLiveChatPoller().getPollDuration();
+            sender.sendMessage(("&7Duree des polls: &fp50 " + String.format("%.0f", polls.quantileMillis(0.5)) + "ms&7, &fp99 " +
+                    String.format("%.0f", polls.quantileMillis(0.99)) + "ms").replace("&", "\u00A7"));
+
+            var dispatcher = plugin.getLiveChatPoller().getDispatcher();
+            if (dispatcher != null) {
+                sender.sendMessage(("&7File d'attente: &f" + dispatcher.getQueueDepth() + "/" + dispatcher.getCapacity() +
+                        " &7(lag max: &f" + String.format("%.1f", dispatcher.getMaxLagMillis()) + "ms&7, perdus: &f" +
+                        (dispatcher.getDroppedCount() + dispatcher.getTextDroppedCount()) + "&7)").replace("&", "\u00A7"));
+            }
+        }
+
+        var http = plugin.getHttpClient();
+        sender.sendMessage(("&7HTTP: &f" + http.getRequestCount() + " &7requetes (&f" + http.getFailureCount() + " &7echecs), latence &f" +
+                String.format("%.0f", http.getAverageLatencyMillis()) + "ms &7(max &f" + String.format("%.0f", http.getMaxLatencyMillis()) + "ms&7)").replace("&", "\u00A7"));
+        sender.sendMessage(("&7Connexions: &f" + http.getPooledConnectionCount() + " &7ouvertes, reutilisation &f" +
+                String.format("%.0f", http.getConnectionReuseRatio() * 100) + "%&7, recu &f" + (http.getBytesReceived() / 1024) + " Ko").replace("&", "\u00A7"));
+
+        var web = plugin.getWebServer();
+        if (web != null && web.isRunning()) {
+            sender.sendMessage(("&7Overlays: &f" + web.getMetrics().getTotalRequests() + " &7requetes (&f" +
+                    web.getMetrics().getTotalRejected() + " &7refusees), &f" + web.getStreamClientCount() + " &7flux SSE").replace("&", "\u00A7"));
         }
 
+        var cooldowns = plugin.getEventManager().getCooldowns();
+        sender.sendMessage(("&7Cooldowns actifs: &f" + cooldowns.size() + " &7(" + (cooldowns.getMemoryBytes() / 1024) + " Ko)").replace("&", "\u00A7"));
+
         Player target = plugin.getTargetPlayer();
         sender.sendMessage(("&7Joueur cible: " + (target != null ? "&a" + target.getName() : "&cAucun")).replace("&", "\u00A7"));
 
@@ -273,6 +314,11 @@ public class YouTubeCommand implements CommandExecutor, TabCompleter {
     private void handleTest(CommandSender sender, String[] args) {
         if (!hasPermission(sender, "youtubeevent.admin")) return;
 
+        if (args.length > 1 && args[1].equalsIgnoreCase("stress")) {
+            handleStressTest(sender, args);
+            return;
+        }
+
         if (!(sender instanceof Player player)) {
             sender.sendMessage(prefix + "&cCette commande doit etre executee par un joueur.".replace("&", "\u00A7"));
             return;
@@ -357,6 +403,55 @@ public class YouTubeCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage((prefix + "&aEvenement simule: &f" + testType).replace("&", "\u00A7"));
     }
 
+    /**
+     * /youtube test stress [debit] [secondes] [steady|spike|sawtooth] | stop
+     */
+    private void handleStressTest(CommandSender sender, String[] args) {
+        if (args.length > 2 && args[2].equalsIgnoreCase("stop")) {
+            if (stressTest == null || !stressTest.isRunning()) {
+                sender.sendMessage((prefix + "&cAucun test de charge en cours.").replace("&", "\u00A7"));
+                return;
+            }
+            stressTest.cancel();
+            return;
+        }
+
+        if (stressTest != null && stressTest.isRunning()) {
+            sender.sendMessage((prefix + "&cUn test de charge est deja en cours. /youtube test stress stop").replace("&", "\u00A7"));
+            return;
+        }
+        if (plugin.isConnected()) {
+            sender.sendMessage((prefix + "&cDeja connecte a un live! Utilisez /youtube stop d'abord.").replace("&", "\u00A7"));
+            return;
+        }
+
+        int rate;
+        int seconds;
+        SyntheticChatProvider.Profile profile;
+        try {
+            rate = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+            seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+            profile = args.length > 4 ? SyntheticChatProvider.Profile.valueOf(args[4].toUpperCase()) : SyntheticChatProvider.Profile.STEADY;
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage((prefix + "&cUtilisation: /youtube test stress [debit] [secondes] [steady|spike|sawtooth]").replace("&", "\u00A7"));
+            return;
+        }
+        if (rate <= 0 || rate > SyntheticChatProvider.MAX_RATE || seconds <= 0) {
+            sender.sendMessage((prefix + "&cDebit entre 1 et " + SyntheticChatProvider.MAX_RATE + " msg/s, duree positive.").replace("&", "\u00A7"));
+            return;
+        }
+
+        List<String> keywords = new ArrayList<>(plugin.getConfigManager().getKeywordTriggers().keySet());
+        SyntheticChatProvider provider = new SyntheticChatProvider(profile, rate, seconds, keywords, 42L);
+        stressTest = new StressTest(plugin, provider, sender);
+        if (!stressTest.start()) {
+            sender.sendMessage((prefix + "&cImpossible de demarrer le test de charge.").replace("&", "\u00A7"));
+            return;
+        }
+        sender.sendMessage((prefix + "&eTest de charge: &f" + rate + " &emsg/s (" + profile.name().toLowerCase() + ") pendant &f" +
+                seconds + "s&e... rapport a la fin").replace("&", "\u00A7"));
+    }
+
     private void handleScoreboard(CommandSender sender, String[] args) {
         if (!(sender instanceof Player player)) {
             sender.sendMessage(prefix + "&cCette commande doit etre executee par un joueur.".replace("&", "\u00A7"));
@@ -391,6 +486,181 @@ public class YouTubeCommand implements CommandExecutor, TabCompleter {
         }
     }
 
+    private void handleRecord(CommandSender sender, String[] args) {
+        if (!hasPermission(sender, "youtubeevent.admin")) return;
+
+        ChatRecorder recorder = plugin.getLiveChatPoller().getRecorder();
+        String action = args.length > 1 ? args[1].toLowerCase() : "status";
+
+        switch (action) {
+            case "start" -> {
+                if (!plugin.isConnected()) {
+                    sender.sendMessage((prefix + "&cPas de connexion active a enregistrer.").replace("&", "\u00A7"));
+                    return;
+                }
+                File file = recorder.start(plugin.getLiveChatPoller().getCurrentLiveId());
+                if (file != null) {
+                    sender.sendMessage((prefix + "&aEnregistrement demarre: &f" + file.getName()).replace("&", "\u00A7"));
+                } else {
+                    sender.sendMessage((prefix + "&cImpossible de demarrer l'enregistrement (voir la console).").replace("&", "\u00A7"));
+                }
+            }
+            case "stop" -> {
+                if (!recorder.isRecording()) {
+                    sender.sendMessage((prefix + "&cAucun enregistrement en cours.").replace("&", "\u00A7"));
+                    return;
+                }
+                int count = recorder.getRecordedCount();
+                String name = recorder.getCurrentFile().getName();
+                recorder.stop();
+                sender.sendMessage((prefix + "&eEnregistrement termine: &f" + name + " &7(" + count + " messages)").replace("&", "\u00A7"));
+            }
+            default -> {
+                if (recorder.isRecording()) {
+                    sender.sendMessage((prefix + "&aEnregistrement en cours: &f" + recorder.getCurrentFile().getName() +
+                            " &7(" + recorder.getRecordedCount() + " messages)").replace("&", "\u00A7"));
+                } else {
+                    sender.sendMessage((prefix + "&7Aucun enregistrement en cours. &e/youtube record start|stop").replace("&", "\u00A7"));
+                }
+            }
+        }
+    }
+
+    private void handleReplay(CommandSender sender, String[] args) {
+        if (!hasPermission(sender, "youtubeevent.admin")) return;
+
+        File directory = plugin.getLiveChatPoller().getRecorder().getDirectory();
+        if (args.length < 2) {
+            sender.sendMessage((prefix + "&cUtilisation: /youtube replay <fichier> [vitesse|max]").replace("&", "\u00A7"));
+            String[] files = directory.list((dir, name) -> name.endsWith(".ytrec"));
+            if (files != null && files.length > 0) {
+                Arrays.sort(files);
+                sender.sendMessage(("&7Enregistrements: &f" + String.join("&7, &f", files)).replace("&", "\u00A7"));
+            }
+            return;
+        }
+
+        if (plugin.isConnected()) {
+            sender.sendMessage((prefix + "&cDeja connecte a un live! Utilisez /youtube stop d'abord.").replace("&", "\u00A7"));
+            return;
+        }
+
+        String fileName = args[1].endsWith(".ytrec") ? args[1] : args[1] + ".ytrec";
+        File file = new File(directory, fileName);
+        if (!file.isFile() || !file.getParentFile().equals(directory)) {
+            sender.sendMessage((prefix + "&cEnregistrement introuvable: &f" + fileName).replace("&", "\u00A7"));
+            return;
+        }
+
+        double speed = 1.0;
+        if (args.length > 2) {
+            if (args[2].equalsIgnoreCase("max")) {
+                speed = 0;
+            } else {
+                try {
+                    speed = Double.parseDouble(args[2].replace("x", ""));
+                } catch (NumberFormatException e) {
+                    sender.sendMessage((prefix + "&cVitesse invalide: " + args[2]).replace("&", "\u00A7"));
+                    return;
+                }
+                if (speed <= 0) {
+                    sender.sendMessage((prefix + "&cLa vitesse doit etre positive (ou max).").replace("&", "\u00A7"));
+                    return;
+                }
+            }
+        }
+
+        if (plugin.startReplay(file, speed)) {
+            sender.sendMessage((prefix + "&aRejeu de &f" + file.getName() + " &a(" + (speed == 0 ? "max" : "x" + speed) +
+                    ")... &7/youtube stop pour arreter").replace("&", "\u00A7"));
+        } else {
+            sender.sendMessage((prefix + "&cImpossible de demarrer le rejeu.").replace("&", "\u00A7"));
+        }
+    }
+
+    private void handleProfile(CommandSender sender, String[] args) {
+        if (!hasPermission(sender, "youtubeevent.admin")) return;
+
+        TriggerProfiler profiler = plugin.getEventManager().getProfiler();
+        String action = args.length > 1 ? args[1].toLowerCase() : "dump";
+
+        switch (action) {
+            case "start" -> {
+                TriggerProfiler.Mode mode = args.length > 2 && args[2].equalsIgnoreCase("full")
+                        ? TriggerProfiler.Mode.FULL : TriggerProfiler.Mode.SAMPLING;
+                int sampleEvery = 10;
+                if (args.length > 3) {
+                    try {
+                        sampleEvery = Integer.parseInt(args[3]);
+                    } catch (NumberFormatException e) {
+                        sender.sendMessage((prefix + "&cIntervalle invalide: " + args[3]).replace("&", "\u00A7"));
+                        return;
+                    }
+                }
+                profiler.start(mode, sampleEvery);
+                sender.sendMessage((prefix + "&aProfilage demarre &7(" + (mode == TriggerProfiler.Mode.FULL
+                        ? "complet" : "echantillonnage 1/" + profiler.getSampleEvery()) + ")").replace("&", "\u00A7"));
+            }
+            case "stop" -> {
+                if (!profiler.isActive()) {
+                    sender.sendMessage((prefix + "&cAucun profilage en cours.").replace("&", "\u00A7"));
+                    return;
+                }
+                profiler.stop();
+                sender.sendMessage((prefix + "&eProfilage arrete apres &f" + (profiler.getDurationMillis() / 1000) +
+                        "s&e. Utilisez /youtube profile dump").replace("&", "\u00A7"));
+            }
+            case "dump" -> {
+                int limit = 10;
+                if (args.length > 2) {
+                    try {
+                        limit = Math.max(Integer.parseInt(args[2]), 1);
+                    } catch (NumberFormatException ignored) {
+                        // Garder la valeur par defaut
+                    }
+                }
+                dumpProfile(sender, profiler, limit);
+            }
+            default -> sender.sendMessage("&e/youtube profile start [sampling|full] [N] &7| &estop &7| &edump [top]".replace("&", "\u00A7"));
+        }
+    }
+
+    /**
+     * Affiche les piles les plus coûteuses et écrit le fichier collapsed-stack (flamegraph)
+     */
+    private void dumpProfile(CommandSender sender, TriggerProfiler profiler, int limit) {
+        if (profiler.getEntryCount() == 0) {
+            sender.sendMessage((prefix + "&cAucune mesure. Lancez /youtube profile start").replace("&", "\u00A7"));
+            return;
+        }
+
+        sender.sendMessage(("&6===== &eProfil des triggers &7(" + (profiler.getDurationMillis() / 1000) + "s, " +
+                profiler.getMode().name().toLowerCase() + ") &6=====").replace("&", "\u00A7"));
+        for (TriggerProfiler.Entry entry : profiler.getTopEntries(limit)) {
+            long bytes = entry.getAverageAllocatedBytes();
+            sender.sendMessage(("&f" + entry.getStack().replace(';', '>') + " &7- &f" +
+                    String.format("%.1f", entry.getEstimatedNanos() / 1_000_000.0) + "ms &7total, &f" + entry.getInvocations() +
+                    " &7appels, moy &f" + String.format("%.2f", entry.getAverageMillis()) + "ms&7, max &f" +
+                    String.format("%.2f", entry.getMaxMillis()) + "ms" +
+                    (bytes >= 0 ? "&7, &f" + (bytes / 1024) + " Ko&7/appel" : "")).replace("&", "\u00A7"));
+        }
+
+        // Écriture hors du thread principal (le contenu est figé ici)
+        String collapsed = profiler.toCollapsed();
+        File file = new File(plugin.getDataFolder(), "profiles/triggers-" +
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".collapsed");
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                Files.createDirectories(file.getParentFile().toPath());
+                Files.writeString(file.toPath(), collapsed, StandardCharsets.UTF_8);
+                Bukkit.getScheduler().runTask(plugin, () -> sender.sendMessage((prefix + "&aProfil ecrit: &f" +
+                        file.getPath()).replace("&", "\u00A7")));
+            } catch (IOException e) {
+                plugin.getLogger().warning("Impossible d'ecrire le profil: " + e.getMessage());
+            }
+        });
+    }
+
     private void sendHelp(CommandSender sender) {
         sender.sendMessage("&6========== &eYouTubeEvent &6==========".replace("&", "\u00A7"));
         sender.sendMessage("&e/youtube start <liveId> &7- Connecter a un live".replace("&", "\u00A7"));
@@ -404,7 +674,11 @@ public class YouTubeCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage("&e/youtube reload &7- Recharger la config".replace("&", "\u00A7"));
         sender.sendMessage("&e/youtube test [type] &7- Tester un evenement".replace("&", "\u00A7"));
         sender.sendMessage("&7  Types: message, superchat, supersticker, member, like, viewmilestone".replace("&", "\u00A7"));
+        sender.sendMessage("&e/youtube test stress [debit] [s] [steady|spike|sawtooth] &7- Test de charge".replace("&", "\u00A7"));
         sender.sendMessage("&e/youtube scoreboard &7- Toggle le scoreboard".replace("&", "\u00A7"));
+        sender.sendMessage("&e/youtube profile <start|stop|dump> &7- Profiler les triggers".replace("&", "\u00A7"));
+        sender.sendMessage("&e/youtube record <start|stop> &7- Enregistrer le chat du live".replace("&", "\u00A7"));
+        sender.sendMessage("&e/youtube replay <fichier> [vitesse|max] &7- Rejouer un enregistrement".replace("&", "\u00A7"));
         sender.sendMessage("&6=====================================".replace("&", "\u00A7"));
     }
 
@@ -421,7 +695,7 @@ public class YouTubeCommand implements CommandExecutor, TabCompleter {
         List<String> completions = new ArrayList<>();
 
         if (args.length == 1) {
-            List<String> commands = Arrays.asList("start", "stop", "status", "setkey", "setchannel", "setusername", "auto", "settarget", "reload", "test", "scoreboard", "help");
+            List<String> commands = Arrays.asList("start", "stop", "status", "setkey", "setchannel", "setusername", "auto", "settarget", "reload", "test", "scoreboard", "profile", "record", "replay", "help");
             String current = args[0].toLowerCase();
             for (String cmd : commands) {
                 if (cmd.startsWith(current)) {
@@ -439,7 +713,7 @@ public class YouTubeCommand implements CommandExecutor, TabCompleter {
                     }
                 }
             } else if (subCommand.equals("test")) {
-                List<String> types = Arrays.asList("message", "superchat", "supersticker", "member", "like", "viewmilestone");
+                List<String> types = Arrays.asList("message", "superchat", "supersticker", "member", "like", "viewmilestone", "stress");
                 String current = args[1].toLowerCase();
                 for (String type : types) {
                     if (type.startsWith(current)) {
@@ -454,6 +728,31 @@ public class YouTubeCommand implements CommandExecutor, TabCompleter {
                         completions.add(action);
                     }
                 }
+            } else if (subCommand.equals("record")) {
+                List<String> actions = Arrays.asList("start", "stop");
+                String current = args[1].toLowerCase();
+                for (String action : actions) {
+                    if (action.startsWith(current)) {
+                        completions.add(action);
+                    }
+                }
+            } else if (subCommand.equals("replay")) {
+                String[] files = plugin.getLiveChatPoller().getRecorder().getDirectory().list((dir, name) -> name.endsWith(".ytrec"));
+                if (files != null) {
+                    for (String file : files) {
+                        if (file.startsWith(args[1])) {
+                            completions.add(file);
+                        }
+                    }
+                }
+            } else if (subCommand.equals("profile")) {
+                List<String> actions = Arrays.asList("start", "stop", "dump");
+                String current = args[1].toLowerCase();
+                for (String action : actions) {
+                    if (action.startsWith(current)) {
+                        completions.add(action);
+                    }
+                }
             } else if (subCommand.equals("scoreboard") || subCommand.equals("sb")) {
                 List<String> actions = Arrays.asList("on", "off", "all");
                 String current = args[1].toLowerCase();
@@ -463,6 +762,19 @@ public class YouTubeCommand implements CommandExecutor, TabCompleter {
                     }
                 }
             }
+        } else if (args.length == 5 && args[0].equalsIgnoreCase("test") && args[1].equalsIgnoreCase("stress")) {
+            for (SyntheticChatProvider.Profile profile : SyntheticChatProvider.Profile.values()) {
+                String name = profile.name().toLowerCase();
+                if (name.startsWith(args[4].toLowerCase())) {
+                    completions.add(name);
+                }
+            }
+        } else if (args.length == 3 && args[0].equalsIgnoreCase("profile") && args[1].equalsIgnoreCase("start")) {
+            for (String mode : Arrays.asList("sampling", "full")) {
+                if (mode.startsWith(args[2].toLowerCase())) {
+                    completions.add(mode);
+                }
+            }
         }
 
         return completions;
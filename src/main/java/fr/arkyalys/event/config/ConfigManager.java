@@ -1,9 +1,13 @@
 package fr.arkyalys.event.config;
 
 import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.events.ActionPlan;
+import fr.arkyalys.event.events.ActionRegistry;
+import fr.arkyalys.event.events.KeywordMatcher;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -11,6 +15,7 @@ import java.util.Map;
 public class ConfigManager {
 
     private final YouTubeEventPlugin plugin;
+    private final ActionRegistry actionRegistry;
 
     // YouTube settings
     private String apiKey;
@@ -20,8 +25,40 @@ public class ConfigManager {
     private int pollInterval;
     private int maxMessagesPerPoll;
     private int likeCheckInterval;
+    private int likeRunsPerTick;
+    private long likeMaxPending;
     private int viewMilestone;
 
+    // Polling adaptatif du chat
+    private int pollMinDelayMs;
+    private int pollMaxDelayMs;
+    private int pollBurstThreshold;
+    private int pollMaxBackoffMs;
+
+    // Anti-doublon des messages
+    private int dedupMaxIds;
+    private int dedupWindowSeconds;
+
+    // Dispatch des messages sur le thread principal
+    private int dispatchQueueCapacity;
+    private long dispatchTickBudgetNanos;
+    private String dispatchOverflowPolicy;
+
+    // Client HTTP partagé
+    private int httpMaxIdleConnections;
+    private int httpKeepAliveSeconds;
+    private int httpMaxRequestsPerHost;
+    private int httpConnectTimeout;
+    private int httpReadTimeout;
+
+    // Enregistrement / rejeu du chat
+    private boolean autoRecord;
+    private int replayMaxBatch;
+
+    // Opérations sur les arènes (reset, préparation)
+    private long arenaTickBudgetNanos;
+    private long schematicCacheBytes;
+
     // Provider settings (InnerTube vs Data API)
     private boolean preferInnerTube;
     private boolean fallbackToDataAPI;
@@ -36,9 +73,11 @@ public class ConfigManager {
     // Triggers config
     private Map<String, TriggerConfig> triggers;
     private Map<String, TriggerConfig> keywordTriggers;
+    private volatile KeywordMatcher<TriggerConfig> keywordMatcher = KeywordMatcher.empty();
 
     public ConfigManager(YouTubeEventPlugin plugin) {
         this.plugin = plugin;
+        this.actionRegistry = new ActionRegistry(plugin);
         this.triggers = new HashMap<>();
         this.keywordTriggers = new HashMap<>();
         reload();
@@ -55,8 +94,40 @@ public class ConfigManager {
         this.pollInterval = config.getInt("youtube.poll-interval", 3);
         this.maxMessagesPerPoll = config.getInt("youtube.max-messages-per-poll", 200);
         this.likeCheckInterval = config.getInt("youtube.like-check-interval", 10);
+        this.likeRunsPerTick = Math.max(config.getInt("youtube.likes.per-tick", 20), 1);
+        this.likeMaxPending = Math.max(config.getLong("youtube.likes.max-pending", 2000), 0);
         this.viewMilestone = config.getInt("youtube.view-milestone", 100);
 
+        // Polling adaptatif
+        this.pollMinDelayMs = config.getInt("youtube.adaptive-polling.min-delay-ms", 1000);
+        this.pollMaxDelayMs = config.getInt("youtube.adaptive-polling.max-delay-ms", 10000);
+        this.pollBurstThreshold = config.getInt("youtube.adaptive-polling.burst-threshold", 20);
+        this.pollMaxBackoffMs = config.getInt("youtube.adaptive-polling.max-backoff-ms", 30000);
+
+        // Anti-doublon
+        this.dedupMaxIds = config.getInt("youtube.dedup.max-ids", 50000);
+        this.dedupWindowSeconds = config.getInt("youtube.dedup.window-seconds", 600);
+
+        // Dispatch
+        this.dispatchQueueCapacity = config.getInt("youtube.dispatch.queue-capacity", 2000);
+        this.dispatchTickBudgetNanos = config.getLong("youtube.dispatch.tick-budget-ns", 5_000_000L);
+        this.dispatchOverflowPolicy = config.getString("youtube.dispatch.overflow-policy", "DROP_OLDEST");
+
+        // Client HTTP
+        this.httpMaxIdleConnections = config.getInt("youtube.http.max-idle-connections", 8);
+        this.httpKeepAliveSeconds = config.getInt("youtube.http.keep-alive-seconds", 300);
+        this.httpMaxRequestsPerHost = config.getInt("youtube.http.max-requests-per-host", 4);
+        this.httpConnectTimeout = config.getInt("youtube.http.connect-timeout", 10);
+        this.httpReadTimeout = config.getInt("youtube.http.read-timeout", 10);
+
+        // Enregistrement / rejeu
+        this.autoRecord = config.getBoolean("recording.auto-record", false);
+        this.replayMaxBatch = config.getInt("recording.replay-max-batch", 1000);
+
+        // Arènes
+        this.arenaTickBudgetNanos = Math.max(config.getLong("arenas.tick-budget-ms", 5), 1) * 1_000_000L;
+        this.schematicCacheBytes = Math.max(config.getLong("arenas.schematic-cache-mb", 256), 1) * 1024L * 1024L;
+
         // Provider settings
         this.preferInnerTube = config.getBoolean("youtube.prefer-innertube", true);
         this.fallbackToDataAPI = config.getBoolean("youtube.fallback-to-api", true);
@@ -86,33 +157,54 @@ public class ConfigManager {
             if (section == null) continue;
 
             TriggerConfig trigger = new TriggerConfig();
+            trigger.name = triggerName;
             trigger.enabled = section.getBoolean("enabled", true);
             trigger.chance = section.getDouble("chance", 100.0);
             trigger.cooldown = section.getInt("cooldown", 0);
+            trigger.roleCooldown = section.getInt("role-cooldown", 0);
+            trigger.globalCooldown = section.getInt("global-cooldown", 0);
             trigger.actions = section.getMapList("actions");
+            trigger.plan = trigger.enabled ? actionRegistry.compile(triggerName, trigger.actions) : ActionPlan.EMPTY;
 
             triggers.put(triggerName, trigger);
         }
     }
 
     private void loadKeywordTriggers(FileConfiguration config) {
-        keywordTriggers.clear();
+        Map<String, TriggerConfig> loaded = new HashMap<>();
+        List<KeywordMatcher.Entry<TriggerConfig>> entries = new ArrayList<>();
 
-        ConfigurationSection keywordsSection = config.getConfigurationSection("triggers.keywords");
-        if (keywordsSection == null) return;
+        boolean defaultWholeWord = config.getBoolean("keyword-matching.whole-word", false);
+        boolean ignoreAccents = config.getBoolean("keyword-matching.ignore-accents", true);
 
-        for (String keyword : keywordsSection.getKeys(false)) {
-            ConfigurationSection section = keywordsSection.getConfigurationSection(keyword);
-            if (section == null) continue;
-
-            TriggerConfig trigger = new TriggerConfig();
-            trigger.enabled = section.getBoolean("enabled", true);
-            trigger.chance = section.getDouble("chance", 100.0);
-            trigger.cooldown = section.getInt("cooldown", 0);
-            trigger.actions = section.getMapList("actions");
-
-            keywordTriggers.put(keyword.toLowerCase(), trigger);
+        ConfigurationSection keywordsSection = config.getConfigurationSection("triggers.keywords");
+        if (keywordsSection != null) {
+            for (String keyword : keywordsSection.getKeys(false)) {
+                ConfigurationSection section = keywordsSection.getConfigurationSection(keyword);
+                if (section == null) continue;
+
+                TriggerConfig trigger = new TriggerConfig();
+                trigger.name = "keyword:" + keyword;
+                trigger.enabled = section.getBoolean("enabled", true);
+                trigger.chance = section.getDouble("chance", 100.0);
+                trigger.cooldown = section.getInt("cooldown", 0);
+                trigger.roleCooldown = section.getInt("role-cooldown", 0);
+                trigger.globalCooldown = section.getInt("global-cooldown", 0);
+                trigger.actions = section.getMapList("actions");
+                trigger.plan = trigger.enabled ? actionRegistry.compile("keyword:" + keyword, trigger.actions) : ActionPlan.EMPTY;
+
+                String key = keyword.toLowerCase();
+                loaded.put(key, trigger);
+                if (trigger.enabled) {
+                    entries.add(new KeywordMatcher.Entry<>(key, section.getBoolean("whole-word", defaultWholeWord), trigger));
+                }
+            }
         }
+
+        // Compiler l'automate puis publier d'un coup (le chat n'est jamais face à une config à moitié chargée)
+        KeywordMatcher<TriggerConfig> matcher = new KeywordMatcher<>(entries, ignoreAccents);
+        this.keywordTriggers = loaded;
+        this.keywordMatcher = matcher;
     }
 
     private String colorize(String text) {
@@ -168,10 +260,90 @@ public class ConfigManager {
         return likeCheckInterval;
     }
 
+    public int getLikeRunsPerTick() {
+        return likeRunsPerTick;
+    }
+
+    public long getLikeMaxPending() {
+        return likeMaxPending;
+    }
+
     public int getViewMilestone() {
         return viewMilestone;
     }
 
+    public int getPollMinDelayMs() {
+        return pollMinDelayMs;
+    }
+
+    public int getPollMaxDelayMs() {
+        return pollMaxDelayMs;
+    }
+
+    public int getPollBurstThreshold() {
+        return pollBurstThreshold;
+    }
+
+    public int getPollMaxBackoffMs() {
+        return pollMaxBackoffMs;
+    }
+
+    public int getDedupMaxIds() {
+        return dedupMaxIds;
+    }
+
+    public int getDedupWindowSeconds() {
+        return dedupWindowSeconds;
+    }
+
+    public int getHttpMaxIdleConnections() {
+        return httpMaxIdleConnections;
+    }
+
+    public int getHttpKeepAliveSeconds() {
+        return httpKeepAliveSeconds;
+    }
+
+    public int getHttpMaxRequestsPerHost() {
+        return httpMaxRequestsPerHost;
+    }
+
+    public int getHttpConnectTimeout() {
+        return httpConnectTimeout;
+    }
+
+    public int getHttpReadTimeout() {
+        return httpReadTimeout;
+    }
+
+    public int getDispatchQueueCapacity() {
+        return dispatchQueueCapacity;
+    }
+
+    public long getDispatchTickBudgetNanos() {
+        return dispatchTickBudgetNanos;
+    }
+
+    public String getDispatchOverflowPolicy() {
+        return dispatchOverflowPolicy;
+    }
+
+    public boolean isAutoRecord() {
+        return autoRecord;
+    }
+
+    public int getReplayMaxBatch() {
+        return replayMaxBatch;
+    }
+
+    public long getArenaTickBudgetNanos() {
+        return arenaTickBudgetNanos;
+    }
+
+    public long getSchematicCacheBytes() {
+        return schematicCacheBytes;
+    }
+
     public boolean isPreferInnerTube() {
         return preferInnerTube;
     }
@@ -208,13 +380,32 @@ public class ConfigManager {
         return keywordTriggers;
     }
 
+    public ActionRegistry getActionRegistry() {
+        return actionRegistry;
+    }
+
+    /**
+     * Automate des mots-clés actifs (reconstruit à chaque reload)
+     */
+    public KeywordMatcher<TriggerConfig> getKeywordMatcher() {
+        return keywordMatcher;
+    }
+
     /**
      * Configuration d'un trigger
      */
     public static class TriggerConfig {
+        /** Nom du trigger (chat-message, keyword:gg...), utilisé pour les métriques */
+        public String name = "";
         public boolean enabled = true;
         public double chance = 100.0;
-        public int cooldown = 0;
+        public int cooldown = 0;          // Secondes, par viewer
+        public int roleCooldown = 0;      // Secondes, par rôle (OWNER, MODERATOR, SPONSOR, VIEWER)
+        public int globalCooldown = 0;    // Secondes, pour tout le chat
+        /** Id dans la table des cooldowns (attribué au premier usage) */
+        public int cooldownId = -1;
         public List<Map<?, ?>> actions;
+        /** Actions compilées au chargement */
+        public ActionPlan plan = ActionPlan.EMPTY;
     }
 }
@@ -0,0 +1,87 @@
+package fr.arkyalys.event.events;
+
+import fr.arkyalys.event.events.triggers.ActionTrigger;
+import fr.arkyalys.event.youtube.models.ChatMessage;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Liste d'actions compilées d'un trigger
+ *
+ * Construite au chargement de la config: types résolus, enums convertis, placeholders découpés.
+ * À l'exécution il ne reste ni lecture de Map, ni parsing, ni boxing.
+ */
+public final class ActionPlan {
+
+    public static final ActionPlan EMPTY = new ActionPlan(List.of());
+
+    /**
+     * Une action compilée + sa condition de montant minimum (NaN = aucune)
+     * @param stack Pile du profileur ("triggers;<trigger>;<TYPE>"), construite une seule fois
+     */
+    public record Step(String type, ActionTrigger.CompiledAction action, double minAmount, String stack) {
+
+        /**
+         * Vérifie le montant minimum pour les super chats
+         */
+        public boolean accepts(ChatMessage message) {
+            return Double.isNaN(minAmount) || !message.isSuperChat() || message.getAmountValue() >= minAmount;
+        }
+    }
+
+    private final Step[] steps;
+
+    public ActionPlan(List<Step> steps) {
+        this.steps = steps.toArray(new Step[0]);
+    }
+
+    /**
+     * Exécute toutes les actions (une action en erreur n'empêche pas les suivantes)
+     */
+    public void execute(ChatMessage message, Player target, Logger logger) {
+        for (Step step : steps) {
+            if (!step.accepts(message)) continue;
+            run(step, message, target, logger);
+        }
+    }
+
+    /**
+     * Exécute les actions en mesurant chacune (profileur actif)
+     * @param measured false pour seulement compter les appels (appel non échantillonné)
+     */
+    public void execute(ChatMessage message, Player target, Logger logger, TriggerProfiler profiler, boolean measured) {
+        for (Step step : steps) {
+            if (!step.accepts(message)) continue;
+
+            if (!measured) {
+                profiler.count(step.stack());
+                run(step, message, target, logger);
+                continue;
+            }
+
+            long startBytes = profiler.startBytes();
+            long startNanos = profiler.startNanos();
+            run(step, message, target, logger);
+            profiler.record(step.stack(), startNanos, startBytes);
+        }
+    }
+
+    private static void run(Step step, ChatMessage message, Player target, Logger logger) {
+        try {
+            step.action().execute(message, target);
+        } catch (Exception e) {
+            logger.warning("Erreur lors de l'execution d'une action " + step.type() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public int size() {
+        return steps.length;
+    }
+
+    public boolean isEmpty() {
+        return steps.length == 0;
+    }
+}
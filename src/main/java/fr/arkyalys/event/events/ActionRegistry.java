@@ -0,0 +1,91 @@
+package fr.arkyalys.event.events;
+
+import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.events.triggers.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Types d'actions disponibles (SPAWN_MOB, GIVE_ITEM...) et compilation des listes d'actions
+ */
+public class ActionRegistry {
+
+    private final YouTubeEventPlugin plugin;
+    private final Map<String, ActionTrigger> triggers = new HashMap<>();
+
+    public ActionRegistry(YouTubeEventPlugin plugin) {
+        this.plugin = plugin;
+        registerTriggers();
+    }
+
+    /**
+     * Enregistre tous les triggers disponibles
+     */
+    private void registerTriggers() {
+        register("SPAWN_MOB", new MobSpawnTrigger(plugin));
+        register("GIVE_ITEM", new ItemGiveTrigger(plugin));
+        register("EFFECT", new EffectTrigger(plugin));
+        register("WORLD_EVENT", new WorldEventTrigger(plugin));
+        register("COMMAND", new CommandTrigger(plugin));
+        register("BROADCAST", new BroadcastTrigger(plugin));
+        register("SOUND", new SoundTrigger(plugin));
+        register("PARTICLE", new ParticleTrigger(plugin));
+    }
+
+    /**
+     * Ajoute (ou remplace) un type d'action
+     * Pris en compte au prochain chargement de la config
+     */
+    public void register(String type, ActionTrigger trigger) {
+        triggers.put(type.toUpperCase(), trigger);
+    }
+
+    public ActionTrigger get(String type) {
+        return type != null ? triggers.get(type.toUpperCase()) : null;
+    }
+
+    /**
+     * Compile une liste d'actions de la config
+     * Les actions invalides sont signalées ici, une seule fois, puis ignorées
+     * @param owner Nom du trigger (pour les messages d'erreur)
+     */
+    public ActionPlan compile(String owner, List<Map<?, ?>> actions) {
+        if (actions == null || actions.isEmpty()) {
+            return ActionPlan.EMPTY;
+        }
+
+        List<ActionPlan.Step> steps = new ArrayList<>(actions.size());
+        for (int i = 0; i < actions.size(); i++) {
+            Map<?, ?> actionMap = actions.get(i);
+            String where = owner + " #" + (i + 1);
+
+            Object typeObj = actionMap.get("type");
+            String type = typeObj != null ? typeObj.toString().toUpperCase() : null;
+            ActionTrigger trigger = get(type);
+            if (trigger == null) {
+                plugin.getLogger().warning("Type d'action inconnu: " + type + " (" + where + ")");
+                continue;
+            }
+
+            double minAmount = Double.NaN;
+            Object minObj = actionMap.get("min-amount");
+            if (minObj instanceof Number number) {
+                minAmount = number.doubleValue();
+            } else if (minObj != null) {
+                plugin.getLogger().warning("min-amount invalide: " + minObj + " (" + where + ")");
+                continue;
+            }
+
+            try {
+                steps.add(new ActionPlan.Step(type, trigger.compile(actionMap), minAmount, "triggers;" + owner + ";" + type));
+            } catch (Exception e) {
+                plugin.getLogger().warning("Action ignoree (" + where + "): " + e.getMessage());
+            }
+        }
+
+        return new ActionPlan(steps);
+    }
+}
@@ -0,0 +1,74 @@
+package fr.arkyalys.event.events;
+
+import fr.arkyalys.event.util.PlaceholderTemplate;
+import fr.arkyalys.event.youtube.models.ChatMessage;
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Placeholders liés à un message YouTube (%viewer%, %message%, %amount%...)
+ *
+ * Point d'extension: d'autres plugins peuvent ajouter leurs propres placeholders
+ * via {@link #register(String, Provider)}.
+ */
+public final class ChatPlaceholders {
+
+    /**
+     * Calcule la valeur d'un placeholder pour un message
+     */
+    @FunctionalInterface
+    public interface Provider {
+        String apply(ChatMessage message, Player target);
+    }
+
+    private static final Map<String, Provider> PROVIDERS = new ConcurrentHashMap<>();
+
+    static {
+        register("viewer", (message, target) -> message.getAuthorName());
+        register("message", (message, target) -> message.getMessage() != null ? message.getMessage() : "");
+        register("player", (message, target) -> target != null ? target.getName() : "");
+        register("amount", (message, target) -> message.getAmountDisplay() != null ? message.getAmountDisplay() : "0");
+        register("amount_value", (message, target) -> String.format("%.2f", message.getAmountValue()));
+        // Infos auteur
+        register("author_role", (message, target) -> message.getAuthorRole());
+        register("author_roles", (message, target) -> message.getAuthorRoles());
+        register("is_owner", (message, target) -> String.valueOf(message.isOwner()));
+        register("is_moderator", (message, target) -> String.valueOf(message.isModerator()));
+        register("is_sponsor", (message, target) -> String.valueOf(message.isSponsor()));
+    }
+
+    private ChatPlaceholders() {
+    }
+
+    /**
+     * Ajoute (ou remplace) un placeholder %name%
+     */
+    public static void register(String name, Provider provider) {
+        PROVIDERS.put(name, provider);
+    }
+
+    public static void unregister(String name) {
+        PROVIDERS.remove(name);
+    }
+
+    /**
+     * Valeur d'un placeholder pour un message, null si inconnu
+     */
+    public static String resolve(String name, ChatMessage message, Player target) {
+        Provider provider = PROVIDERS.get(name);
+        return provider != null ? provider.apply(message, target) : null;
+    }
+
+    /**
+     * Remplace les placeholders d'une chaîne de config
+     */
+    public static String render(String text, ChatMessage message, Player target) {
+        return render(PlaceholderTemplate.compile(text), message, target);
+    }
+
+    public static String render(PlaceholderTemplate template, ChatMessage message, Player target) {
+        return template.render(name -> resolve(name, message, target));
+    }
+}
@@ -0,0 +1,272 @@
+package fr.arkyalys.event.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table des cooldowns des triggers (global, par rôle, par viewer)
+ *
+ * Remplace la Map<String, Map<String, Long>> qui gardait chaque viewer jusqu'au reload:
+ * - les types de trigger sont convertis une fois en int (intern)
+ * - chaque cooldown actif = 2 longs (clé 64 bits + fin du cooldown) dans une table à adressage ouvert
+ * - une roue temporelle (1 case par seconde) retire les cooldowns terminés au fil de l'eau
+ *
+ * Utilisée uniquement depuis le thread principal (dispatch des messages): aucun verrou.
+ */
+public class CooldownTable {
+
+    /**
+     * Portée d'un cooldown
+     */
+    public enum Scope {
+        /** Un seul cooldown pour tout le chat */
+        GLOBAL,
+        /** Un cooldown par rôle (OWNER, MODERATOR, SPONSOR, VIEWER) */
+        ROLE,
+        /** Un cooldown par viewer */
+        VIEWER
+    }
+
+    private static final long EMPTY = 0L;
+    private static final int WHEEL_SLOTS = 1024; // secondes, puissance de 2
+    private static final int WHEEL_MASK = WHEEL_SLOTS - 1;
+
+    // Types de trigger -> id
+    private final Map<String, Integer> triggerIds = new HashMap<>();
+    private final List<String> triggerNames = new ArrayList<>();
+
+    // Table (adressage ouvert, sondage linéaire, facteur de charge <= 0.5)
+    private long[] keys;
+    private long[] deadlines;
+    private int mask;
+    private int size = 0;
+
+    // Roue temporelle: clés à vérifier à chaque seconde (modulo WHEEL_SLOTS)
+    private final long[][] wheel = new long[WHEEL_SLOTS][];
+    private final int[] wheelSizes = new int[WHEEL_SLOTS];
+    private long lastExpiredSecond = -1;
+
+    public CooldownTable() {
+        this(1024);
+    }
+
+    public CooldownTable(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity, 16) - 1) << 1;
+        this.keys = new long[capacity];
+        this.deadlines = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Id numérique d'un type de trigger (stable jusqu'à l'arrêt du plugin)
+     */
+    public int intern(String triggerType) {
+        Integer id = triggerIds.get(triggerType);
+        if (id == null) {
+            id = triggerNames.size();
+            triggerIds.put(triggerType, id);
+            triggerNames.add(triggerType);
+        }
+        return id;
+    }
+
+    /**
+     * Le cooldown est-il terminé (ou inexistant) ?
+     */
+    public boolean isReady(int triggerId, Scope scope, String subject, long now) {
+        expire(now);
+        int slot = findSlot(key(triggerId, scope, subject));
+        return keys[slot] == EMPTY || deadlines[slot] <= now;
+    }
+
+    /**
+     * Démarre (ou relance) un cooldown
+     */
+    public void start(int triggerId, Scope scope, String subject, long durationMillis, long now) {
+        if (durationMillis <= 0) return;
+
+        long key = key(triggerId, scope, subject);
+        long deadline = now + durationMillis;
+
+        int slot = findSlot(key);
+        if (keys[slot] == EMPTY) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+                slot = findSlot(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        deadlines[slot] = deadline;
+        schedule(key, deadline);
+    }
+
+    /**
+     * Oublie tous les cooldowns (les ids de triggers sont conservés)
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        Arrays.fill(wheel, null);
+        Arrays.fill(wheelSizes, 0);
+        lastExpiredSecond = -1;
+    }
+
+    /**
+     * Nombre de cooldowns actifs
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getTriggerCount() {
+        return triggerNames.size();
+    }
+
+    /**
+     * Mémoire occupée par la table et la roue, en octets
+     */
+    public long getMemoryBytes() {
+        long bytes = (long) (keys.length + deadlines.length) * Long.BYTES + (long) wheelSizes.length * Integer.BYTES;
+        for (long[] bucket : wheel) {
+            if (bucket != null) {
+                bytes += (long) bucket.length * Long.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    // ==================== Expiration ====================
+
+    private void schedule(long key, long deadline) {
+        int index = (int) (Math.floorDiv(deadline, 1000L) & WHEEL_MASK);
+        long[] bucket = wheel[index];
+        if (bucket == null) {
+            bucket = wheel[index] = new long[8];
+        } else if (wheelSizes[index] == bucket.length) {
+            bucket = wheel[index] = Arrays.copyOf(bucket, bucket.length * 2);
+        }
+        bucket[wheelSizes[index]++] = key;
+    }
+
+    /**
+     * Avance la roue jusqu'à la dernière seconde écoulée et retire les cooldowns terminés
+     */
+    private void expire(long now) {
+        long completed = Math.floorDiv(now, 1000L) - 1;
+        if (lastExpiredSecond == -1) {
+            lastExpiredSecond = completed;
+        }
+        if (completed <= lastExpiredSecond) return;
+
+        // Au-delà d'un tour complet, chaque case n'a besoin d'être visitée qu'une fois
+        long from = Math.max(lastExpiredSecond + 1, completed - WHEEL_MASK);
+        for (long s = from; s <= completed; s++) {
+            expireSlot((int) (s & WHEEL_MASK), now);
+        }
+        lastExpiredSecond = completed;
+    }
+
+    private void expireSlot(int index, long now) {
+        long[] bucket = wheel[index];
+        if (bucket == null) return;
+
+        int kept = 0;
+        for (int i = 0; i < wheelSizes[index]; i++) {
+            long key = bucket[i];
+            int slot = findSlot(key);
+            if (keys[slot] == EMPTY) continue; // Déjà retiré
+
+            long deadline = deadlines[slot];
+            if (deadline <= now) {
+                removeSlot(slot);
+            } else if ((Math.floorDiv(deadline, 1000L) & WHEEL_MASK) == index) {
+                bucket[kept++] = key; // Tour suivant de la roue
+            }
+            // Sinon: entrée périmée (cooldown relancé, déjà programmé dans une autre case)
+        }
+        wheelSizes[index] = kept;
+
+        // Libérer les cases devenues vides après un pic d'activité
+        if (kept == 0 && bucket.length > 64) {
+            wheel[index] = null;
+        }
+    }
+
+    // ==================== Table ====================
+
+    private int findSlot(long key) {
+        int slot = (int) mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Suppression par décalage arrière (pas de pierre tombale en sondage linéaire)
+     */
+    private void removeSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = (int) mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                deadlines[hole] = deadlines[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldDeadlines = deadlines;
+
+        keys = new long[capacity];
+        deadlines = new long[capacity];
+        mask = capacity - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                deadlines[slot] = oldDeadlines[i];
+            }
+        }
+    }
+
+    /**
+     * Clé 64 bits (trigger, portée, sujet), jamais égale à EMPTY
+     */
+    private static long key(int triggerId, Scope scope, String subject) {
+        long hash = 0xcbf29ce484222325L;
+        if (scope != Scope.GLOBAL && subject != null) {
+            for (int i = 0; i < subject.length(); i++) {
+                hash ^= subject.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+        }
+        hash ^= ((long) triggerId << 2) | scope.ordinal();
+        hash *= 0x100000001b3L;
+        return hash == EMPTY ? 1L : hash;
+    }
+
+    /**
+     * Mélange final (murmur3 fmix64)
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -3,7 +3,7 @@ package fr.arkyalys.event.events;
 import fr.arkyalys.event.YouTubeEventPlugin;
 import fr.arkyalys.event.api.events.*;
 import fr.arkyalys.event.config.ConfigManager;
-import fr.arkyalys.event.events.triggers.*;
+import fr.arkyalys.event.metrics.Histogram;
 import fr.arkyalys.event.youtube.models.ChatMessage;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -11,7 +11,6 @@ import org.bukkit.entity.Player;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Gère le dispatch des événements YouTube vers les triggers in-game
@@ -21,35 +20,31 @@ public class EventManager {
     private final YouTubeEventPlugin plugin;
     private final Random random = new Random();
 
-    // Triggers disponibles
-    private final Map<String, ActionTrigger> triggers = new HashMap<>();
+    // Cooldowns (global, par rôle, par viewer)
+    private final CooldownTable cooldowns = new CooldownTable();
 
-    // Cooldowns par type d'événement (viewer -> timestamp)
-    private final Map<String, Map<String, Long>> cooldowns = new ConcurrentHashMap<>();
+    // Durée d'exécution par trigger (thread principal uniquement)
+    private final Map<String, Histogram> actionTimings = new HashMap<>();
+
+    // Profileur à la demande (/youtube profile)
+    private final TriggerProfiler profiler = new TriggerProfiler();
 
     public EventManager(YouTubeEventPlugin plugin) {
         this.plugin = plugin;
-        registerTriggers();
-    }
-
-    /**
-     * Enregistre tous les triggers disponibles
-     */
-    private void registerTriggers() {
-        triggers.put("SPAWN_MOB", new MobSpawnTrigger(plugin));
-        triggers.put("GIVE_ITEM", new ItemGiveTrigger(plugin));
-        triggers.put("EFFECT", new EffectTrigger(plugin));
-        triggers.put("WORLD_EVENT", new WorldEventTrigger(plugin));
-        triggers.put("COMMAND", new CommandTrigger(plugin));
-        triggers.put("BROADCAST", new BroadcastTrigger(plugin));
-        triggers.put("SOUND", new SoundTrigger(plugin));
-        triggers.put("PARTICLE", new ParticleTrigger(plugin));
     }
 
     public void reload() {
         cooldowns.clear();
     }
 
+    public CooldownTable getCooldowns() {
+        return cooldowns;
+    }
+
+    public TriggerProfiler getProfiler() {
+        return profiler;
+    }
+
     /**
      * Traite un message YouTube et déclenche les événements appropriés
      */
@@ -70,6 +65,11 @@ public class EventManager {
             plugin.getGameManager().handleYouTubeMessage(message);
         }
 
+        // Overlays (WebSocket: chat et alertes)
+        if (plugin.getWebServer() != null) {
+            plugin.getWebServer().onChatMessage(message);
+        }
+
         Player target = plugin.getTargetPlayer();
         if (target == null || !target.isOnline()) {
             return; // Pas de joueur cible
@@ -107,7 +107,7 @@ public class EventManager {
         ConfigManager.TriggerConfig triggerConfig = config.getTrigger("chat-message");
         if (triggerConfig == null || !triggerConfig.enabled) return;
 
-        if (!checkChanceAndCooldown(triggerConfig, "chat-message", message.getAuthorChannelId())) {
+        if (!checkChanceAndCooldown(triggerConfig, "chat-message", message)) {
             return;
         }
 
@@ -129,10 +129,7 @@ public class EventManager {
         executeActions(triggerConfig, message, target);
 
         // Afficher le Super Chat au joueur
-        String scMessage = config.getMessageSuperChat()
-                .replace("%viewer%", message.getAuthorName())
-                .replace("%message%", message.getMessage())
-                .replace("%amount%", message.getAmountDisplay());
+        String scMessage = ChatPlaceholders.render(config.getMessageSuperChat(), message, target);
         target.sendMessage(config.getPrefix() + scMessage);
     }
 
@@ -246,28 +243,22 @@ public class EventManager {
     private void checkKeywords(ChatMessage message, Player target, ConfigManager config) {
         if (message.getMessage() == null || message.getMessage().isEmpty()) return;
 
-        String lowerMessage = message.getMessage().toLowerCase();
-
-        for (Map.Entry<String, ConfigManager.TriggerConfig> entry : config.getKeywordTriggers().entrySet()) {
-            String keyword = entry.getKey();
-            ConfigManager.TriggerConfig triggerConfig = entry.getValue();
-
-            if (!triggerConfig.enabled) continue;
-
-            if (lowerMessage.contains(keyword)) {
-                if (!checkChanceAndCooldown(triggerConfig, "keyword:" + keyword, message.getAuthorChannelId())) {
-                    continue;
-                }
+        // Une seule passe sur le message, quel que soit le nombre de mots-clés
+        for (KeywordMatcher.Match<ConfigManager.TriggerConfig> match : config.getKeywordMatcher().match(message.getMessage())) {
+            ConfigManager.TriggerConfig triggerConfig = match.value();
 
-                executeActions(triggerConfig, message, target);
+            if (!checkChanceAndCooldown(triggerConfig, "keyword:" + match.keyword(), message)) {
+                continue;
             }
+
+            executeActions(triggerConfig, message, target);
         }
     }
 
     /**
      * Vérifie la chance et le cooldown d'un trigger
      */
-    private boolean checkChanceAndCooldown(ConfigManager.TriggerConfig config, String triggerType, String viewerId) {
+    private boolean checkChanceAndCooldown(ConfigManager.TriggerConfig config, String triggerType, ChatMessage message) {
         // Vérifier la chance
         if (config.chance < 100.0) {
             if (random.nextDouble() * 100 > config.chance) {
@@ -275,19 +266,23 @@ public class EventManager {
             }
         }
 
-        // Vérifier le cooldown
-        if (config.cooldown > 0) {
-            Map<String, Long> typeCooldowns = cooldowns.computeIfAbsent(triggerType, k -> new ConcurrentHashMap<>());
-            Long lastTrigger = typeCooldowns.get(viewerId);
-
-            if (lastTrigger != null) {
-                long elapsed = System.currentTimeMillis() - lastTrigger;
-                if (elapsed < config.cooldown * 1000L) {
-                    return false;
-                }
+        // Vérifier les cooldowns
+        if (config.cooldown > 0 || config.roleCooldown > 0 || config.globalCooldown > 0) {
+            if (config.cooldownId == -1) {
+                config.cooldownId = cooldowns.intern(triggerType);
             }
-
-            typeCooldowns.put(viewerId, System.currentTimeMillis());
+            int id = config.cooldownId;
+            long now = System.currentTimeMillis();
+            String viewerId = message.getAuthorChannelId();
+            String role = message.getAuthorRole();
+
+            if (config.globalCooldown > 0 && !cooldowns.isReady(id, CooldownTable.Scope.GLOBAL, null, now)) return false;
+            if (config.roleCooldown > 0 && !cooldowns.isReady(id, CooldownTable.Scope.ROLE, role, now)) return false;
+            if (config.cooldown > 0 && !cooldowns.isReady(id, CooldownTable.Scope.VIEWER, viewerId, now)) return false;
+
+            cooldowns.start(id, CooldownTable.Scope.GLOBAL, null, config.globalCooldown * 1000L, now);
+            cooldowns.start(id, CooldownTable.Scope.ROLE, role, config.roleCooldown * 1000L, now);
+            cooldowns.start(id, CooldownTable.Scope.VIEWER, viewerId, config.cooldown * 1000L, now);
         }
 
         return true;
@@ -297,33 +292,15 @@ public class EventManager {
      * Exécute les actions d'un trigger
      */
     private void executeActions(ConfigManager.TriggerConfig config, ChatMessage message, Player target) {
-        if (config.actions == null) return;
-
-        for (Map<?, ?> actionMap : config.actions) {
-            try {
-                String type = (String) actionMap.get("type");
-                ActionTrigger trigger = triggers.get(type);
-
-                if (trigger == null) {
-                    plugin.getLogger().warning("Type d'action inconnu: " + type);
-                    continue;
-                }
-
-                // Vérifier le montant minimum pour les super chats
-                if (actionMap.containsKey("min-amount") && message.isSuperChat()) {
-                    double minAmount = ((Number) actionMap.get("min-amount")).doubleValue();
-                    if (message.getAmountValue() < minAmount) {
-                        continue;
-                    }
-                }
-
-                // Exécuter l'action
-                trigger.execute(actionMap, message, target);
-
-            } catch (Exception e) {
-                plugin.getLogger().warning("Erreur lors de l'execution d'une action: " + e.getMessage());
-                e.printStackTrace();
-            }
+        // Plan compilé au chargement de la config (actions invalides déjà signalées et retirées)
+        long start = System.nanoTime();
+        if (profiler.isActive()) {
+            config.plan.execute(message, target, plugin.getLogger(), profiler, profiler.begin());
+        } else {
+            config.plan.execute(message, target, plugin.getLogger());
         }
+        actionTimings.computeIfAbsent(config.name, name -> plugin.getMetrics().histogram(
+                "youtubeevent_trigger_duration_seconds", "Duree d'execution des actions par trigger", "trigger", name))
+                .recordSince(start);
     }
 }
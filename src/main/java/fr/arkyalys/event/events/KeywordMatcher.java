@@ -0,0 +1,254 @@
+package fr.arkyalys.event.events;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Détection de mots-clés en une seule passe (automate Aho-Corasick)
+ *
+ * Tous les mots-clés sont compilés une fois (au chargement de la config) en un automate:
+ * un message est parcouru une seule fois, quel que soit le nombre de mots-clés.
+ * - insensible à la casse, et optionnellement aux accents ("cafe" trouve "café")
+ * - option "mot entier" par mot-clé ("gg" ne trouve pas "eggs")
+ *
+ * L'instance est immuable: un reload construit un nouvel automate puis le publie d'un coup.
+ *
+ * @param <T> Valeur associée à chaque mot-clé (ex: config du trigger)
+ */
+public final class KeywordMatcher<T> {
+
+    /**
+     * Mot-clé à compiler
+     */
+    public record Entry<T>(String keyword, boolean wholeWord, T value) {}
+
+    /**
+     * Mot-clé trouvé dans un message
+     */
+    public record Match<T>(String keyword, T value) {}
+
+    private static final int ROOT = 0;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final boolean foldAccents;
+    private final List<Match<T>> matches;
+    private final int[] keywordLengths;
+    private final boolean[] wholeWord;
+
+    // Alphabet compressé: seuls les caractères présents dans les mots-clés ont une classe (0 = autre)
+    private final int[] asciiClasses = new int[128];
+    private final Map<Character, Integer> otherClasses = new HashMap<>();
+    private final int alphabetSize;
+
+    // Automate déterministe: transitions[state * alphabetSize + classe]
+    private final int[] transitions;
+    // Mots-clés reconnus en arrivant dans chaque état (y compris via les liens d'échec)
+    private final int[][] outputs;
+
+    public KeywordMatcher(List<Entry<T>> entries, boolean foldAccents) {
+        this.foldAccents = foldAccents;
+
+        List<Match<T>> kept = new ArrayList<>();
+        List<String> folded = new ArrayList<>();
+        List<Boolean> wholeWords = new ArrayList<>();
+        for (Entry<T> entry : entries) {
+            String key = fold(entry.keyword());
+            if (key.isEmpty()) continue;
+            kept.add(new Match<>(entry.keyword(), entry.value()));
+            folded.add(key);
+            wholeWords.add(entry.wholeWord());
+        }
+
+        this.matches = Collections.unmodifiableList(kept);
+        this.keywordLengths = new int[folded.size()];
+        this.wholeWord = new boolean[folded.size()];
+
+        // 1. Alphabet
+        int nextClass = 1;
+        for (String key : folded) {
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(i);
+                if (classOf(c) == 0) {
+                    if (c < 128) {
+                        asciiClasses[c] = nextClass++;
+                    } else {
+                        otherClasses.put(c, nextClass++);
+                    }
+                }
+            }
+        }
+        this.alphabetSize = nextClass;
+
+        // 2. Trie
+        int maxStates = 1;
+        for (String key : folded) {
+            maxStates += key.length();
+        }
+        int[] trie = new int[maxStates * alphabetSize];
+        Arrays.fill(trie, -1);
+        List<List<Integer>> ownOutputs = new ArrayList<>();
+        ownOutputs.add(new ArrayList<>());
+        int states = 1;
+
+        for (int k = 0; k < folded.size(); k++) {
+            String key = folded.get(k);
+            keywordLengths[k] = key.length();
+            wholeWord[k] = wholeWords.get(k);
+
+            int state = ROOT;
+            for (int i = 0; i < key.length(); i++) {
+                int index = state * alphabetSize + classOf(key.charAt(i));
+                if (trie[index] == -1) {
+                    trie[index] = states++;
+                    ownOutputs.add(new ArrayList<>());
+                }
+                state = trie[index];
+            }
+            ownOutputs.get(state).add(k);
+        }
+
+        // 3. Liens d'échec (parcours en largeur) et transitions complètes
+        this.transitions = Arrays.copyOf(trie, states * alphabetSize);
+        this.outputs = new int[states][];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+
+        outputs[ROOT] = new int[0];
+        for (int c = 0; c < alphabetSize; c++) {
+            int next = transitions[c];
+            if (next == -1) {
+                transitions[c] = ROOT;
+            } else {
+                fail[next] = ROOT;
+                queue.add(next);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = mergeOutputs(ownOutputs.get(state), outputs[fail[state]]);
+
+            for (int c = 0; c < alphabetSize; c++) {
+                int index = state * alphabetSize + c;
+                int next = transitions[index];
+                int fallback = transitions[fail[state] * alphabetSize + c];
+                if (next == -1) {
+                    transitions[index] = fallback;
+                } else {
+                    fail[next] = fallback;
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Automate vide (aucun mot-clé)
+     */
+    public static <T> KeywordMatcher<T> empty() {
+        return new KeywordMatcher<>(List.of(), false);
+    }
+
+    /**
+     * Trouve tous les mots-clés présents dans un texte (chacun au plus une fois, dans l'ordre d'apparition)
+     */
+    public List<Match<T>> match(String text) {
+        if (matches.isEmpty() || text == null || text.isEmpty()) {
+            return List.of();
+        }
+
+        String folded = fold(text);
+        List<Match<T>> found = null;
+        BitSet seen = null;
+
+        int state = ROOT;
+        for (int i = 0; i < folded.length(); i++) {
+            state = transitions[state * alphabetSize + classOf(folded.charAt(i))];
+
+            for (int k : outputs[state]) {
+                if (seen != null && seen.get(k)) continue;
+                if (wholeWord[k] && !isWholeWord(folded, i - keywordLengths[k] + 1, i + 1)) continue;
+
+                if (found == null) {
+                    found = new ArrayList<>(2);
+                    seen = new BitSet(matches.size());
+                }
+                seen.set(k);
+                found.add(matches.get(k));
+            }
+        }
+
+        return found == null ? List.of() : found;
+    }
+
+    /**
+     * Nombre de mots-clés compilés
+     */
+    public int size() {
+        return matches.size();
+    }
+
+    /**
+     * Nombre d'états de l'automate
+     */
+    public int getStateCount() {
+        return outputs.length;
+    }
+
+    // ==================== Interne ====================
+
+    private int classOf(char c) {
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+        Integer cls = otherClasses.get(c);
+        return cls == null ? 0 : cls;
+    }
+
+    private static boolean isWholeWord(String text, int start, int end) {
+        boolean before = start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1));
+        boolean after = end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+        return before && after;
+    }
+
+    private static int[] mergeOutputs(List<Integer> own, int[] inherited) {
+        int[] merged = new int[own.size() + inherited.length];
+        for (int i = 0; i < own.size(); i++) {
+            merged[i] = own.get(i);
+        }
+        System.arraycopy(inherited, 0, merged, own.size(), inherited.length);
+        return merged;
+    }
+
+    /**
+     * Minuscules (+ suppression des accents si activé)
+     * Chemin rapide sans allocation superflue pour le texte ASCII (la majorité du chat)
+     */
+    private String fold(String text) {
+        boolean ascii = true;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 128) {
+                ascii = false;
+                break;
+            }
+        }
+
+        if (ascii) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+
+        if (foldAccents) {
+            text = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
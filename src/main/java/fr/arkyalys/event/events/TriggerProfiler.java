@@ -0,0 +1,220 @@
+package fr.arkyalys.event.events;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Profileur des triggers (/youtube profile start|stop|dump)
+ *
+ * Mesure le temps réel, le nombre d'appels et les allocations de chaque action,
+ * rangés par pile "source;trigger;action" (format collapsed-stack de flamegraph.pl).
+ * - FULL: chaque appel est mesuré
+ * - SAMPLING: un appel sur N est mesuré, les totaux sont extrapolés
+ *
+ * Utilisé uniquement depuis le thread principal: aucune synchronisation.
+ * Désactivé, begin() ne coûte qu'un test sur le mode.
+ */
+public class TriggerProfiler {
+
+    public enum Mode { OFF, SAMPLING, FULL }
+
+    /**
+     * Statistiques d'une pile (ex: "chat;keyword:tnt;SPAWN_MOB")
+     */
+    public static final class Entry {
+        private final String stack;
+        private long invocations;
+        private long sampled;
+        private long totalNanos;
+        private long maxNanos;
+        private long allocatedBytes;
+
+        Entry(String stack) {
+            this.stack = stack;
+        }
+
+        public String getStack() {
+            return stack;
+        }
+
+        public long getInvocations() {
+            return invocations;
+        }
+
+        /**
+         * Temps total estimé (extrapolé en mode SAMPLING)
+         */
+        public long getEstimatedNanos() {
+            return sampled == 0 ? 0 : totalNanos * invocations / sampled;
+        }
+
+        public double getAverageMillis() {
+            return sampled == 0 ? 0 : totalNanos / (double) sampled / 1_000_000.0;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos / 1_000_000.0;
+        }
+
+        /**
+         * Octets alloués par appel en moyenne (-1 si la JVM ne le mesure pas)
+         */
+        public long getAverageAllocatedBytes() {
+            if (!ALLOCATION_SUPPORTED) return -1;
+            return sampled == 0 ? 0 : allocatedBytes / sampled;
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    private static final boolean ALLOCATION_SUPPORTED = THREADS != null;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private Mode mode = Mode.OFF;
+    private int sampleEvery = 1;
+    private int countdown;
+    private long startedAt;
+    private long stoppedAt;
+
+    /**
+     * Démarre une nouvelle session (les statistiques précédentes sont effacées)
+     * @param sampleEvery Mesure un appel sur N en mode SAMPLING
+     */
+    public void start(Mode mode, int sampleEvery) {
+        entries.clear();
+        this.mode = mode;
+        this.sampleEvery = mode == Mode.SAMPLING ? Math.max(sampleEvery, 1) : 1;
+        this.countdown = 0;
+        this.startedAt = System.currentTimeMillis();
+        this.stoppedAt = 0;
+    }
+
+    public void stop() {
+        if (mode == Mode.OFF) return;
+        mode = Mode.OFF;
+        stoppedAt = System.currentTimeMillis();
+    }
+
+    public boolean isActive() {
+        return mode != Mode.OFF;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    /**
+     * Durée de la session en millisecondes (en cours ou terminée)
+     */
+    public long getDurationMillis() {
+        if (startedAt == 0) return 0;
+        return (stoppedAt != 0 ? stoppedAt : System.currentTimeMillis()) - startedAt;
+    }
+
+    // ==================== Mesure ====================
+
+    /**
+     * Début d'une invocation
+     * @return true si cet appel doit être mesuré (sinon il est seulement compté par end())
+     */
+    public boolean begin() {
+        if (mode == Mode.OFF) return false;
+        if (--countdown > 0) return false;
+        countdown = sampleEvery;
+        return true;
+    }
+
+    /**
+     * Horodatage de départ d'une mesure
+     */
+    public long startNanos() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Octets alloués par le thread courant (0 si non supporté)
+     */
+    public long startBytes() {
+        return ALLOCATION_SUPPORTED ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    /**
+     * Fin d'une invocation mesurée
+     */
+    public void record(String stack, long startNanos, long startBytes) {
+        long nanos = System.nanoTime() - startNanos;
+        long bytes = ALLOCATION_SUPPORTED ? THREADS.getCurrentThreadAllocatedBytes() - startBytes : 0;
+
+        Entry entry = entries.computeIfAbsent(stack, Entry::new);
+        entry.invocations++;
+        entry.sampled++;
+        entry.totalNanos += nanos;
+        entry.allocatedBytes += bytes;
+        if (nanos > entry.maxNanos) {
+            entry.maxNanos = nanos;
+        }
+    }
+
+    /**
+     * Invocation non mesurée (mode SAMPLING): comptée pour l'extrapolation
+     */
+    public void count(String stack) {
+        if (mode == Mode.OFF) return;
+        entries.computeIfAbsent(stack, Entry::new).invocations++;
+    }
+
+    // ==================== Rapport ====================
+
+    /**
+     * Piles triées par temps total estimé décroissant
+     */
+    public List<Entry> getTopEntries(int limit) {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparingLong(Entry::getEstimatedNanos).reversed());
+        return sorted.size() > limit ? sorted.subList(0, limit) : sorted;
+    }
+
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Export collapsed-stack (une ligne "pile poids" par entrée, poids en microsecondes)
+     * Lisible par flamegraph.pl, speedscope ou async-profiler converter.
+     */
+    public String toCollapsed() {
+        StringBuilder sb = new StringBuilder();
+        for (Entry entry : getTopEntries(Integer.MAX_VALUE)) {
+            long micros = entry.getEstimatedNanos() / 1_000;
+            if (micros <= 0) continue;
+            sb.append(entry.stack.replace(' ', '_')).append(' ').append(micros).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Accès aux compteurs d'allocation de HotSpot (null si indisponible ou désactivé)
+     */
+    private static com.sun.management.ThreadMXBean threadBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean sun && sun.isThreadAllocatedMemorySupported()) {
+                if (!sun.isThreadAllocatedMemoryEnabled()) {
+                    sun.setThreadAllocatedMemoryEnabled(true);
+                }
+                return sun;
+            }
+        } catch (RuntimeException | LinkageError ignored) {
+            // JVM sans com.sun.management: seules les durées sont mesurées
+        }
+        return null;
+    }
+}
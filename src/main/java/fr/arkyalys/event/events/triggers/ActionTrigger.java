@@ -1,5 +1,6 @@
 package fr.arkyalys.event.events.triggers;
 
+import fr.arkyalys.event.events.ChatPlaceholders;
 import fr.arkyalys.event.youtube.models.ChatMessage;
 import org.bukkit.entity.Player;
 
@@ -11,12 +12,30 @@ import java.util.Map;
 public interface ActionTrigger {
 
     /**
-     * Exécute l'action
+     * Action prête à être exécutée (config déjà lue, validée et convertie)
+     */
+    @FunctionalInterface
+    interface CompiledAction {
+        void execute(ChatMessage message, Player target);
+    }
+
+    /**
+     * Compile la configuration d'une action (appelé au chargement de la config)
+     * @param config La configuration de l'action
+     * @return L'action compilée, immuable
+     * @throws IllegalArgumentException si la configuration est invalide (mob, item, effet inconnu...)
+     */
+    CompiledAction compile(Map<?, ?> config);
+
+    /**
+     * Exécute l'action directement depuis sa configuration (compile à chaque appel)
      * @param config La configuration de l'action
      * @param message Le message YouTube qui a déclenché l'action
      * @param target Le joueur cible (streamer)
      */
-    void execute(Map<?, ?> config, ChatMessage message, Player target);
+    default void execute(Map<?, ?> config, ChatMessage message, Player target) {
+        compile(config).execute(message, target);
+    }
 
     /**
      * Remplace les placeholders dans une chaîne
@@ -31,22 +50,26 @@ public interface ActionTrigger {
      * - %is_owner% : true/false si propriétaire de la chaîne
      * - %is_moderator% : true/false si modérateur
      * - %is_sponsor% : true/false si membre/sponsor
+     * (+ placeholders ajoutés via ChatPlaceholders.register)
      */
     default String replacePlaceholders(String text, ChatMessage message, Player target) {
         if (text == null) return "";
 
-        return text
-                .replace("%viewer%", message.getAuthorName())
-                .replace("%message%", message.getMessage() != null ? message.getMessage() : "")
-                .replace("%player%", target != null ? target.getName() : "")
-                .replace("%amount%", message.getAmountDisplay() != null ? message.getAmountDisplay() : "0")
-                .replace("%amount_value%", String.format("%.2f", message.getAmountValue()))
-                // Nouveaux placeholders pour les infos auteur
-                .replace("%author_role%", message.getAuthorRole())
-                .replace("%author_roles%", message.getAuthorRoles())
-                .replace("%is_owner%", String.valueOf(message.isOwner()))
-                .replace("%is_moderator%", String.valueOf(message.isModerator()))
-                .replace("%is_sponsor%", String.valueOf(message.isSponsor()));
+        // Template compilé une fois par chaîne de config, seuls les placeholders présents sont évalués
+        return ChatPlaceholders.render(text, message, target);
+    }
+
+    /**
+     * Récupère une valeur d'enum de la config
+     * @throws IllegalArgumentException si la valeur ne correspond à aucune constante
+     */
+    default <E extends Enum<E>> E getEnum(Map<?, ?> config, String key, String defaultValue, Class<E> type, String error) {
+        String name = getString(config, key, defaultValue).toUpperCase();
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(error + ": " + name);
+        }
     }
 
     /**
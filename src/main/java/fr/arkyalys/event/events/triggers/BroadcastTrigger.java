@@ -1,6 +1,8 @@
 package fr.arkyalys.event.events.triggers;
 
 import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.events.ChatPlaceholders;
+import fr.arkyalys.event.util.PlaceholderTemplate;
 import fr.arkyalys.event.youtube.models.ChatMessage;
 import net.md_5.bungee.api.ChatMessageType;
 import net.md_5.bungee.api.chat.TextComponent;
@@ -21,19 +23,20 @@ public class BroadcastTrigger implements ActionTrigger {
     }
 
     @Override
-    public void execute(Map<?, ?> config, ChatMessage message, Player target) {
-        String text = getString(config, "message", "&7Message de %viewer%");
+    public CompiledAction compile(Map<?, ?> config) {
+        PlaceholderTemplate text = PlaceholderTemplate.compile(getString(config, "message", "&7Message de %viewer%"));
         String type = getString(config, "broadcast-type", "CHAT").toUpperCase();
 
-        String formattedText = replacePlaceholders(text, message, target).replace("&", "\u00A7");
+        return switch (type) {
+            case "ACTIONBAR" -> (message, target) -> sendActionBar(format(text, message, target));
+            case "TITLE" -> title(config, text);
+            case "PLAYER" -> (message, target) -> target.sendMessage(format(text, message, target));
+            default -> (message, target) -> Bukkit.broadcastMessage(format(text, message, target));
+        };
+    }
 
-        switch (type) {
-            case "CHAT" -> Bukkit.broadcastMessage(formattedText);
-            case "ACTIONBAR" -> sendActionBar(formattedText);
-            case "TITLE" -> sendTitle(config, formattedText, message, target);
-            case "PLAYER" -> target.sendMessage(formattedText);
-            default -> Bukkit.broadcastMessage(formattedText);
-        }
+    private String format(PlaceholderTemplate template, ChatMessage message, Player target) {
+        return ChatPlaceholders.render(template, message, target).replace("&", "\u00A7");
     }
 
     private void sendActionBar(String message) {
@@ -42,9 +45,8 @@ public class BroadcastTrigger implements ActionTrigger {
         }
     }
 
-    private void sendTitle(Map<?, ?> config, String title, ChatMessage message, Player target) {
-        String subtitle = getString(config, "subtitle", "");
-        subtitle = replacePlaceholders(subtitle, message, target).replace("&", "\u00A7");
+    private CompiledAction title(Map<?, ?> config, PlaceholderTemplate titleTemplate) {
+        PlaceholderTemplate subtitleTemplate = PlaceholderTemplate.compile(getString(config, "subtitle", ""));
 
         int fadeIn = getInt(config, "fade-in", 10);
         int stay = getInt(config, "stay", 70);
@@ -52,12 +54,17 @@ public class BroadcastTrigger implements ActionTrigger {
 
         boolean broadcast = getBoolean(config, "broadcast", false);
 
-        if (broadcast) {
-            for (Player player : Bukkit.getOnlinePlayers()) {
-                player.sendTitle(title, subtitle, fadeIn, stay, fadeOut);
+        return (message, target) -> {
+            String title = format(titleTemplate, message, target);
+            String subtitle = format(subtitleTemplate, message, target);
+
+            if (broadcast) {
+                for (Player player : Bukkit.getOnlinePlayers()) {
+                    player.sendTitle(title, subtitle, fadeIn, stay, fadeOut);
+                }
+            } else {
+                target.sendTitle(title, subtitle, fadeIn, stay, fadeOut);
             }
-        } else {
-            target.sendTitle(title, subtitle, fadeIn, stay, fadeOut);
-        }
+        };
     }
 }
@@ -1,10 +1,13 @@
 package fr.arkyalys.event.events.triggers;
 
 import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.events.ChatPlaceholders;
+import fr.arkyalys.event.util.PlaceholderTemplate;
 import fr.arkyalys.event.youtube.models.ChatMessage;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -22,30 +25,38 @@ public class CommandTrigger implements ActionTrigger {
     }
 
     @Override
-    public void execute(Map<?, ?> config, ChatMessage message, Player target) {
+    public CompiledAction compile(Map<?, ?> config) {
         String executor = getString(config, "executor", "CONSOLE").toUpperCase();
 
         // Commande unique ou liste de commandes
+        List<PlaceholderTemplate> templates = new ArrayList<>();
         Object cmdObj = config.get("command");
         Object cmdsObj = config.get("commands");
 
         if (cmdObj != null) {
-            executeCommand(cmdObj.toString(), executor, message, target);
+            templates.add(PlaceholderTemplate.compile(cmdObj.toString()));
         }
 
         if (cmdsObj instanceof List<?> commands) {
             for (Object cmd : commands) {
-                executeCommand(cmd.toString(), executor, message, target);
+                templates.add(PlaceholderTemplate.compile(cmd.toString()));
             }
         }
-    }
 
-    private void executeCommand(String command, String executor, ChatMessage message, Player target) {
-        // Remplacer les placeholders de base
-        String cmd = replacePlaceholders(command, message, target);
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("Aucune commande definie (command / commands)");
+        }
+
+        return (message, target) -> {
+            for (PlaceholderTemplate template : templates) {
+                executeCommand(template, executor, message, target);
+            }
+        };
+    }
 
+    private void executeCommand(PlaceholderTemplate template, String executor, ChatMessage message, Player target) {
         // Si la commande contient %all%, l'exécuter pour chaque joueur en ligne
-        if (cmd.contains("%all%")) {
+        if (template.contains("all")) {
             Collection<? extends Player> onlinePlayers = Bukkit.getOnlinePlayers();
 
             if (onlinePlayers.isEmpty()) {
@@ -56,11 +67,13 @@ public class CommandTrigger implements ActionTrigger {
             plugin.getLogger().info("Execution de la commande pour " + onlinePlayers.size() + " joueurs");
 
             for (Player player : onlinePlayers) {
-                String playerCmd = cmd.replace("%all%", player.getName());
+                String playerCmd = template.render(name -> name.equals("all")
+                        ? player.getName()
+                        : ChatPlaceholders.resolve(name, message, target));
                 executeSingleCommand(playerCmd, executor, target);
             }
         } else {
-            executeSingleCommand(cmd, executor, target);
+            executeSingleCommand(ChatPlaceholders.render(template, message, target), executor, target);
         }
     }
 
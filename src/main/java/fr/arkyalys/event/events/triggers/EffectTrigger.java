@@ -1,8 +1,6 @@
 package fr.arkyalys.event.events.triggers;
 
 import fr.arkyalys.event.YouTubeEventPlugin;
-import fr.arkyalys.event.youtube.models.ChatMessage;
-import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
@@ -20,7 +18,7 @@ public class EffectTrigger implements ActionTrigger {
     }
 
     @Override
-    public void execute(Map<?, ?> config, ChatMessage message, Player target) {
+    public CompiledAction compile(Map<?, ?> config) {
         String effectName = getString(config, "effect", "SPEED").toUpperCase();
         int duration = getInt(config, "duration", 10); // En secondes
         int amplifier = getInt(config, "amplifier", 0); // 0 = niveau 1
@@ -30,13 +28,13 @@ public class EffectTrigger implements ActionTrigger {
 
         PotionEffectType effectType = PotionEffectType.getByName(effectName);
         if (effectType == null) {
-            plugin.getLogger().warning("Type d'effet invalide: " + effectName);
-            return;
+            throw new IllegalArgumentException("Type d'effet invalide: " + effectName);
         }
 
         // Durée en ticks (20 ticks = 1 seconde)
         int durationTicks = duration * 20;
 
+        // PotionEffect est immuable: une seule instance pour toutes les exécutions
         PotionEffect effect = new PotionEffect(
                 effectType,
                 durationTicks,
@@ -46,9 +44,11 @@ public class EffectTrigger implements ActionTrigger {
                 icon
         );
 
-        target.addPotionEffect(effect);
+        return (message, target) -> {
+            target.addPotionEffect(effect);
 
-        plugin.getLogger().info("Effet applique: " + effectName + " niveau " + (amplifier + 1) +
-                                " pendant " + duration + "s pour " + message.getAuthorName());
+            plugin.getLogger().info("Effet applique: " + effectName + " niveau " + (amplifier + 1) +
+                                    " pendant " + duration + "s pour " + message.getAuthorName());
+        };
     }
 }
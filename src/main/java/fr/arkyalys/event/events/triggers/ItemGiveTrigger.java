@@ -1,6 +1,8 @@
 package fr.arkyalys.event.events.triggers;
 
 import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.events.ChatPlaceholders;
+import fr.arkyalys.event.util.PlaceholderTemplate;
 import fr.arkyalys.event.youtube.models.ChatMessage;
 import org.bukkit.Material;
 import org.bukkit.enchantments.Enchantment;
@@ -9,6 +11,7 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,56 +27,65 @@ public class ItemGiveTrigger implements ActionTrigger {
     }
 
     @Override
-    public void execute(Map<?, ?> config, ChatMessage message, Player target) {
-        String itemName = getString(config, "item", "DIAMOND").toUpperCase();
+    public CompiledAction compile(Map<?, ?> config) {
+        Material material = getEnum(config, "item", "DIAMOND", Material.class, "Type d'item invalide");
         int amount = getInt(config, "amount", 1);
         String displayName = getString(config, "display-name", null);
+        PlaceholderTemplate nameTemplate = displayName != null ? PlaceholderTemplate.compile(displayName) : null;
         boolean drop = getBoolean(config, "drop", false);
 
-        Material material;
-        try {
-            material = Material.valueOf(itemName);
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("Type d'item invalide: " + itemName);
-            return;
+        // Lore
+        List<PlaceholderTemplate> loreTemplates = null;
+        if (config.get("lore") instanceof List<?> loreList) {
+            loreTemplates = new ArrayList<>(loreList.size());
+            for (Object line : loreList) {
+                loreTemplates.add(PlaceholderTemplate.compile(line.toString()));
+            }
+        }
+        List<PlaceholderTemplate> lore = loreTemplates;
+
+        // Enchantements
+        Map<Enchantment, Integer> enchantments = new LinkedHashMap<>();
+        if (config.get("enchantments") instanceof Map<?, ?> enchMap) {
+            for (Map.Entry<?, ?> entry : enchMap.entrySet()) {
+                // Enchantement invalide: ignoré (averti au chargement), l'item est quand même donné
+                Enchantment enchantment = Enchantment.getByName(entry.getKey().toString().toUpperCase());
+                if (enchantment == null || !(entry.getValue() instanceof Number level)) {
+                    plugin.getLogger().warning("Enchantement invalide: " + entry.getKey());
+                    continue;
+                }
+                enchantments.put(enchantment, level.intValue());
+            }
         }
 
+        return (message, target) -> give(material, amount, nameTemplate, lore, enchantments, drop, message, target);
+    }
+
+    private void give(Material material, int amount, PlaceholderTemplate nameTemplate, List<PlaceholderTemplate> loreTemplates,
+                      Map<Enchantment, Integer> enchantments, boolean drop, ChatMessage message, Player target) {
         ItemStack item = new ItemStack(material, amount);
 
         // Meta
         ItemMeta meta = item.getItemMeta();
         if (meta != null) {
             // Nom custom
-            if (displayName != null) {
-                String name = replacePlaceholders(displayName, message, target);
+            if (nameTemplate != null) {
+                String name = ChatPlaceholders.render(nameTemplate, message, target);
                 meta.setDisplayName(name.replace("&", "\u00A7"));
             }
 
             // Lore
-            Object loreObj = config.get("lore");
-            if (loreObj instanceof List<?> loreList) {
-                List<String> lore = new ArrayList<>();
-                for (Object line : loreList) {
-                    String loreLine = replacePlaceholders(line.toString(), message, target);
-                    lore.add(loreLine.replace("&", "\u00A7"));
+            if (loreTemplates != null) {
+                List<String> lore = new ArrayList<>(loreTemplates.size());
+                for (PlaceholderTemplate line : loreTemplates) {
+                    lore.add(ChatPlaceholders.render(line, message, target).replace("&", "\u00A7"));
                 }
                 meta.setLore(lore);
             }
 
             // Enchantements
-            Object enchObj = config.get("enchantments");
-            if (enchObj instanceof Map<?, ?> enchMap) {
-                for (Map.Entry<?, ?> entry : enchMap.entrySet()) {
-                    try {
-                        Enchantment enchantment = Enchantment.getByName(entry.getKey().toString().toUpperCase());
-                        int level = ((Number) entry.getValue()).intValue();
-                        if (enchantment != null) {
-                            meta.addEnchant(enchantment, level, true);
-                        }
-                    } catch (Exception e) {
-                        plugin.getLogger().warning("Enchantement invalide: " + entry.getKey());
-                    }
-                }
+            for (Map.Entry<Enchantment, Integer> entry : enchantments.entrySet()) {
+                meta.addEnchant(entry.getKey(), entry.getValue(), true);
             }
 
             item.setItemMeta(meta);
@@ -92,6 +104,6 @@ public class ItemGiveTrigger implements ActionTrigger {
             }
         }
 
-        plugin.getLogger().info("Item donne: " + amount + "x " + itemName + " pour " + message.getAuthorName());
+        plugin.getLogger().info("Item donne: " + amount + "x " + material + " pour " + message.getAuthorName());
     }
 }
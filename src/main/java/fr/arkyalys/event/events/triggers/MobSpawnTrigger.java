@@ -1,12 +1,12 @@
 package fr.arkyalys.event.events.triggers;
 
 import fr.arkyalys.event.YouTubeEventPlugin;
-import fr.arkyalys.event.youtube.models.ChatMessage;
+import fr.arkyalys.event.events.ChatPlaceholders;
+import fr.arkyalys.event.util.PlaceholderTemplate;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 
 import java.util.Map;
 import java.util.Random;
@@ -24,40 +24,35 @@ public class MobSpawnTrigger implements ActionTrigger {
     }
 
     @Override
-    public void execute(Map<?, ?> config, ChatMessage message, Player target) {
-        String mobName = getString(config, "mob", "ZOMBIE").toUpperCase();
+    public CompiledAction compile(Map<?, ?> config) {
+        EntityType entityType = getEnum(config, "mob", "ZOMBIE", EntityType.class, "Type de mob invalide");
         int amount = getInt(config, "amount", 1);
         int radius = getInt(config, "radius", 5);
         String customName = getString(config, "name", null);
+        PlaceholderTemplate nameTemplate = customName != null ? PlaceholderTemplate.compile(customName) : null;
         boolean hostile = getBoolean(config, "hostile", true);
 
-        EntityType entityType;
-        try {
-            entityType = EntityType.valueOf(mobName);
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("Type de mob invalide: " + mobName);
-            return;
-        }
+        return (message, target) -> {
+            for (int i = 0; i < amount; i++) {
+                Location spawnLoc = getRandomLocation(target.getLocation(), radius);
 
-        for (int i = 0; i < amount; i++) {
-            Location spawnLoc = getRandomLocation(target.getLocation(), radius);
+                Entity entity = target.getWorld().spawnEntity(spawnLoc, entityType);
 
-            Entity entity = target.getWorld().spawnEntity(spawnLoc, entityType);
+                // Nom custom
+                if (nameTemplate != null) {
+                    String name = ChatPlaceholders.render(nameTemplate, message, target);
+                    entity.setCustomName(name.replace("&", "\u00A7"));
+                    entity.setCustomNameVisible(true);
+                }
 
-            // Nom custom
-            if (customName != null) {
-                String name = replacePlaceholders(customName, message, target);
-                entity.setCustomName(name.replace("&", "\u00A7"));
-                entity.setCustomNameVisible(true);
+                // Si non hostile, ne pas cibler le joueur
+                if (!hostile && entity instanceof LivingEntity living) {
+                    // Le mob n'attaquera pas automatiquement
+                }
             }
 
-            // Si non hostile, ne pas cibler le joueur
-            if (!hostile && entity instanceof LivingEntity living) {
-                // Le mob n'attaquera pas automatiquement
-            }
-        }
-
-        plugin.getLogger().info("Spawn de " + amount + " " + mobName + " pour " + message.getAuthorName());
+            plugin.getLogger().info("Spawn de " + amount + " " + entityType + " pour " + message.getAuthorName());
+        };
     }
 
     private Location getRandomLocation(Location center, int radius) {
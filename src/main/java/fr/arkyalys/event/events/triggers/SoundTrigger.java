@@ -1,7 +1,6 @@
 package fr.arkyalys.event.events.triggers;
 
 import fr.arkyalys.event.YouTubeEventPlugin;
-import fr.arkyalys.event.youtube.models.ChatMessage;
 import org.bukkit.Bukkit;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
@@ -20,26 +19,19 @@ public class SoundTrigger implements ActionTrigger {
     }
 
     @Override
-    public void execute(Map<?, ?> config, ChatMessage message, Player target) {
-        String soundName = getString(config, "sound", "ENTITY_EXPERIENCE_ORB_PICKUP").toUpperCase();
+    public CompiledAction compile(Map<?, ?> config) {
+        Sound sound = getEnum(config, "sound", "ENTITY_EXPERIENCE_ORB_PICKUP", Sound.class, "Son invalide");
         float volume = (float) getDouble(config, "volume", 1.0);
         float pitch = (float) getDouble(config, "pitch", 1.0);
         boolean broadcast = getBoolean(config, "broadcast", false);
 
-        Sound sound;
-        try {
-            sound = Sound.valueOf(soundName);
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("Son invalide: " + soundName);
-            return;
-        }
-
         if (broadcast) {
-            for (Player player : Bukkit.getOnlinePlayers()) {
-                player.playSound(player.getLocation(), sound, volume, pitch);
-            }
-        } else {
-            target.playSound(target.getLocation(), sound, volume, pitch);
+            return (message, target) -> {
+                for (Player player : Bukkit.getOnlinePlayers()) {
+                    player.playSound(player.getLocation(), sound, volume, pitch);
+                }
+            };
         }
+        return (message, target) -> target.playSound(target.getLocation(), sound, volume, pitch);
     }
 }
@@ -1,11 +1,9 @@
 package fr.arkyalys.event.events.triggers;
 
 import fr.arkyalys.event.YouTubeEventPlugin;
-import fr.arkyalys.event.youtube.models.ChatMessage;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.EntityType;
-import org.bukkit.entity.Player;
 import org.bukkit.entity.TNTPrimed;
 
 import java.util.Map;
@@ -24,64 +22,73 @@ public class WorldEventTrigger implements ActionTrigger {
     }
 
     @Override
-    public void execute(Map<?, ?> config, ChatMessage message, Player target) {
+    public CompiledAction compile(Map<?, ?> config) {
         String event = getString(config, "event", "LIGHTNING").toUpperCase();
 
-        switch (event) {
-            case "LIGHTNING" -> spawnLightning(config, target);
-            case "EXPLOSION" -> createExplosion(config, target);
-            case "TNT" -> spawnTNT(config, target);
-            case "RAIN" -> setWeather(target.getWorld(), true, false);
-            case "STORM" -> setWeather(target.getWorld(), true, true);
-            case "CLEAR" -> setWeather(target.getWorld(), false, false);
-            case "DAY" -> setTime(target.getWorld(), 1000);
-            case "NIGHT" -> setTime(target.getWorld(), 13000);
-            case "MIDNIGHT" -> setTime(target.getWorld(), 18000);
-            case "FIRE" -> setFire(config, target);
-            case "METEOR" -> spawnMeteor(config, target);
-            default -> plugin.getLogger().warning("Evenement monde inconnu: " + event);
-        }
-
-        plugin.getLogger().info("Evenement monde: " + event + " pour " + message.getAuthorName());
+        CompiledAction action = switch (event) {
+            case "LIGHTNING" -> lightning(config);
+            case "EXPLOSION" -> explosion(config);
+            case "TNT" -> tnt(config);
+            case "RAIN" -> (message, target) -> setWeather(target.getWorld(), true, false);
+            case "STORM" -> (message, target) -> setWeather(target.getWorld(), true, true);
+            case "CLEAR" -> (message, target) -> setWeather(target.getWorld(), false, false);
+            case "DAY" -> (message, target) -> setTime(target.getWorld(), 1000);
+            case "NIGHT" -> (message, target) -> setTime(target.getWorld(), 13000);
+            case "MIDNIGHT" -> (message, target) -> setTime(target.getWorld(), 18000);
+            case "FIRE" -> fire(config);
+            case "METEOR" -> meteor(config);
+            default -> throw new IllegalArgumentException("Evenement monde inconnu: " + event);
+        };
+
+        return (message, target) -> {
+            action.execute(message, target);
+            plugin.getLogger().info("Evenement monde: " + event + " pour " + message.getAuthorName());
+        };
     }
 
-    private void spawnLightning(Map<?, ?> config, Player target) {
+    private CompiledAction lightning(Map<?, ?> config) {
         int radius = getInt(config, "radius", 3);
         boolean damage = getBoolean(config, "damage", true);
         int count = getInt(config, "count", 1);
 
-        for (int i = 0; i < count; i++) {
-            Location loc = getRandomLocation(target.getLocation(), radius);
-            if (damage) {
-                target.getWorld().strikeLightning(loc);
-            } else {
-                target.getWorld().strikeLightningEffect(loc);
+        return (message, target) -> {
+            for (int i = 0; i < count; i++) {
+                Location loc = getRandomLocation(target.getLocation(), radius);
+                if (damage) {
+                    target.getWorld().strikeLightning(loc);
+                } else {
+                    target.getWorld().strikeLightningEffect(loc);
+                }
             }
-        }
+        };
     }
 
-    private void createExplosion(Map<?, ?> config, Player target) {
+    private CompiledAction explosion(Map<?, ?> config) {
         float power = (float) getDouble(config, "power", 2.0);
         boolean fire = getBoolean(config, "fire", false);
         boolean breakBlocks = getBoolean(config, "break-blocks", false);
         int radius = getInt(config, "radius", 3);
 
-        Location loc = getRandomLocation(target.getLocation(), radius);
-        target.getWorld().createExplosion(loc, power, fire, breakBlocks);
+        return (message, target) -> {
+            Location loc = getRandomLocation(target.getLocation(), radius);
+            target.getWorld().createExplosion(loc, power, fire, breakBlocks);
+        };
     }
 
-    private void spawnTNT(Map<?, ?> config, Player target) {
+    private CompiledAction tnt(Map<?, ?> config) {
         int count = getInt(config, "count", 1);
         int radius = getInt(config, "radius", 3);
         int fuse = getInt(config, "fuse", 80); // Ticks avant explosion
 
-        for (int i = 0; i < count; i++) {
-            Location loc = getRandomLocation(target.getLocation(), radius);
-            loc.setY(loc.getY() + 5); // Spawn en l'air
+        return (message, target) -> {
+            for (int i = 0; i < count; i++) {
+                Location loc = getRandomLocation(target.getLocation(), radius);
+                loc.setY(loc.getY() + 5); // Spawn en l'air
 
-            TNTPrimed tnt = (TNTPrimed) target.getWorld().spawnEntity(loc, EntityType.TNT);
-            tnt.setFuseTicks(fuse);
-        }
+                TNTPrimed tnt = (TNTPrimed) target.getWorld().spawnEntity(loc, EntityType.TNT);
+                tnt.setFuseTicks(fuse);
+            }
+        };
     }
 
     private void setWeather(World world, boolean rain, boolean thunder) {
@@ -96,23 +103,24 @@ public class WorldEventTrigger implements ActionTrigger {
         world.setTime(time);
     }
 
-    private void setFire(Map<?, ?> config, Player target) {
+    private CompiledAction fire(Map<?, ?> config) {
         int duration = getInt(config, "duration", 5); // Secondes
-        target.setFireTicks(duration * 20);
+        return (message, target) -> target.setFireTicks(duration * 20);
     }
 
-    private void spawnMeteor(Map<?, ?> config, Player target) {
+    private CompiledAction meteor(Map<?, ?> config) {
         int count = getInt(config, "count", 5);
         int radius = getInt(config, "radius", 10);
-        float power = (float) getDouble(config, "power", 2.0);
 
-        for (int i = 0; i < count; i++) {
-            Location loc = getRandomLocation(target.getLocation(), radius);
-            loc.setY(target.getLocation().getY() + 30 + random.nextInt(20));
+        return (message, target) -> {
+            for (int i = 0; i < count; i++) {
+                Location loc = getRandomLocation(target.getLocation(), radius);
+                loc.setY(target.getLocation().getY() + 30 + random.nextInt(20));
 
-            // Spawn une boule de feu ou TNT qui tombe
-            target.getWorld().spawnEntity(loc, EntityType.FIREBALL);
-        }
+                // Spawn une boule de feu ou TNT qui tombe
+                target.getWorld().spawnEntity(loc, EntityType.FIREBALL);
+            }
+        };
     }
 
     private Location getRandomLocation(Location center, int radius) {
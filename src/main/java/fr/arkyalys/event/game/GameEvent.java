@@ -1,13 +1,16 @@
 package fr.arkyalys.event.game;
 
 import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.events.TriggerProfiler;
 import fr.arkyalys.event.util.DebugLogger;
+import fr.arkyalys.event.util.PlaceholderTemplate;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
 import java.io.IOException;
@@ -38,7 +41,12 @@ public abstract class GameEvent {
     protected String lastWinnerName = "";  // Pour le placeholder %winner%
 
     // YouTube triggers pour cet event
-    protected Map<String, List<String>> youtubeTriggers = new HashMap<>();
+    protected Map<String, List<PlaceholderTemplate>> youtubeTriggers = new HashMap<>();
+
+    // Likes en attente pour les commandes "une par like" (étalées sur plusieurs ticks)
+    private long pendingLikeRuns;
+    private String pendingLikeTotal;
+    private BukkitTask likeRunTask;
 
     public GameEvent(YouTubeEventPlugin plugin, String name) {
         this.plugin = plugin;
@@ -84,7 +92,7 @@ public abstract class GameEvent {
         ConfigurationSection ytSection = config.getConfigurationSection("youtube-triggers");
         if (ytSection != null) {
             for (String trigger : ytSection.getKeys(false)) {
-                youtubeTriggers.put(trigger, ytSection.getStringList(trigger));
+                youtubeTriggers.put(trigger, PlaceholderTemplate.compileAll(ytSection.getStringList(trigger)));
             }
         }
 
@@ -120,7 +128,7 @@ public abstract class GameEvent {
 
         // Triggers YouTube par défaut
         config.set("youtube-triggers.like", Arrays.asList(
-                "broadcast &c+1 Like! &7Merci pour le soutien!"
+                "broadcast &c+%likes% Like(s)! &7Merci pour le soutien!"
         ));
         config.set("youtube-triggers.super-chat", Arrays.asList(
                 "broadcast &d[SUPER CHAT] &f%viewer% &7a envoye &a%amount%&7!",
@@ -256,6 +264,7 @@ public abstract class GameEvent {
         state = GameState.WAITING;
         participants.clear();
         eliminated.clear();
+        cancelPendingLikes();
 
         // Synchroniser l'affichage YouTube (tout le monde peut voir à nouveau SI connecté)
         DebugLogger.logGame(name, "appel display.showAll() - isConnected: " + plugin.isConnected());
@@ -442,6 +451,7 @@ public abstract class GameEvent {
         participants.clear();
         eliminated.clear();
         state = GameState.WAITING;
+        cancelPendingLikes();
 
         // Synchroniser l'affichage YouTube (seulement si connecté)
         DebugLogger.logGame(name, "appel display.showAll() - isConnected: " + plugin.isConnected());
@@ -472,25 +482,36 @@ public abstract class GameEvent {
      */
     protected void executeCommands(List<String> commands, Player player) {
         for (String cmd : commands) {
-            String finalCmd = cmd
-                    .replace("%player%", player.getName())
-                    .replace("%winner%", lastWinnerName)
-                    .replace("%uuid%", player.getUniqueId().toString())
-                    .replace("%event%", name)
-                    .replace("%display_name%", displayName);
+            PlaceholderTemplate template = PlaceholderTemplate.compile(cmd);
 
             // Si %all% est présent, exécuter pour tous les joueurs
-            if (finalCmd.contains("%all%")) {
+            if (template.contains("all")) {
                 for (Player online : Bukkit.getOnlinePlayers()) {
-                    String allCmd = finalCmd.replace("%all%", online.getName());
+                    String allCmd = template.render(key -> key.equals("all")
+                            ? online.getName()
+                            : resolveCommandPlaceholder(key, player));
                     Bukkit.dispatchCommand(Bukkit.getConsoleSender(), allCmd);
                 }
             } else {
-                Bukkit.dispatchCommand(Bukkit.getConsoleSender(), finalCmd);
+                Bukkit.dispatchCommand(Bukkit.getConsoleSender(), template.render(key -> resolveCommandPlaceholder(key, player)));
             }
         }
     }
 
+    /**
+     * Placeholders des commandes de récompense
+     */
+    private String resolveCommandPlaceholder(String key, Player player) {
+        return switch (key) {
+            case "player" -> player.getName();
+            case "winner" -> lastWinnerName;
+            case "uuid" -> player.getUniqueId().toString();
+            case "event" -> name;
+            case "display_name" -> displayName;
+            default -> null;
+        };
+    }
+
     /**
      * Définit le spawn de l'event
      */
@@ -509,42 +530,187 @@ public abstract class GameEvent {
             return; // Pas d'event actif
         }
 
-        List<String> commands = youtubeTriggers.get(trigger);
+        List<PlaceholderTemplate> commands = youtubeTriggers.get(trigger);
         if (commands == null || commands.isEmpty()) {
             return;
         }
 
-        for (String cmd : commands) {
-            String finalCmd = cmd
-                    .replace("%viewer%", viewer)
-                    .replace("%amount%", amount != null ? amount : "")
-                    .replace("%event%", name)
-                    .replace("%count%", String.valueOf(participants.size()));
+        runProfiled(trigger, commands, viewer, amount, null);
+    }
+
+    /**
+     * Gère une rafale de likes (tous les nouveaux likes depuis la dernière vérification)
+     *
+     * - commandes avec %likes%: exécutées une seule fois pour toute la rafale
+     * - autres commandes: une fois par like comme avant, mais étalées sur plusieurs ticks
+     *   (likes.per-tick exécutions max par tick, likes.max-pending en attente max)
+     */
+    public void handleYouTubeLikes(long likes, long totalLikes) {
+        if (state == GameState.WAITING || likes <= 0) {
+            return;
+        }
+
+        List<PlaceholderTemplate> commands = youtubeTriggers.get("like");
+        if (commands == null || commands.isEmpty()) {
+            return;
+        }
+
+        List<PlaceholderTemplate> perBurst = new ArrayList<>();
+        for (PlaceholderTemplate cmd : commands) {
+            if (cmd.contains("likes")) {
+                perBurst.add(cmd);
+            }
+        }
+
+        String total = String.valueOf(totalLikes);
+        if (!perBurst.isEmpty()) {
+            runProfiled("like", perBurst, "Viewer", total, String.valueOf(likes));
+        }
+
+        if (perBurst.size() < commands.size()) {
+            queueLikeRuns(likes, total);
+        }
+    }
+
+    /**
+     * Exécute les commandes d'un trigger, mesurées par le profiler s'il est actif
+     */
+    private void runProfiled(String trigger, List<PlaceholderTemplate> commands, String viewer, String amount, String likes) {
+        TriggerProfiler profiler = plugin.getEventManager().getProfiler();
+        if (!profiler.isActive()) {
+            runTriggerCommands(commands, viewer, amount, likes);
+            return;
+        }
+
+        String stack = "events;" + name + ";" + trigger;
+        if (!profiler.begin()) {
+            profiler.count(stack);
+            runTriggerCommands(commands, viewer, amount, likes);
+            return;
+        }
+
+        long startBytes = profiler.startBytes();
+        long startNanos = profiler.startNanos();
+        runTriggerCommands(commands, viewer, amount, likes);
+        profiler.record(stack, startNanos, startBytes);
+    }
+
+    // ==================== Likes étalés ====================
+
+    /**
+     * Ajoute des exécutions "une par like" à la file (au-delà de likes.max-pending, elles sont ignorées)
+     */
+    private void queueLikeRuns(long likes, String total) {
+        long maxPending = plugin.getConfigManager().getLikeMaxPending();
+        long accepted = Math.min(likes, Math.max(maxPending - pendingLikeRuns, 0));
+        if (accepted < likes) {
+            DebugLogger.logGame(name, "likes: " + (likes - accepted) + " exécutions ignorées (file pleine: " + maxPending + ")");
+        }
+        if (accepted <= 0) return;
+
+        pendingLikeRuns += accepted;
+        pendingLikeTotal = total;
+        if (likeRunTask == null) {
+            likeRunTask = Bukkit.getScheduler().runTaskTimer(plugin, this::drainLikeRuns, 0L, 1L);
+        }
+    }
+
+    /**
+     * Exécute une partie des likes en attente (une fois par tick)
+     */
+    private void drainLikeRuns() {
+        List<PlaceholderTemplate> commands = youtubeTriggers.get("like");
+        if (state == GameState.WAITING || commands == null || pendingLikeRuns <= 0) {
+            cancelPendingLikes();
+            return;
+        }
+
+        List<PlaceholderTemplate> perLike = new ArrayList<>();
+        for (PlaceholderTemplate cmd : commands) {
+            if (!cmd.contains("likes")) {
+                perLike.add(cmd);
+            }
+        }
+        if (perLike.isEmpty()) {
+            cancelPendingLikes();
+            return;
+        }
+
+        long runs = Math.min(pendingLikeRuns, plugin.getConfigManager().getLikeRunsPerTick());
+        pendingLikeRuns -= runs;
+        for (long i = 0; i < runs; i++) {
+            runProfiled("like", perLike, "Viewer", pendingLikeTotal, "1");
+        }
+
+        if (pendingLikeRuns <= 0) {
+            cancelPendingLikes();
+        }
+    }
 
+    /**
+     * Vide la file des likes en attente (fin de l'event)
+     */
+    private void cancelPendingLikes() {
+        pendingLikeRuns = 0;
+        if (likeRunTask != null) {
+            likeRunTask.cancel();
+            likeRunTask = null;
+        }
+    }
+
+    /**
+     * Nombre d'exécutions "une par like" encore en attente
+     */
+    public long getPendingLikeRuns() {
+        return pendingLikeRuns;
+    }
+
+    /**
+     * Exécute les commandes d'un trigger YouTube
+     * @param likes Valeur de %likes% (null hors trigger like: placeholder laissé intact)
+     */
+    private void runTriggerCommands(List<PlaceholderTemplate> commands, String viewer, String amount, String likes) {
+        for (PlaceholderTemplate cmd : commands) {
             // %participant% = Execute pour chaque participant de l'event UNIQUEMENT
-            if (finalCmd.contains("%participant%")) {
+            if (cmd.contains("participant")) {
                 for (UUID uuid : participants) {
                     Player participant = Bukkit.getPlayer(uuid);
                     if (participant != null && participant.isOnline()) {
-                        String partCmd = finalCmd.replace("%participant%", participant.getName());
-                        executeCommand(partCmd);
+                        executeCommand(cmd.render(key -> key.equals("participant")
+                                ? participant.getName()
+                                : resolveTriggerPlaceholder(key, viewer, amount, likes)));
                     }
                 }
             }
             // %all% = Execute pour tous les joueurs du serveur
-            else if (finalCmd.contains("%all%")) {
+            else if (cmd.contains("all")) {
                 for (Player online : Bukkit.getOnlinePlayers()) {
-                    String allCmd = finalCmd.replace("%all%", online.getName());
-                    executeCommand(allCmd);
+                    executeCommand(cmd.render(key -> key.equals("all")
+                            ? online.getName()
+                            : resolveTriggerPlaceholder(key, viewer, amount, likes)));
                 }
             }
             // Pas de placeholder joueur = execute une fois
             else {
-                executeCommand(finalCmd);
+                executeCommand(cmd.render(key -> resolveTriggerPlaceholder(key, viewer, amount, likes)));
             }
         }
     }
 
+    /**
+     * Placeholders des commandes youtube-triggers
+     */
+    private String resolveTriggerPlaceholder(String key, String viewer, String amount, String likes) {
+        return switch (key) {
+            case "viewer" -> viewer;
+            case "amount" -> amount != null ? amount : "";
+            case "event" -> name;
+            case "count" -> String.valueOf(participants.size());
+            case "likes" -> likes;
+            default -> null;
+        };
+    }
+
     /**
      * Execute une commande (gère broadcast spécialement)
      */
@@ -603,6 +769,13 @@ public abstract class GameEvent {
      */
     protected abstract void onWin(Player winner);
 
+    /**
+     * Schematics utilisés par l'arène, préchargés en mémoire (aucun par défaut)
+     */
+    public List<File> getArenaSchematics() {
+        return List.of();
+    }
+
     // ==================== Getters ====================
 
     public String getName() {
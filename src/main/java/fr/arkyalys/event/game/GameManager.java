@@ -1,6 +1,7 @@
 package fr.arkyalys.event.game;
 
 import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.game.arena.SchematicCache;
 import fr.arkyalys.event.game.games.FeuilleGame;
 import fr.arkyalys.event.game.games.TNTLiveGame;
 import fr.arkyalys.event.youtube.models.ChatMessage;
@@ -44,9 +45,11 @@ public class GameManager implements Listener {
     private Location returnSpawn = null; // Spawn de retour (leave/elimination)
     private final Set<UUID> disconnectedPlayers = new HashSet<>(); // Joueurs déco pendant un event
     private boolean autoJoinNewPlayers = true; // TP auto les nouveaux joueurs à l'event
+    private final SchematicCache schematicCache;
 
     public GameManager(YouTubeEventPlugin plugin) {
         this.plugin = plugin;
+        this.schematicCache = new SchematicCache(plugin);
 
         // Enregistrer les listeners
         Bukkit.getPluginManager().registerEvents(this, plugin);
@@ -56,6 +59,25 @@ public class GameManager implements Listener {
 
         // Enregistrer les jeux par défaut
         registerDefaultGames();
+
+        // Précharger les schematics des arènes (après le démarrage, WorldEdit chargé)
+        Bukkit.getScheduler().runTask(plugin, this::preloadSchematics);
+    }
+
+    /**
+     * Lit en arrière-plan les schematics utilisés par les events (reset instantané ensuite)
+     */
+    private void preloadSchematics() {
+        if (Bukkit.getPluginManager().getPlugin("WorldEdit") == null
+                && Bukkit.getPluginManager().getPlugin("FastAsyncWorldEdit") == null) {
+            return;
+        }
+
+        for (GameEvent game : registeredGames.values()) {
+            for (File file : game.getArenaSchematics()) {
+                schematicCache.preload(file);
+            }
+        }
     }
 
     /**
@@ -204,16 +226,18 @@ public class GameManager implements Listener {
             return;
         }
 
-        // Exécuter X fois pour chaque like
-        for (int i = 0; i < newLikes; i++) {
-            currentGame.handleYouTubeTrigger("like", "Viewer", String.valueOf(totalLikes));
+        if (newLikes <= 0) {
+            return;
+        }
 
-            // Feuille: boost le tick speed (mécanisme core, pas dans config)
-            if (currentGame instanceof FeuilleGame feuilleGame) {
-                feuilleGame.triggerBoost();
-            }
-            // TNTLive: les flèches sont gérées par la config (youtube-triggers.like)
+        // Toute la rafale d'un coup: commandes %likes% une fois, les autres étalées sur plusieurs ticks
+        currentGame.handleYouTubeLikes(newLikes, totalLikes);
+
+        // Feuille: boost le tick speed (mécanisme core, pas dans config), en une seule fois
+        if (currentGame instanceof FeuilleGame feuilleGame) {
+            feuilleGame.triggerBoost(newLikes);
         }
+        // TNTLive: les flèches sont gérées par la config (youtube-triggers.like)
 
         // TNTLive: vérifier les milestones de likes (Mega TNT, Nuke, etc.)
         if (currentGame instanceof TNTLiveGame tntLiveGame) {
@@ -362,6 +386,14 @@ public class GameManager implements Listener {
         for (GameEvent game : registeredGames.values()) {
             game.loadConfig();
         }
+
+        // Schematics ajoutés/modifiés depuis le dernier chargement
+        schematicCache.reload();
+        preloadSchematics();
+    }
+
+    public SchematicCache getSchematicCache() {
+        return schematicCache;
     }
 
     /**
@@ -0,0 +1,309 @@
+package fr.arkyalys.event.game.arena;
+
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.WorldGuard;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import fr.arkyalys.event.YouTubeEventPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Index persistants des blocs utiles des régions WorldGuard d'un event (arenas/<event>-<region>.idx)
+ *
+ * - construit une seule fois par un scan complet (RegionOperation), puis rechargé depuis le disque
+ * - reconstruit si la région a changé de bornes ou de monde, ou après invalidate()
+ * - tenu à jour pendant la préparation de l'arène via onBlockChange() (blocs posés/cassés)
+ *
+ * Un index vide n'est pas conservé: il sera reconstruit au prochain usage
+ * (ex: barriers déjà retirées au moment du premier scan).
+ */
+public class ArenaIndexes {
+
+    // Délai avant d'écrire un index modifié (regroupe les modifications rapprochées)
+    private static final long SAVE_DELAY_TICKS = 100L;
+
+    private final YouTubeEventPlugin plugin;
+    private final String eventName;
+    private final Predicate<Material> slotFilter;
+    private final Map<String, BlockIndex> indexes = new HashMap<>();
+    private boolean saveScheduled;
+    // Une seule écriture à la fois par région: la plus récente copie attend la fin de l'écriture en cours
+    private final Set<String> saving = new HashSet<>();
+    private final Map<String, BlockIndex> pendingSaves = new HashMap<>();
+
+    /**
+     * @param slotFilter Types de blocs indexés (ex: feuilles et air pour Feuille, BARRIER pour TNTLive)
+     */
+    public ArenaIndexes(YouTubeEventPlugin plugin, String eventName, Predicate<Material> slotFilter) {
+        this.plugin = plugin;
+        this.eventName = eventName;
+        this.slotFilter = slotFilter;
+    }
+
+    /**
+     * Fournit les index des régions demandées (thread principal)
+     * Les index absents ou périmés sont chargés hors du thread principal, ou reconstruits par scan.
+     * Les régions introuvables sont ignorées (avertissement dans les logs).
+     */
+    public void obtain(World world, List<String> regionNames, Consumer<List<BlockIndex>> ready) {
+        Map<String, int[]> regions = resolveRegions(world, regionNames);
+        List<BlockIndex> result = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+
+        for (Map.Entry<String, int[]> region : regions.entrySet()) {
+            BlockIndex index = indexes.get(region.getKey());
+            if (index != null && index.matches(world.getName(), region.getValue())) {
+                result.add(index);
+            } else {
+                indexes.remove(region.getKey());
+                missing.add(region.getKey());
+            }
+        }
+
+        if (missing.isEmpty()) {
+            ready.accept(result);
+            return;
+        }
+
+        // Lecture des fichiers en async, puis retour sur le thread principal
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            Map<String, BlockIndex> loaded = new HashMap<>();
+            for (String regionName : missing) {
+                try {
+                    BlockIndex index = BlockIndex.load(getFile(regionName));
+                    if (index != null && index.matches(world.getName(), regions.get(regionName))) {
+                        loaded.put(regionName, index);
+                    }
+                } catch (IOException e) {
+                    plugin.getLogger().warning("[Arene] Index " + getFile(regionName).getName() + " illisible: " + e.getMessage());
+                }
+            }
+
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                List<String> toBuild = new ArrayList<>();
+                for (String regionName : missing) {
+                    BlockIndex index = loaded.get(regionName);
+                    if (index != null) {
+                        indexes.put(regionName, index);
+                        result.add(index);
+                    } else {
+                        toBuild.add(regionName);
+                    }
+                }
+                build(world, regions, toBuild, result, ready);
+            });
+        });
+    }
+
+    /**
+     * Construit les index manquants par un scan complet des régions
+     */
+    private void build(World world, Map<String, int[]> regions, List<String> regionNames,
+                       List<BlockIndex> result, Consumer<List<BlockIndex>> ready) {
+        if (regionNames.isEmpty()) {
+            ready.accept(result);
+            return;
+        }
+
+        List<BlockIndex> building = new ArrayList<>();
+        RegionOperation operation = new RegionOperation(plugin, world, slotFilter, null, block -> {
+            // Le scan suffit: on retient la position sans modifier le bloc
+            for (BlockIndex index : building) {
+                if (index.isInside(block.getX(), block.getY(), block.getZ())) {
+                    index.append(block.getX(), block.getY(), block.getZ());
+                    break;
+                }
+            }
+            return false;
+        });
+        for (String regionName : regionNames) {
+            int[] bounds = regions.get(regionName);
+            building.add(new BlockIndex(world.getName(), regionName, bounds));
+            operation.addBox(regionName, bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+        }
+
+        operation.tickBudget(plugin.getConfigManager().getArenaTickBudgetNanos())
+                .onComplete(op -> {
+                    for (BlockIndex index : building) {
+                        index.sort();
+                        plugin.getLogger().info("[Arene] Index " + eventName + "/" + index.getRegionName() + " construit: " +
+                                index.size() + " blocs dans " + index.getChunkCount() + " chunks (" + op.getElapsedMillis() + "ms)");
+                        result.add(index);
+                        if (index.size() > 0) {
+                            indexes.put(index.getRegionName(), index);
+                            saveAsync(index);
+                        }
+                    }
+                    ready.accept(result);
+                })
+                .start();
+    }
+
+    /**
+     * Un bloc de l'arène a changé pendant la préparation (thread principal)
+     * Index chargé: mis à jour et sauvegardé plus tard. Index pas encore chargé: fichier invalidé.
+     */
+    public void onBlockChange(World world, List<String> regionNames, int x, int y, int z, Material newType) {
+        boolean indexed = slotFilter.test(newType);
+
+        for (String regionName : regionNames) {
+            BlockIndex index = indexes.get(regionName);
+            if (index != null) {
+                if (!index.getWorldName().equals(world.getName()) || !index.isInside(x, y, z)) continue;
+                boolean changed = indexed ? index.add(x, y, z) : index.remove(x, y, z);
+                if (changed) {
+                    scheduleSave();
+                }
+                continue;
+            }
+
+            int[] bounds = resolveRegions(world, List.of(regionName)).get(regionName);
+            if (bounds != null && x >= bounds[0] && y >= bounds[1] && z >= bounds[2]
+                    && x <= bounds[3] && y <= bounds[4] && z <= bounds[5]) {
+                invalidate(regionName);
+            }
+        }
+    }
+
+    /**
+     * Oublie tous les index (reconstruits au prochain usage)
+     */
+    public void invalidateAll() {
+        for (String regionName : new ArrayList<>(indexes.keySet())) {
+            invalidate(regionName);
+        }
+        File[] files = getDirectory().listFiles((dir, file) -> file.startsWith(eventName + "-") && file.endsWith(".idx"));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private void invalidate(String regionName) {
+        indexes.remove(regionName);
+        pendingSaves.remove(regionName);
+        File file = getFile(regionName);
+        if (file.exists() && file.delete()) {
+            plugin.getLogger().info("[Arene] Index " + eventName + "/" + regionName + " invalide (arene modifiee)");
+        }
+    }
+
+    /**
+     * Nombre total de blocs indexés en mémoire
+     */
+    public int getIndexedBlocks() {
+        int total = 0;
+        for (BlockIndex index : indexes.values()) {
+            total += index.size();
+        }
+        return total;
+    }
+
+    // ==================== Sauvegarde ====================
+
+    private void scheduleSave() {
+        if (saveScheduled) return;
+        saveScheduled = true;
+        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            saveScheduled = false;
+            for (BlockIndex index : indexes.values()) {
+                if (index.isDirty()) {
+                    saveAsync(index);
+                }
+            }
+        }, SAVE_DELAY_TICKS);
+    }
+
+    private void saveAsync(BlockIndex index) {
+        String regionName = index.getRegionName();
+        BlockIndex copy = index.snapshot();
+        if (saving.contains(regionName)) {
+            pendingSaves.put(regionName, copy);
+            return;
+        }
+        saving.add(regionName);
+        write(regionName, copy);
+    }
+
+    private void write(String regionName, BlockIndex copy) {
+        File file = getFile(regionName);
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                copy.save(file);
+            } catch (IOException e) {
+                plugin.getLogger().warning("[Arene] Sauvegarde de l'index " + file.getName() + " impossible: " + e.getMessage());
+            }
+            if (!plugin.isEnabled()) return;
+
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                BlockIndex next = pendingSaves.remove(regionName);
+                if (next != null) {
+                    write(regionName, next);
+                    return;
+                }
+                saving.remove(regionName);
+                if (!indexes.containsKey(regionName)) {
+                    // Index invalidé pendant l'écriture: le fichier écrit est déjà périmé
+                    file.delete();
+                }
+            });
+        });
+    }
+
+    private File getDirectory() {
+        return new File(plugin.getDataFolder(), "arenas");
+    }
+
+    private File getFile(String regionName) {
+        return new File(getDirectory(), eventName + "-" + regionName.replaceAll("[^A-Za-z0-9_-]", "_") + ".idx");
+    }
+
+    // ==================== WorldGuard ====================
+
+    /**
+     * Bornes des régions WorldGuard (minX, minY, minZ, maxX, maxY, maxZ), dans l'ordre demandé
+     */
+    private Map<String, int[]> resolveRegions(World world, List<String> regionNames) {
+        Map<String, int[]> regions = new LinkedHashMap<>();
+        if (Bukkit.getPluginManager().getPlugin("WorldGuard") == null) {
+            return regions;
+        }
+
+        RegionManager regionManager = WorldGuard.getInstance().getPlatform().getRegionContainer().get(BukkitAdapter.adapt(world));
+        if (regionManager == null) {
+            plugin.getLogger().warning("[Arene] Impossible d'obtenir le RegionManager pour le monde '" + world.getName() + "'");
+            return regions;
+        }
+
+        for (String regionName : regionNames) {
+            ProtectedRegion region = regionManager.getRegion(regionName);
+            if (region == null) {
+                plugin.getLogger().warning("[Arene] Region '" + regionName + "' introuvable dans le monde '" + world.getName() + "'");
+                continue;
+            }
+            BlockVector3 min = region.getMinimumPoint();
+            BlockVector3 max = region.getMaximumPoint();
+            regions.put(regionName, new int[]{
+                    min.getBlockX(), Math.max(min.getBlockY(), world.getMinHeight()), min.getBlockZ(),
+                    max.getBlockX(), Math.min(max.getBlockY(), world.getMaxHeight() - 1), max.getBlockZ()
+            });
+        }
+        return regions;
+    }
+}
@@ -0,0 +1,285 @@
+package fr.arkyalys.event.game.arena;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.session.ClipboardHolder;
+import com.sk89q.worldedit.world.block.BlockState;
+import fr.arkyalys.event.YouTubeEventPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reset d'une arène à partir de son schematic, sans tout recoller à chaque partie
+ *
+ * - le Clipboard vient du SchematicCache (lu une seule fois, relu si le fichier change)
+ * - les sections de chunk (16x16x16) modifiées pendant la partie sont notées via markDirty()
+ * - reset(): seules ces sections sont comparées au schematic (snapshots, hors du thread principal)
+ *   et seuls les blocs différents sont remis, par chunk, sous le budget de tick des arènes
+ *
+ * Paste complet (comme avant) au premier reset après un démarrage, si le schematic ou l'origine
+ * ont changé, ou sur demande: la map n'est alors plus supposée conforme au schematic.
+ * Les contenus des blocs à inventaire (coffres...) ne sont restaurés que par un paste complet.
+ */
+public class ArenaResetEngine {
+
+    /**
+     * Bilan d'un reset
+     * @param full Paste complet du schematic (sinon restauration des sections modifiées)
+     * @param dirtySections Sections modifiées pendant la partie
+     * @param restoredBlocks Blocs remis (ou blocs collés pour un paste complet)
+     */
+    public record ResetResult(boolean full, int dirtySections, int restoredBlocks, long elapsedMillis, double mainThreadMillis) {}
+
+    private final YouTubeEventPlugin plugin;
+    private final String logPrefix;
+
+    // Dernier schematic utilisé (le Clipboard reste dans le cache, qui peut le retirer)
+    private File clipboardFile;
+    private long clipboardModified;
+    // Conversion état WorldEdit -> BlockData Bukkit (indépendante du schematic)
+    private final Map<BlockState, BlockData> palette = new ConcurrentHashMap<>();
+
+    // État de la map
+    private final Set<Long> dirtySections = new HashSet<>();
+    private String baselineWorld;
+    private BlockVector3 baselineOrigin;
+    private boolean baseline;
+    private boolean restoring;
+    private Set<Long> restoringSections = Set.of();
+    private RegionOperation operation;
+    private CompletableFuture<ResetResult> restoreStep;
+    // Reset en cours (future rendu à l'appelant) et numéro du dernier reset lancé
+    private CompletableFuture<ResetResult> current;
+    private int generation;
+
+    public ArenaResetEngine(YouTubeEventPlugin plugin, String logPrefix) {
+        this.plugin = plugin;
+        this.logPrefix = logPrefix;
+    }
+
+    // ==================== Suivi des modifications ====================
+
+    /**
+     * Note un bloc modifié (thread principal)
+     */
+    public void markDirty(int x, int y, int z) {
+        dirtySections.add(sectionKey(x >> 4, y >> 4, z >> 4));
+    }
+
+    private static long sectionKey(int sectionX, int sectionY, int sectionZ) {
+        return ((long) sectionX & 0x3FFFFF) << 42 | ((long) sectionZ & 0x3FFFFF) << 20 | (sectionY & 0xFFFFF);
+    }
+
+    private static int sectionX(long key) {
+        return (int) (key >> 42);
+    }
+
+    private static int sectionZ(long key) {
+        return (int) ((key << 22) >> 42);
+    }
+
+    private static int sectionY(long key) {
+        return (int) ((key << 44) >> 44);
+    }
+
+    public int getDirtySectionCount() {
+        return dirtySections.size();
+    }
+
+    public boolean isRestoring() {
+        return restoring;
+    }
+
+    /**
+     * La map ne correspond plus au schematic (modifiée hors suivi): le prochain reset sera complet
+     */
+    public void invalidateBaseline() {
+        baseline = false;
+    }
+
+    // ==================== Reset ====================
+
+    /**
+     * Remet l'arène dans l'état du schematic (thread principal)
+     *
+     * Un reset demandé pendant une restauration partielle l'interrompt (le bilan de celle-ci se termine
+     * par une CancellationException). Pendant la lecture du schematic ou un paste complet, qui ne
+     * s'interrompent pas, il attend la fin du reset en cours.
+     *
+     * @param full Forcer un paste complet
+     * @return Bilan, une fois le reset terminé (exception si le schematic est illisible ou le reset remplacé)
+     */
+    public CompletableFuture<ResetResult> reset(World world, File schematicFile, BlockVector3 origin, boolean full) {
+        if (restoring) {
+            if (operation == null) {
+                // Lecture ou paste en cours: ce reset suivra (le future est terminé sur le thread principal)
+                return current.handle((result, error) -> null)
+                        .thenCompose(ignored -> reset(world, schematicFile, origin, full));
+            }
+            // Restauration précédente interrompue: ses sections sont reprises par celle-ci
+            operation.cancel();
+            operation = null;
+            dirtySections.addAll(restoringSections);
+            restoreStep.cancel(false);
+            current.completeExceptionally(new CancellationException("Reset remplace par un nouveau reset"));
+        }
+
+        CompletableFuture<ResetResult> future = new CompletableFuture<>();
+        int resetGeneration = ++generation;
+        current = future;
+        restoring = true;
+        long startNanos = System.nanoTime();
+
+        // Sections notées jusqu'ici: celles notées pendant le reset iront au suivant
+        Set<Long> sections = new HashSet<>(dirtySections);
+        dirtySections.clear();
+        restoringSections = sections;
+
+        boolean sameSchematic = schematicFile.equals(clipboardFile) && schematicFile.lastModified() == clipboardModified;
+        boolean diff = !full && baseline && sameSchematic
+                && world.getName().equals(baselineWorld) && origin.equals(baselineOrigin);
+
+        CompletableFuture<ResetResult> reset = loadClipboard(schematicFile).thenCompose(loaded -> diff
+                ? restoreSections(world, loaded, origin, sections, startNanos)
+                : paste(world, loaded, origin, sections.size(), startNanos));
+
+        reset.whenComplete((result, error) -> Bukkit.getScheduler().runTask(plugin, () -> {
+            // Remplacé par un reset plus récent: sections reprises et appelant déjà prévenu
+            if (resetGeneration != generation) return;
+            restoring = false;
+            if (error != null) {
+                // Sections non restaurées: à reprendre au prochain reset
+                dirtySections.addAll(sections);
+                future.completeExceptionally(error);
+            } else {
+                if (result.full()) {
+                    // La map correspond maintenant au schematic: les prochains resets peuvent être partiels
+                    baseline = true;
+                    baselineWorld = world.getName();
+                    baselineOrigin = origin;
+                }
+                future.complete(result);
+            }
+        }));
+        return future;
+    }
+
+    /**
+     * Paste complet du schematic (WorldEdit, hors du thread principal comme auparavant)
+     */
+    private CompletableFuture<ResetResult> paste(World world, Clipboard loaded, BlockVector3 origin, int sections, long startNanos) {
+        baseline = false;
+        return CompletableFuture.supplyAsync(() -> {
+            try (EditSession editSession = WorldEdit.getInstance().newEditSession(BukkitAdapter.adapt(world))) {
+                Operation paste = new ClipboardHolder(loaded)
+                        .createPaste(editSession)
+                        .to(origin)
+                        .ignoreAirBlocks(false)
+                        .build();
+                Operations.complete(paste);
+                return new ResetResult(true, sections, editSession.getBlockChangeCount(),
+                        (System.nanoTime() - startNanos) / 1_000_000L, 0);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, task -> Bukkit.getScheduler().runTaskAsynchronously(plugin, task));
+    }
+
+    /**
+     * Compare les sections modifiées au schematic et remet les blocs différents
+     */
+    private CompletableFuture<ResetResult> restoreSections(World world, Clipboard source, BlockVector3 origin,
+                                                          Set<Long> sections, long startNanos) {
+        CompletableFuture<ResetResult> future = new CompletableFuture<>();
+        restoreStep = future;
+
+        // Position monde -> position dans le clipboard
+        BlockVector3 offset = source.getOrigin().subtract(origin);
+        BlockVector3 min = source.getMinimumPoint().subtract(offset);
+        BlockVector3 max = source.getMaximumPoint().subtract(offset);
+
+        // Une zone par chunk: de la plus basse à la plus haute section modifiée, limitée au schematic
+        Map<Long, int[]> chunks = new HashMap<>();
+        for (long key : sections) {
+            int sx = sectionX(key), sy = sectionY(key), sz = sectionZ(key);
+            int[] range = chunks.computeIfAbsent(((long) sx << 32) | (sz & 0xFFFFFFFFL), k -> new int[]{sx, sz, sy, sy});
+            range[2] = Math.min(range[2], sy);
+            range[3] = Math.max(range[3], sy);
+        }
+
+        operation = new RegionOperation(plugin, world,
+                (snapshot, x, y, z) -> {
+                    BlockData expected = expectedAt(source, offset, (snapshot.getX() << 4) + x, y, (snapshot.getZ() << 4) + z);
+                    return expected != null && !expected.equals(snapshot.getBlockData(x, y, z));
+                },
+                block -> {
+                    BlockData expected = expectedAt(source, offset, block.getX(), block.getY(), block.getZ());
+                    if (expected == null || expected.equals(block.getBlockData())) return false;
+                    block.setBlockData(expected, false);
+                    return true;
+                });
+
+        List<int[]> boxes = new ArrayList<>(chunks.values());
+        for (int[] range : boxes) {
+            int minX = Math.max(range[0] << 4, min.getBlockX());
+            int maxX = Math.min((range[0] << 4) + 15, max.getBlockX());
+            int minZ = Math.max(range[1] << 4, min.getBlockZ());
+            int maxZ = Math.min((range[1] << 4) + 15, max.getBlockZ());
+            int minY = Math.max(range[2] << 4, min.getBlockY());
+            int maxY = Math.min((range[3] << 4) + 15, max.getBlockY());
+            if (minX > maxX || minZ > maxZ || minY > maxY) continue;
+            operation.addBox("arena", minX, minY, minZ, maxX, maxY, maxZ);
+        }
+
+        operation.tickBudget(plugin.getConfigManager().getArenaTickBudgetNanos())
+                .onComplete(op -> {
+                    operation = null;
+                    restoreStep = null;
+                    future.complete(new ResetResult(false, sections.size(), op.getAppliedCount(),
+                            (System.nanoTime() - startNanos) / 1_000_000L, op.getMainThreadMillis()));
+                })
+                .start();
+        return future;
+    }
+
+    /**
+     * Bloc attendu à une position du monde (null hors du schematic)
+     */
+    private BlockData expectedAt(Clipboard source, BlockVector3 offset, int x, int y, int z) {
+        BlockVector3 position = BlockVector3.at(x, y, z).add(offset);
+        if (!source.getRegion().contains(position)) return null;
+        return palette.computeIfAbsent(source.getBlock(position), BukkitAdapter::adapt);
+    }
+
+    // ==================== Schematic ====================
+
+    /**
+     * Schematic depuis le cache partagé (lu hors du thread principal s'il n'est pas à jour)
+     */
+    private CompletableFuture<Clipboard> loadClipboard(File file) {
+        long modified = file.lastModified();
+        return plugin.getGameManager().getSchematicCache().get(file).thenApply(loaded -> {
+            clipboardFile = file;
+            clipboardModified = modified;
+            return loaded;
+        });
+    }
+}
@@ -0,0 +1,275 @@
+package fr.arkyalys.event.game.arena;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Index des positions "utiles" d'une région d'arène (feuilles, barriers...)
+ *
+ * Positions compactées dans un long, triées: les blocs d'un même chunk sont contigus
+ * (chunkX 22 bits | chunkZ 22 bits | x local 4 | z local 4 | y + 2048 sur 12 bits).
+ * Les bornes de la région sont conservées pour détecter un index périmé (région redéfinie).
+ *
+ * Fichier: magic "YTBI", version, monde, région, bornes, nombre de positions, positions.
+ * Modifié uniquement depuis le thread principal.
+ */
+public final class BlockIndex {
+
+    private static final int MAGIC = 0x59544249; // "YTBI"
+    private static final int VERSION = 1;
+    private static final int Y_OFFSET = 2048;
+
+    private final String worldName;
+    private final String regionName;
+    private final int[] bounds; // minX, minY, minZ, maxX, maxY, maxZ
+    private long[] positions;
+    private int size;
+    private boolean dirty;
+
+    public BlockIndex(String worldName, String regionName, int[] bounds) {
+        this(worldName, regionName, bounds, new long[256], 0);
+    }
+
+    private BlockIndex(String worldName, String regionName, int[] bounds, long[] positions, int size) {
+        this.worldName = worldName;
+        this.regionName = regionName;
+        this.bounds = bounds.clone();
+        this.positions = positions;
+        this.size = size;
+    }
+
+    // ==================== Positions compactées ====================
+
+    public static long pack(int x, int y, int z) {
+        return ((long) (x >> 4) & 0x3FFFFF) << 42
+                | ((long) (z >> 4) & 0x3FFFFF) << 20
+                | (long) (x & 15) << 16
+                | (long) (z & 15) << 12
+                | (y + Y_OFFSET) & 0xFFF;
+    }
+
+    public static int chunkX(long packed) {
+        return (int) (packed >> 42);
+    }
+
+    public static int chunkZ(long packed) {
+        return (int) ((packed << 22) >> 42);
+    }
+
+    public static int localX(long packed) {
+        return (int) (packed >>> 16) & 15;
+    }
+
+    public static int localZ(long packed) {
+        return (int) (packed >>> 12) & 15;
+    }
+
+    public static int y(long packed) {
+        return (int) (packed & 0xFFF) - Y_OFFSET;
+    }
+
+    /**
+     * Clé du chunk (identique pour toutes les positions d'un même chunk)
+     */
+    public static long chunkKey(long packed) {
+        return packed >>> 20;
+    }
+
+    // ==================== Contenu ====================
+
+    /**
+     * Ajoute une position (sans effet si déjà présente)
+     * @return true si l'index a changé
+     */
+    public boolean add(int x, int y, int z) {
+        long packed = pack(x, y, z);
+        int index = Arrays.binarySearch(positions, 0, size, packed);
+        if (index >= 0) return false;
+
+        int insertAt = -index - 1;
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+        }
+        System.arraycopy(positions, insertAt, positions, insertAt + 1, size - insertAt);
+        positions[insertAt] = packed;
+        size++;
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Retire une position
+     * @return true si l'index a changé
+     */
+    public boolean remove(int x, int y, int z) {
+        int index = Arrays.binarySearch(positions, 0, size, pack(x, y, z));
+        if (index < 0) return false;
+
+        System.arraycopy(positions, index + 1, positions, index, size - index - 1);
+        size--;
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Ajout en masse pendant la construction (trié une seule fois par sort())
+     */
+    void append(int x, int y, int z) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+        }
+        positions[size++] = pack(x, y, z);
+    }
+
+    /**
+     * Trie et dédoublonne après une série d'append()
+     */
+    void sort() {
+        Arrays.sort(positions, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || positions[unique - 1] != positions[i]) {
+                positions[unique++] = positions[i];
+            }
+        }
+        size = unique;
+        dirty = true;
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return Arrays.binarySearch(positions, 0, size, pack(x, y, z)) >= 0;
+    }
+
+    /**
+     * La position est-elle dans les bornes de la région indexée
+     */
+    public boolean isInside(int x, int y, int z) {
+        return x >= bounds[0] && y >= bounds[1] && z >= bounds[2]
+                && x <= bounds[3] && y <= bounds[4] && z <= bounds[5];
+    }
+
+    /**
+     * L'index correspond-il toujours à cette région (même monde, mêmes bornes)
+     */
+    public boolean matches(String worldName, int[] bounds) {
+        return this.worldName.equals(worldName) && Arrays.equals(this.bounds, bounds);
+    }
+
+    /**
+     * Copie des positions (triées, groupées par chunk)
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(positions, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Nombre de chunks distincts couverts
+     */
+    public int getChunkCount() {
+        int chunks = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || chunkKey(positions[i]) != chunkKey(positions[i - 1])) {
+                chunks++;
+            }
+        }
+        return chunks;
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public String getRegionName() {
+        return regionName;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    // ==================== Fichier ====================
+
+    /**
+     * Copie figée pour une sauvegarde hors du thread principal (l'index repasse à "sauvegardé")
+     */
+    public BlockIndex snapshot() {
+        dirty = false;
+        return new BlockIndex(worldName, regionName, bounds, Arrays.copyOf(positions, size), size);
+    }
+
+    /**
+     * Écrit l'index (fichier temporaire unique puis remplacement, jamais de fichier à moitié écrit)
+     */
+    public void save(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists()) {
+            parent.mkdirs();
+        }
+
+        File temp = Files.createTempFile(parent.toPath(), file.getName() + "-", ".tmp").toFile();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(worldName);
+            out.writeUTF(regionName);
+            for (int bound : bounds) {
+                out.writeInt(bound);
+            }
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(positions[i]);
+            }
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Charge un index
+     * @return L'index, ou null si le fichier n'existe pas
+     */
+    public static BlockIndex load(File file) throws IOException {
+        if (!file.exists()) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Fichier d'index invalide: " + file.getName());
+            }
+            int version = in.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException("Version d'index non supportee (" + version + "): " + file.getName());
+            }
+
+            String worldName = in.readUTF();
+            String regionName = in.readUTF();
+            int[] bounds = new int[6];
+            for (int i = 0; i < bounds.length; i++) {
+                bounds[i] = in.readInt();
+            }
+            int size = in.readInt();
+            if (size < 0) {
+                throw new IOException("Index corrompu: " + file.getName());
+            }
+            long[] positions = new long[Math.max(size, 16)];
+            for (int i = 0; i < size; i++) {
+                positions[i] = in.readLong();
+            }
+            return new BlockIndex(worldName, regionName, bounds, positions, size);
+        }
+    }
+}
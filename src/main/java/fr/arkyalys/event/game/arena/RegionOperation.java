@@ -0,0 +1,476 @@
+package fr.arkyalys.event.game.arena;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Opération sur tous les blocs d'une ou plusieurs zones d'une arène, sans geler le serveur
+ *
+ * - thread principal: capture un ChunkSnapshot par chunk (quelques chunks par tick)
+ * - thread async: parcourt le snapshot section par section et retient les blocs candidats
+ *   (sections vides traitées d'un coup, sans lire bloc par bloc)
+ * - thread principal: applique l'action aux seuls candidats, sous un budget de temps par tick
+ *
+ * Avec un BlockIndex (addIndex), le scan est sauté: seules les positions indexées sont traitées.
+ *
+ * L'action reçoit le bloc réel: le monde a pu changer depuis le snapshot, elle doit revérifier.
+ * Usage: new RegionOperation(...).addBox(...).onComplete(...).start()
+ */
+public class RegionOperation {
+
+    /**
+     * Action appliquée à un bloc candidat (thread principal)
+     * @return true si le bloc a été modifié
+     */
+    @FunctionalInterface
+    public interface BlockAction {
+        boolean apply(Block block);
+    }
+
+    /**
+     * Filtre qui dépend de la position (thread async), ex: comparaison avec un schematic
+     * x/z locaux au chunk du snapshot, y absolu
+     */
+    @FunctionalInterface
+    public interface SnapshotFilter {
+        boolean matches(ChunkSnapshot snapshot, int x, int y, int z);
+    }
+
+    /**
+     * Zone (bornes incluses) et compteurs associés
+     */
+    private static final class Box {
+        final String name;
+        final int minX, minY, minZ, maxX, maxY, maxZ;
+        int matched;
+        int applied;
+
+        Box(String name, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            this.name = name;
+            this.minX = Math.min(minX, maxX);
+            this.minY = Math.min(minY, maxY);
+            this.minZ = Math.min(minZ, maxZ);
+            this.maxX = Math.max(minX, maxX);
+            this.maxY = Math.max(minY, maxY);
+            this.maxZ = Math.max(minZ, maxZ);
+        }
+    }
+
+    /**
+     * Un chunk à scanner pour une zone
+     */
+    private record ChunkTask(Box box, int chunkX, int chunkZ) {}
+
+    /**
+     * Candidats trouvés dans un chunk: positions locales compactées (x << 20 | z << 16 | y - minHeight)
+     */
+    private record ChunkResult(ChunkTask task, int[] positions, int count) {}
+
+    private static final int MAX_IN_FLIGHT = 16;
+
+    private final Plugin plugin;
+    private final World world;
+    private final Predicate<Material> typeFilter;
+    private final Predicate<BlockData> dataFilter;
+    private final SnapshotFilter snapshotFilter;
+    private final BlockAction action;
+    private final int minHeight;
+    private final List<Box> boxes = new ArrayList<>();
+    private boolean airMatches;
+
+    private long tickBudgetNanos = 5_000_000L;
+    private Consumer<RegionOperation> progressListener;
+    private Consumer<RegionOperation> completeListener;
+
+    // Avancement (thread principal, sauf results)
+    private final List<ChunkTask> chunks = new ArrayList<>();
+    private final Queue<ChunkResult> results = new ConcurrentLinkedQueue<>();
+    private final List<BlockIndex> indexes = new ArrayList<>();
+    private final Queue<ChunkResult> indexed = new ArrayDeque<>();
+    private int totalChunks;
+    private BukkitTask task;
+    private int nextChunk;
+    private int inFlight;
+    private int scannedChunks;
+    private ChunkResult current;
+    private int currentIndex;
+    private int ticks;
+    private long startNanos;
+    private long mainThreadNanos;
+    private volatile boolean cancelled;
+    private boolean complete;
+
+    /**
+     * @param typeFilter Filtre rapide sur le type (lu dans le snapshot, thread async)
+     * @param dataFilter Filtre optionnel sur l'état du bloc (null = type seul), évalué seulement si le type passe
+     * @param action Modification appliquée à chaque candidat (thread principal)
+     */
+    public RegionOperation(Plugin plugin, World world, Predicate<Material> typeFilter,
+                           Predicate<BlockData> dataFilter, BlockAction action) {
+        this.plugin = plugin;
+        this.world = world;
+        this.typeFilter = typeFilter;
+        this.dataFilter = dataFilter;
+        this.snapshotFilter = null;
+        this.action = action;
+        this.minHeight = world.getMinHeight();
+    }
+
+    /**
+     * @param filter Filtre évalué pour chaque bloc des zones, sections vides comprises (thread async)
+     */
+    public RegionOperation(Plugin plugin, World world, SnapshotFilter filter, BlockAction action) {
+        this.plugin = plugin;
+        this.world = world;
+        this.typeFilter = null;
+        this.dataFilter = null;
+        this.snapshotFilter = filter;
+        this.action = action;
+        this.minHeight = world.getMinHeight();
+    }
+
+    /**
+     * Opération limitée aux positions d'index (addIndex), sans scan
+     */
+    public RegionOperation(Plugin plugin, World world, BlockAction action) {
+        this(plugin, world, material -> false, null, action);
+    }
+
+    /**
+     * Ajoute une zone (bornes incluses, y limité à la hauteur du monde)
+     */
+    public RegionOperation addBox(String name, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        boxes.add(new Box(name, minX, Math.max(minY, world.getMinHeight()), minZ,
+                maxX, Math.min(maxY, world.getMaxHeight() - 1), maxZ));
+        return this;
+    }
+
+    /**
+     * Ajoute les positions d'un index (pas de scan: filtres ignorés, l'action revérifie le bloc)
+     * Zone nommée d'après la région de l'index
+     */
+    public RegionOperation addIndex(BlockIndex index) {
+        indexes.add(index);
+        return this;
+    }
+
+    /**
+     * Temps max consacré à l'opération par tick (snapshots + modifications)
+     */
+    public RegionOperation tickBudget(long nanos) {
+        this.tickBudgetNanos = Math.max(nanos, 100_000L);
+        return this;
+    }
+
+    /**
+     * Appelé environ une fois par seconde pendant l'opération
+     */
+    public RegionOperation onProgress(Consumer<RegionOperation> listener) {
+        this.progressListener = listener;
+        return this;
+    }
+
+    /**
+     * Appelé une fois toutes les modifications appliquées (pas en cas d'annulation)
+     */
+    public RegionOperation onComplete(Consumer<RegionOperation> listener) {
+        this.completeListener = listener;
+        return this;
+    }
+
+    /**
+     * Démarre l'opération (thread principal)
+     */
+    public RegionOperation start() {
+        for (Box box : boxes) {
+            if (box.minY > box.maxY) continue;
+            for (int cx = box.minX >> 4; cx <= box.maxX >> 4; cx++) {
+                for (int cz = box.minZ >> 4; cz <= box.maxZ >> 4; cz++) {
+                    chunks.add(new ChunkTask(box, cx, cz));
+                }
+            }
+        }
+
+        // Positions indexées: déjà groupées par chunk, prêtes à appliquer
+        for (BlockIndex index : indexes) {
+            Box box = new Box(index.getRegionName(), 0, 0, 0, 0, 0, 0);
+            boxes.add(box);
+            long[] positions = index.toArray();
+            int from = 0;
+            while (from < positions.length) {
+                int to = from;
+                while (to < positions.length && BlockIndex.chunkKey(positions[to]) == BlockIndex.chunkKey(positions[from])) {
+                    to++;
+                }
+                int[] local = new int[to - from];
+                int count = 0;
+                for (int i = from; i < to; i++) {
+                    long packed = positions[i];
+                    int y = BlockIndex.y(packed);
+                    if (y < minHeight || y >= world.getMaxHeight()) continue;
+                    local[count++] = (BlockIndex.localX(packed) << 20) | (BlockIndex.localZ(packed) << 16) | (y - minHeight);
+                }
+                box.matched += count;
+                indexed.add(new ChunkResult(new ChunkTask(box, BlockIndex.chunkX(positions[from]), BlockIndex.chunkZ(positions[from])),
+                        local, count));
+                from = to;
+            }
+        }
+        totalChunks = chunks.size() + indexed.size();
+
+        // Une section vide ne contient que de l'air: un seul test pour toute la section
+        airMatches = snapshotFilter == null && typeFilter.test(Material.AIR)
+                && (dataFilter == null || dataFilter.test(Material.AIR.createBlockData()));
+
+        startNanos = System.nanoTime();
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        return this;
+    }
+
+    /**
+     * Arrête l'opération (les modifications déjà faites restent)
+     */
+    public void cancel() {
+        cancelled = true;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        results.clear();
+        indexed.clear();
+    }
+
+    // ==================== Thread principal ====================
+
+    private void tick() {
+        long tickStart = System.nanoTime();
+        long deadline = tickStart + tickBudgetNanos;
+        ticks++;
+
+        // 1. Appliquer les modifications trouvées par le scan
+        applyResults(deadline);
+
+        // 2. Capturer les chunks suivants (au moins un par tick pour avancer)
+        boolean first = true;
+        while (nextChunk < chunks.size() && inFlight < MAX_IN_FLIGHT && (first || System.nanoTime() - deadline < 0)) {
+            ChunkTask chunk = chunks.get(nextChunk++);
+            ChunkSnapshot snapshot = world.getChunkAt(chunk.chunkX(), chunk.chunkZ()).getChunkSnapshot(false, false, false);
+            inFlight++;
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> scan(chunk, snapshot));
+            first = false;
+        }
+
+        mainThreadNanos += System.nanoTime() - tickStart;
+
+        if (progressListener != null && ticks % 20 == 0) {
+            progressListener.accept(this);
+        }
+
+        if (scannedChunks == totalChunks && current == null) {
+            finish();
+        }
+    }
+
+    private void applyResults(long deadline) {
+        while (true) {
+            if (current == null) {
+                currentIndex = 0;
+                current = indexed.poll();
+                if (current == null) {
+                    current = results.poll();
+                    if (current == null) return;
+                    inFlight--;
+                }
+                scannedChunks++;
+            }
+
+            ChunkTask chunk = current.task();
+            int baseX = chunk.chunkX() << 4;
+            int baseZ = chunk.chunkZ() << 4;
+
+            while (currentIndex < current.count()) {
+                int packed = current.positions()[currentIndex++];
+                Block block = world.getBlockAt(baseX + (packed >>> 20), minHeight + (packed & 0xFFFF), baseZ + ((packed >>> 16) & 0xF));
+                if (action.apply(block)) {
+                    chunk.box().applied++;
+                }
+                // Vérification de l'horloge tous les 64 blocs (nanoTime n'est pas gratuit)
+                if ((currentIndex & 63) == 0 && System.nanoTime() - deadline >= 0) {
+                    return;
+                }
+            }
+            current = null;
+        }
+    }
+
+    private void finish() {
+        complete = true;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (progressListener != null) {
+            progressListener.accept(this);
+        }
+        if (completeListener != null) {
+            completeListener.accept(this);
+        }
+    }
+
+    // ==================== Thread async ====================
+
+    /**
+     * Parcourt un snapshot et publie les positions candidates
+     * (un résultat est toujours publié, même vide, pour que l'opération se termine)
+     */
+    private void scan(ChunkTask chunk, ChunkSnapshot snapshot) {
+        if (cancelled) return;
+
+        int[] positions = new int[64];
+        int count = 0;
+        try {
+            Box box = chunk.box();
+            int baseX = chunk.chunkX() << 4;
+            int baseZ = chunk.chunkZ() << 4;
+            int fromX = Math.max(box.minX, baseX) - baseX;
+            int toX = Math.min(box.maxX, baseX + 15) - baseX;
+            int fromZ = Math.max(box.minZ, baseZ) - baseZ;
+            int toZ = Math.min(box.maxZ, baseZ + 15) - baseZ;
+
+            for (int sectionY = (box.minY - minHeight) >> 4; sectionY <= (box.maxY - minHeight) >> 4; sectionY++) {
+                int fromY = Math.max(box.minY, minHeight + (sectionY << 4));
+                int toY = Math.min(box.maxY, minHeight + (sectionY << 4) + 15);
+                // Section vide: rien à lire, tout ou rien selon airMatches (sauf filtre par position)
+                boolean empty = snapshotFilter == null && snapshot.isSectionEmpty(sectionY);
+                if (empty && !airMatches) continue;
+
+                for (int y = fromY; y <= toY; y++) {
+                    for (int x = fromX; x <= toX; x++) {
+                        for (int z = fromZ; z <= toZ; z++) {
+                            if (!empty && !matches(snapshot, x, y, z)) continue;
+
+                            if (count == positions.length) {
+                                positions = Arrays.copyOf(positions, count * 2);
+                            }
+                            positions[count++] = (x << 20) | (z << 16) | (y - minHeight);
+                        }
+                    }
+                }
+            }
+
+            synchronized (box) {
+                box.matched += count;
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("Scan du chunk " + chunk.chunkX() + "," + chunk.chunkZ() + " en erreur: " + e.getMessage());
+            count = 0;
+        }
+        results.add(new ChunkResult(chunk, positions, count));
+    }
+
+    private boolean matches(ChunkSnapshot snapshot, int x, int y, int z) {
+        if (snapshotFilter != null) return snapshotFilter.matches(snapshot, x, y, z);
+        if (!typeFilter.test(snapshot.getBlockType(x, y, z))) return false;
+        return dataFilter == null || dataFilter.test(snapshot.getBlockData(x, y, z));
+    }
+
+    // ==================== Avancement ====================
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public int getScannedChunks() {
+        return scannedChunks;
+    }
+
+    /**
+     * Avancement entre 0 et 1 (scan puis modifications)
+     */
+    public double getProgress() {
+        return totalChunks == 0 ? 1.0 : scannedChunks / (double) totalChunks;
+    }
+
+    public int getMatchedCount() {
+        int total = 0;
+        for (Box box : boxes) {
+            synchronized (box) {
+                total += box.matched;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Blocs effectivement modifiés (toutes zones)
+     */
+    public int getAppliedCount() {
+        int total = 0;
+        for (Box box : boxes) {
+            total += box.applied;
+        }
+        return total;
+    }
+
+    /**
+     * Blocs modifiés dans une zone (nom passé à addBox)
+     */
+    public int getAppliedCount(String boxName) {
+        int total = 0;
+        for (Box box : boxes) {
+            if (box.name.equals(boxName)) {
+                total += box.applied;
+            }
+        }
+        return total;
+    }
+
+    public List<String> getBoxNames() {
+        List<String> names = new ArrayList<>(boxes.size());
+        for (Box box : boxes) {
+            names.add(box.name);
+        }
+        return names;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Temps total passé sur le thread principal (ms)
+     */
+    public double getMainThreadMillis() {
+        return mainThreadNanos / 1_000_000.0;
+    }
+
+    /**
+     * Durée écoulée depuis start() (ms)
+     */
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+}
@@ -0,0 +1,214 @@
+package fr.arkyalys.event.game.arena;
+
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
+import fr.arkyalys.event.YouTubeEventPlugin;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cache des schematics d'arène lus par WorldEdit (Clipboard), partagé par tous les events
+ *
+ * - clé: chemin du fichier + date de modification (un fichier modifié est relu)
+ * - lecture toujours hors du thread principal, préchargement au démarrage et au /event reload
+ * - taille max (arenas.schematic-cache-mb): les schematics les moins récemment utilisés sont retirés
+ * - la recherche du fichier (extensions .schem/.schematic) est mémorisée
+ *
+ * Accès depuis le thread principal uniquement.
+ */
+public class SchematicCache {
+
+    // Estimation de la mémoire d'un Clipboard: une référence d'état par bloc + surcoût du tableau
+    private static final long BYTES_PER_BLOCK = 8;
+    private static final String[] EXTENSIONS = {".schem", ".schematic"};
+
+    /**
+     * Schematic en mémoire
+     * @param estimatedBytes Estimation de la mémoire occupée
+     * @param loadMillis Durée de la lecture depuis le disque
+     */
+    public record Entry(File file, long modified, Clipboard clipboard, long estimatedBytes, long loadMillis) {}
+
+    private final YouTubeEventPlugin plugin;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Clipboard>> loading = new HashMap<>();
+    private final Map<String, File> resolved = new HashMap<>();
+    private long memoryBytes;
+    private long hits;
+    private long misses;
+
+    public SchematicCache(YouTubeEventPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Schematic lu (immédiat s'il est en cache et à jour)
+     * Le future se termine sur le thread principal.
+     */
+    public CompletableFuture<Clipboard> get(File file) {
+        String key = file.getAbsolutePath();
+        long modified = file.lastModified();
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.modified() == modified) {
+            hits++;
+            return CompletableFuture.completedFuture(entry.clipboard());
+        }
+
+        String loadKey = key + "@" + modified;
+        CompletableFuture<Clipboard> pending = loading.get(loadKey);
+        if (pending != null) {
+            hits++;
+            return pending;
+        }
+
+        misses++;
+        CompletableFuture<Clipboard> future = new CompletableFuture<>();
+        loading.put(loadKey, future);
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            long startNanos = System.nanoTime();
+            try {
+                ClipboardFormat format = ClipboardFormats.findByFile(file);
+                if (format == null) {
+                    throw new IOException("Format de schematic inconnu: " + file.getName());
+                }
+                Clipboard clipboard;
+                try (FileInputStream fis = new FileInputStream(file);
+                     ClipboardReader reader = format.getReader(fis)) {
+                    clipboard = reader.read();
+                }
+                long loadMillis = (System.nanoTime() - startNanos) / 1_000_000L;
+
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    loading.remove(loadKey);
+                    Entry previous = entries.remove(key);
+                    if (previous != null) {
+                        memoryBytes -= previous.estimatedBytes();
+                    }
+                    Entry loaded = new Entry(file, modified, clipboard,
+                            clipboard.getRegion().getVolume() * BYTES_PER_BLOCK, loadMillis);
+                    entries.put(key, loaded);
+                    memoryBytes += loaded.estimatedBytes();
+                    plugin.getLogger().info("[Schematics] " + file.getName() + " charge en " + loadMillis + "ms (~" +
+                            toMegabytes(loaded.estimatedBytes()) + " Mo)");
+                    evict();
+                    future.complete(clipboard);
+                });
+            } catch (Exception e) {
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    loading.remove(loadKey);
+                    future.completeExceptionally(e);
+                });
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Lance la lecture en arrière-plan (sans effet si déjà en cache)
+     */
+    public void preload(File file) {
+        get(file).exceptionally(error -> {
+            plugin.getLogger().warning("[Schematics] Prechargement de " + file.getName() + " impossible: " + error.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Fichier d'un schematic dans un dossier, avec ou sans extension (null si introuvable)
+     */
+    public File resolve(File folder, String name) {
+        String key = new File(folder, name).getPath();
+        File cached = resolved.get(key);
+        if (cached != null && cached.exists()) {
+            return cached;
+        }
+
+        File found = null;
+        for (String ext : EXTENSIONS) {
+            File file = new File(folder, name + ext);
+            if (file.exists()) {
+                found = file;
+                break;
+            }
+        }
+        // Essayer sans extension (au cas où le nom inclut déjà l'extension)
+        if (found == null) {
+            File direct = new File(folder, name);
+            if (direct.exists()) {
+                found = direct;
+            }
+        }
+
+        if (found != null) {
+            resolved.put(key, found);
+        } else {
+            resolved.remove(key);
+        }
+        return found;
+    }
+
+    /**
+     * Oublie les fichiers trouvés (nouveaux schematics possibles) et applique la nouvelle taille max
+     */
+    public void reload() {
+        resolved.clear();
+        evict();
+    }
+
+    /**
+     * Retire les schematics les moins récemment utilisés au-delà de la taille max
+     * (le plus récent est toujours gardé, même s'il dépasse à lui seul la limite)
+     */
+    private void evict() {
+        long maxBytes = plugin.getConfigManager().getSchematicCacheBytes();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (memoryBytes > maxBytes && entries.size() > 1 && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            memoryBytes -= eldest.estimatedBytes();
+            plugin.getLogger().info("[Schematics] " + eldest.file().getName() + " retire du cache (limite " +
+                    toMegabytes(maxBytes) + " Mo)");
+        }
+    }
+
+    /**
+     * Schematics en mémoire, du moins au plus récemment utilisé
+     */
+    public List<Entry> getEntries() {
+        return new ArrayList<>(entries.values());
+    }
+
+    public int getLoadingCount() {
+        return loading.size();
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public static String toMegabytes(long bytes) {
+        return String.format("%.1f", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -1,23 +1,24 @@
 package fr.arkyalys.event.game.games;
 
-import com.sk89q.worldedit.bukkit.BukkitAdapter;
-import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldguard.WorldGuard;
-import com.sk89q.worldguard.protection.managers.RegionManager;
-import com.sk89q.worldguard.protection.regions.ProtectedRegion;
-import com.sk89q.worldguard.protection.regions.RegionContainer;
 import fr.arkyalys.event.YouTubeEventPlugin;
 import fr.arkyalys.event.game.GameEvent;
 import fr.arkyalys.event.game.GameState;
+import fr.arkyalys.event.game.arena.ArenaIndexes;
+import fr.arkyalys.event.game.arena.BlockIndex;
+import fr.arkyalys.event.game.arena.RegionOperation;
 import org.bukkit.*;
 import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitTask;
 
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.block.BlockSpreadEvent;
 import org.bukkit.event.block.LeavesDecayEvent;
 
@@ -42,6 +43,12 @@ public class FeuilleGame extends GameEvent implements Listener {
     private BukkitTask decayStartTask;
     private final java.util.List<BukkitTask> countdownTasks = new java.util.ArrayList<>();
     private int currentTickSpeed = 0;      // Tickspeed actuel (accumule avec les likes)
+    private RegionOperation arenaOperation; // Reset/préparation des feuilles en cours
+    private long arenaGeneration;           // Incrémenté à chaque annulation (ignore les index chargés trop tard)
+
+    // Emplacements des feuilles (feuilles + air des régions), indexés une fois pour toutes
+    private final ArenaIndexes leafIndexes = new ArenaIndexes(plugin, "feuille",
+            material -> material == Material.AIR || Tag.LEAVES.isTagged(material));
 
     public FeuilleGame(YouTubeEventPlugin plugin) {
         super(plugin, "feuille");
@@ -135,7 +142,7 @@ public class FeuilleGame extends GameEvent implements Listener {
         // %participant% = seulement les joueurs dans l'event
         // %all% = tous les joueurs du serveur
         config.set("youtube-triggers.like", List.of(
-                "broadcast &a+1 Like! &7Merci pour le soutien!",
+                "broadcast &a+%likes% Like(s)! &7Merci pour le soutien!",
                 "eco give %participant% 50"
         ));
         config.set("youtube-triggers.super-chat", List.of(
@@ -182,10 +189,12 @@ public class FeuilleGame extends GameEvent implements Listener {
         // Démarrer la disparition des feuilles APRÈS le countdown
         decayStartTask = Bukkit.getScheduler().runTaskLater(plugin, () -> {
             if (state == GameState.RUNNING) {
-                // D'abord rendre les feuilles non-persistantes
-                makeLeavesDecayable();
-                // Puis activer le tick speed élevé
-                startLeafDecay();
+                // D'abord rendre les feuilles non-persistantes, puis activer le tick speed élevé
+                makeLeavesDecayable(() -> {
+                    if (state == GameState.RUNNING) {
+                        startLeafDecay();
+                    }
+                });
             }
         }, leafDecayStartDelay);
 
@@ -195,47 +204,94 @@ public class FeuilleGame extends GameEvent implements Listener {
 
     /**
      * Rend les feuilles non-persistantes pour qu'elles puissent decay
+     * Étalé sur plusieurs ticks: then est appelé une fois toutes les feuilles converties
      */
-    private void makeLeavesDecayable() {
+    private void makeLeavesDecayable(Runnable then) {
         World world = Bukkit.getWorld(worldName);
         if (world == null) return;
 
-        if (Bukkit.getPluginManager().getPlugin("WorldGuard") == null) return;
+        if (Bukkit.getPluginManager().getPlugin("WorldGuard") == null) {
+            then.run();
+            return;
+        }
 
-        try {
-            RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
-            RegionManager regionManager = container.get(BukkitAdapter.adapt(world));
-            if (regionManager == null) return;
-
-            int count = 0;
-            for (String regionName : regionNames) {
-                ProtectedRegion region = regionManager.getRegion(regionName);
-                if (region == null) continue;
-
-                BlockVector3 min = region.getMinimumPoint();
-                BlockVector3 max = region.getMaximumPoint();
-
-                for (int x = min.getBlockX(); x <= max.getBlockX(); x++) {
-                    for (int y = min.getBlockY(); y <= max.getBlockY(); y++) {
-                        for (int z = min.getBlockZ(); z <= max.getBlockZ(); z++) {
-                            Block block = world.getBlockAt(x, y, z);
-                            if (block.getBlockData() instanceof org.bukkit.block.data.type.Leaves leavesData) {
-                                if (leavesData.isPersistent()) {
-                                    leavesData.setPersistent(false);
-                                    block.setBlockData(leavesData);
-                                    count++;
-                                }
-                            }
-                        }
-                    }
-                }
+        startArenaOperation(world, block -> {
+            if (block.getBlockData() instanceof org.bukkit.block.data.type.Leaves leavesData && leavesData.isPersistent()) {
+                leavesData.setPersistent(false);
+                block.setBlockData(leavesData);
+                return true;
+            }
+            return false;
+        }, op -> {
+            plugin.getLogger().info(op.getAppliedCount() + " feuilles rendues non-persistantes (vont decay) en " +
+                    op.getElapsedMillis() + "ms");
+            then.run();
+        });
+    }
+
+    /**
+     * Applique une action aux emplacements de feuilles indexés de toutes les régions
+     * (annule l'opération précédente; l'index est chargé ou construit au premier usage)
+     */
+    private void startArenaOperation(World world, RegionOperation.BlockAction action, java.util.function.Consumer<RegionOperation> onComplete) {
+        cancelArenaOperation();
+        long generation = arenaGeneration;
+
+        leafIndexes.obtain(world, regionNames, indexes -> {
+            // Opération annulée ou remplacée pendant le chargement de l'index
+            if (generation != arenaGeneration) return;
+
+            RegionOperation operation = new RegionOperation(plugin, world, action);
+            for (BlockIndex index : indexes) {
+                operation.addIndex(index);
             }
-            plugin.getLogger().info(count + " feuilles rendues non-persistantes (vont decay)");
-        } catch (Exception e) {
-            plugin.getLogger().warning("Erreur makeLeavesDecayable: " + e.getMessage());
+            arenaOperation = operation
+                    .tickBudget(plugin.getConfigManager().getArenaTickBudgetNanos())
+                    .onComplete(op -> {
+                        arenaOperation = null;
+                        onComplete.accept(op);
+                    })
+                    .start();
+        });
+    }
+
+    private void cancelArenaOperation() {
+        arenaGeneration++;
+        if (arenaOperation != null) {
+            arenaOperation.cancel();
+            arenaOperation = null;
         }
     }
 
+    /**
+     * Oublie les index des feuilles (reconstruits au prochain reset)
+     * À utiliser après une modification de l'arène hors du jeu (WorldEdit...)
+     */
+    public void invalidateLeafIndexes() {
+        leafIndexes.invalidateAll();
+    }
+
+    /**
+     * Tient l'index à jour quand l'arène est modifiée entre deux events
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onArenaBlockPlace(BlockPlaceEvent event) {
+        if (state != GameState.WAITING) return;
+        if (!event.getBlock().getWorld().getName().equals(worldName)) return;
+
+        Block block = event.getBlockPlaced();
+        leafIndexes.onBlockChange(block.getWorld(), regionNames, block.getX(), block.getY(), block.getZ(), block.getType());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onArenaBlockBreak(BlockBreakEvent event) {
+        if (state != GameState.WAITING) return;
+        if (!event.getBlock().getWorld().getName().equals(worldName)) return;
+
+        Block block = event.getBlock();
+        leafIndexes.onBlockChange(block.getWorld(), regionNames, block.getX(), block.getY(), block.getZ(), Material.AIR);
+    }
+
     /**
      * Affiche un countdown avant le début de la disparition
      */
@@ -296,10 +352,10 @@ public class FeuilleGame extends GameEvent implements Listener {
     }
 
     /**
-     * Augmente le tickspeed de +1 (appelé par les likes YouTube)
+     * Augmente le tickspeed pour une rafale de likes YouTube (bonus x likes, en une fois)
      * Les likes s'accumulent jusqu'au max!
      */
-    public void triggerBoost() {
+    public void triggerBoost(long likes) {
         if (state != GameState.RUNNING) return;
 
         World world = Bukkit.getWorld(worldName);
@@ -307,21 +363,19 @@ public class FeuilleGame extends GameEvent implements Listener {
 
         // Augmenter le tickspeed (avec cap au max)
         if (currentTickSpeed < maxTickSpeed) {
-            currentTickSpeed += likeTickSpeedBonus;
-            if (currentTickSpeed > maxTickSpeed) {
-                currentTickSpeed = maxTickSpeed;
-            }
+            currentTickSpeed = (int) Math.min((long) currentTickSpeed + likes * likeTickSpeedBonus, maxTickSpeed);
             setRandomTickSpeed(world, currentTickSpeed);
         }
 
-        // Effet visuel pour tous les participants
+        // Effet visuel pour tous les participants (un seul titre par rafale)
+        String likeText = likes > 1 ? "&c+" + likes + " Likes!" : "&c+1 Like!";
         String speedText = currentTickSpeed >= maxTickSpeed ? "&c" + currentTickSpeed + " (MAX!)" : "&e" + currentTickSpeed;
         for (UUID uuid : participants) {
             Player player = Bukkit.getPlayer(uuid);
             if (player != null && player.isOnline()) {
                 player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_PLING, 1f, 2f);
                 player.sendTitle(
-                        ChatColor.translateAlternateColorCodes('&', "&c+1 Like!"),
+                        ChatColor.translateAlternateColorCodes('&', likeText),
                         ChatColor.translateAlternateColorCodes('&', "&7Vitesse: " + speedText),
                         5, 20, 5
                 );
@@ -339,6 +393,7 @@ public class FeuilleGame extends GameEvent implements Listener {
 
     /**
      * Régénère les feuilles dans toutes les régions WorldGuard configurées
+     * Seuls les emplacements indexés sont visités, les feuilles sont posées sur plusieurs ticks
      */
     private void regenerateLeaves() {
         // Vérifier si WorldGuard est disponible
@@ -353,61 +408,24 @@ public class FeuilleGame extends GameEvent implements Listener {
             return;
         }
 
-        try {
-            // Obtenir le RegionContainer de WorldGuard
-            RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
-            RegionManager regionManager = container.get(BukkitAdapter.adapt(world));
-
-            if (regionManager == null) {
-                plugin.getLogger().warning("Impossible d'obtenir le RegionManager pour le monde '" + worldName + "'");
-                return;
-            }
-
-            int totalBlocksReplaced = 0;
-
-            // Parcourir toutes les régions configurées
-            for (String regionName : regionNames) {
-                ProtectedRegion region = regionManager.getRegion(regionName);
-                if (region == null) {
-                    plugin.getLogger().warning("Région '" + regionName + "' introuvable dans le monde '" + worldName + "'");
-                    continue;
-                }
-
-                // Obtenir les bornes de la région
-                BlockVector3 min = region.getMinimumPoint();
-                BlockVector3 max = region.getMaximumPoint();
-
-                int blocksReplaced = 0;
-
-                // Parcourir tous les blocs de la région
-                for (int x = min.getBlockX(); x <= max.getBlockX(); x++) {
-                    for (int y = min.getBlockY(); y <= max.getBlockY(); y++) {
-                        for (int z = min.getBlockZ(); z <= max.getBlockZ(); z++) {
-                            Block block = world.getBlockAt(x, y, z);
-                            // Si c'est de l'air, remettre des feuilles persistantes
-                            if (block.getType() == Material.AIR) {
-                                block.setType(leafMaterial);
-                                // Marquer les feuilles comme persistantes (ne decay pas naturellement)
-                                if (block.getBlockData() instanceof org.bukkit.block.data.type.Leaves leavesData) {
-                                    leavesData.setPersistent(true);
-                                    block.setBlockData(leavesData);
-                                }
-                                blocksReplaced++;
-                            }
-                        }
-                    }
-                }
+        // Feuilles persistantes (ne decay pas naturellement), état créé une seule fois
+        BlockData persistentLeaves = leafMaterial.createBlockData();
+        if (persistentLeaves instanceof org.bukkit.block.data.type.Leaves leavesData) {
+            leavesData.setPersistent(true);
+        }
 
-                totalBlocksReplaced += blocksReplaced;
-                plugin.getLogger().info("Région '" + regionName + "': " + blocksReplaced + " feuilles régénérées");
+        startArenaOperation(world, block -> {
+            // Si c'est (toujours) de l'air, remettre des feuilles
+            if (block.getType() != Material.AIR) return false;
+            block.setBlockData(persistentLeaves, false);
+            return true;
+        }, op -> {
+            for (String regionName : op.getBoxNames()) {
+                plugin.getLogger().info("Région '" + regionName + "': " + op.getAppliedCount(regionName) + " feuilles régénérées");
             }
-
-            plugin.getLogger().info("Régénération terminée: " + totalBlocksReplaced + " feuilles au total");
-
-        } catch (Exception e) {
-            plugin.getLogger().warning("Erreur lors de la régénération des feuilles: " + e.getMessage());
-            e.printStackTrace();
-        }
+            plugin.getLogger().info("Régénération terminée: " + op.getAppliedCount() + " feuilles au total (" +
+                    op.getElapsedMillis() + "ms, " + String.format("%.1f", op.getMainThreadMillis()) + "ms sur le thread principal)");
+        });
     }
 
     /**
@@ -418,9 +436,12 @@ public class FeuilleGame extends GameEvent implements Listener {
     }
 
     /**
-     * Annule toutes les tâches planifiées (countdown, decay start)
+     * Annule toutes les tâches planifiées (countdown, decay start, opération sur l'arène)
      */
     private void cancelAllTasks() {
+        // Annuler la préparation/régénération des feuilles en cours
+        cancelArenaOperation();
+
         // Annuler la tâche de démarrage du decay
         if (decayStartTask != null) {
             decayStartTask.cancel();
@@ -1,16 +1,7 @@
 package fr.arkyalys.event.game.games;
 
-import com.sk89q.worldedit.EditSession;
-import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.bukkit.BukkitAdapter;
-import com.sk89q.worldedit.extent.clipboard.Clipboard;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
-import com.sk89q.worldedit.function.operation.Operation;
-import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.session.ClipboardHolder;
 import com.sk89q.worldguard.WorldGuard;
 import com.sk89q.worldguard.protection.flags.Flags;
 import com.sk89q.worldguard.protection.flags.StateFlag;
@@ -20,6 +11,10 @@ import com.sk89q.worldguard.protection.regions.RegionContainer;
 import fr.arkyalys.event.YouTubeEventPlugin;
 import fr.arkyalys.event.game.GameEvent;
 import fr.arkyalys.event.game.GameState;
+import fr.arkyalys.event.game.arena.ArenaIndexes;
+import fr.arkyalys.event.game.arena.ArenaResetEngine;
+import fr.arkyalys.event.game.arena.BlockIndex;
+import fr.arkyalys.event.game.arena.RegionOperation;
 import org.bukkit.*;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -42,8 +37,8 @@ import eu.decentsoftware.holograms.api.DHAPI;
 import eu.decentsoftware.holograms.api.holograms.Hologram;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 /**
  * Event "TNTLive" - Le streamer vs les subs
@@ -83,6 +78,16 @@ public class TNTLiveGame extends GameEvent implements Listener {
     private String schematicName = "tntlive";
     private BlockVector3 schematicOrigin = null;
 
+    // Suppression des barriers en cours (étalée sur plusieurs ticks)
+    private RegionOperation barrierOperation = null;
+    private long barrierGeneration = 0;
+
+    // Reset de la map: schematic en mémoire, seules les zones modifiées sont restaurées
+    private final ArenaResetEngine resetEngine = new ArenaResetEngine(plugin, "[TNTLive]");
+
+    // Positions des barriers de la zone de départ, indexées une fois pour toutes
+    private final ArenaIndexes barrierIndexes = new ArenaIndexes(plugin, "tntlive", material -> material == Material.BARRIER);
+
     // Stats
     private int streamerKills = 0;
     private int totalLikes = 0;
@@ -178,7 +183,7 @@ public class TNTLiveGame extends GameEvent implements Listener {
 
         // YouTube triggers
         config.set("youtube-triggers.like", List.of(
-                "give %participant% arrow 1"
+                "give %participant% arrow %likes%"
         ));
 
         // ==================== SETTINGS ====================
@@ -412,6 +417,7 @@ public class TNTLiveGame extends GameEvent implements Listener {
 
     /**
      * Supprime tous les blocs BARRIER dans une région WorldGuard
+     * Seules les positions indexées sont visitées, la suppression est étalée sur quelques ticks
      */
     private void removeBarriersInRegion(String regionName) {
         World world = Bukkit.getWorld(worldName);
@@ -420,50 +426,130 @@ public class TNTLiveGame extends GameEvent implements Listener {
             return;
         }
 
-        try {
-            RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
-            RegionManager regionManager = container.get(BukkitAdapter.adapt(world));
+        if (barrierOperation != null) {
+            barrierOperation.cancel();
+            barrierOperation = null;
+        }
+        long generation = ++barrierGeneration;
 
-            if (regionManager == null) {
-                plugin.getLogger().warning("[TNTLive] RegionManager null pour le monde " + worldName);
+        barrierIndexes.obtain(world, List.of(regionName), indexes -> {
+            // Event arrêté ou suppression relancée pendant le chargement de l'index
+            if (generation != barrierGeneration) return;
+            if (indexes.isEmpty()) {
+                plugin.getLogger().warning("[TNTLive] Région '" + regionName + "' introuvable!");
                 return;
             }
 
-            ProtectedRegion region = regionManager.getRegion(regionName);
-            if (region == null) {
-                plugin.getLogger().warning("[TNTLive] Région '" + regionName + "' introuvable!");
-                return;
+            RegionOperation operation = new RegionOperation(plugin, world, block -> {
+                if (block.getType() != Material.BARRIER) return false;
+                block.setType(Material.AIR);
+                // Pas d'event Bukkit pour ce changement: à restaurer au reset
+                resetEngine.markDirty(block.getX(), block.getY(), block.getZ());
+                return true;
+            });
+            for (BlockIndex index : indexes) {
+                operation.addIndex(index);
             }
 
-            // Récupérer les limites de la région
-            BlockVector3 min = region.getMinimumPoint();
-            BlockVector3 max = region.getMaximumPoint();
+            barrierOperation = operation
+                    .tickBudget(plugin.getConfigManager().getArenaTickBudgetNanos())
+                    .onComplete(op -> {
+                        barrierOperation = null;
+                        int removed = op.getAppliedCount();
+                        if (removed > 0) {
+                            plugin.getLogger().info("[TNTLive] " + removed + " barriers supprimés dans la région '" + regionName +
+                                    "' (" + op.getElapsedMillis() + "ms)");
+                            Bukkit.broadcastMessage(msg("barriers-open"));
+                        } else {
+                            plugin.getLogger().info("[TNTLive] Aucun barrier trouvé dans la région '" + regionName + "'");
+                        }
+                    })
+                    .start();
+        });
+    }
 
-            int removed = 0;
+    /**
+     * Oublie l'index des barriers (reconstruit à la prochaine ouverture)
+     * À utiliser après une modification de la map ou du schematic
+     */
+    public void invalidateBarrierIndex() {
+        barrierIndexes.invalidateAll();
+    }
 
-            // Parcourir tous les blocs de la région
-            for (int x = min.getBlockX(); x <= max.getBlockX(); x++) {
-                for (int y = min.getBlockY(); y <= max.getBlockY(); y++) {
-                    for (int z = min.getBlockZ(); z <= max.getBlockZ(); z++) {
-                        Location loc = new Location(world, x, y, z);
-                        if (loc.getBlock().getType() == Material.BARRIER) {
-                            loc.getBlock().setType(Material.AIR);
-                            removed++;
-                        }
-                    }
-                }
-            }
+    /**
+     * Tient l'index des barriers à jour quand la map est modifiée entre deux events
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onArenaBlockPlace(BlockPlaceEvent event) {
+        if (!event.getBlock().getWorld().getName().equals(worldName)) return;
 
-            if (removed > 0) {
-                plugin.getLogger().info("[TNTLive] " + removed + " barriers supprimés dans la région '" + regionName + "'");
-                Bukkit.broadcastMessage(msg("barriers-open"));
-            } else {
-                plugin.getLogger().info("[TNTLive] Aucun barrier trouvé dans la région '" + regionName + "'");
-            }
+        org.bukkit.block.Block block = event.getBlockPlaced();
+        resetEngine.markDirty(block.getX(), block.getY(), block.getZ());
+        if (state != GameState.WAITING) return;
 
-        } catch (Exception e) {
-            plugin.getLogger().severe("[TNTLive] Erreur lors de la suppression des barriers: " + e.getMessage());
-            e.printStackTrace();
+        barrierIndexes.onBlockChange(block.getWorld(), List.of(setting("barrier-region", "barrier")),
+                block.getX(), block.getY(), block.getZ(), block.getType());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onArenaBlockBreak(org.bukkit.event.block.BlockBreakEvent event) {
+        if (!event.getBlock().getWorld().getName().equals(worldName)) return;
+
+        org.bukkit.block.Block block = event.getBlock();
+        resetEngine.markDirty(block.getX(), block.getY(), block.getZ());
+        if (state != GameState.WAITING) return;
+
+        barrierIndexes.onBlockChange(block.getWorld(), List.of(setting("barrier-region", "barrier")),
+                block.getX(), block.getY(), block.getZ(), Material.AIR);
+    }
+
+    // ==================== Suivi des modifications de la map (reset partiel) ====================
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onArenaEntityExplode(EntityExplodeEvent event) {
+        if (!event.getEntity().getWorld().getName().equals(worldName)) return;
+        markDirty(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onArenaBlockExplode(org.bukkit.event.block.BlockExplodeEvent event) {
+        if (!event.getBlock().getWorld().getName().equals(worldName)) return;
+        markDirty(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onArenaEntityChangeBlock(org.bukkit.event.entity.EntityChangeBlockEvent event) {
+        if (!event.getBlock().getWorld().getName().equals(worldName)) return;
+        markDirty(List.of(event.getBlock()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onArenaLiquidFlow(org.bukkit.event.block.BlockFromToEvent event) {
+        if (!event.getToBlock().getWorld().getName().equals(worldName)) return;
+        markDirty(List.of(event.getToBlock()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onArenaBucketEmpty(org.bukkit.event.player.PlayerBucketEmptyEvent event) {
+        if (!event.getBlock().getWorld().getName().equals(worldName)) return;
+        markDirty(List.of(event.getBlock()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onArenaBlockBurn(org.bukkit.event.block.BlockBurnEvent event) {
+        if (!event.getBlock().getWorld().getName().equals(worldName)) return;
+        markDirty(List.of(event.getBlock()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onArenaBlockIgnite(org.bukkit.event.block.BlockIgniteEvent event) {
+        if (!event.getBlock().getWorld().getName().equals(worldName)) return;
+        markDirty(List.of(event.getBlock()));
+    }
+
+    private void markDirty(List<org.bukkit.block.Block> blocks) {
+        for (org.bukkit.block.Block block : blocks) {
+            resetEngine.markDirty(block.getX(), block.getY(), block.getZ());
         }
     }
 
@@ -588,9 +674,17 @@ public class TNTLiveGame extends GameEvent implements Listener {
     }
 
     /**
-     * Paste le schematic pour reset la map
+     * Paste le schematic pour reset la map (complet, ex: /event reset)
      */
     public void pasteSchematic() {
+        resetArena(true);
+    }
+
+    /**
+     * Remet la map dans l'état du schematic
+     * @param full Paste complet; sinon seules les zones modifiées pendant la partie sont restaurées
+     */
+    public void resetArena(boolean full) {
         if (schematicOrigin == null) {
             plugin.getLogger().warning("[TNTLive] Origine du schematic non définie!");
             return;
@@ -615,56 +709,36 @@ public class TNTLiveGame extends GameEvent implements Listener {
             return;
         }
 
-        final File finalSchematicFile = schematicFile;
-        final BlockVector3 pasteLocation = schematicOrigin;
-
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            try {
-                ClipboardFormat format = ClipboardFormats.findByFile(finalSchematicFile);
-                if (format == null) return;
-
-                Clipboard clipboard;
-                try (FileInputStream fis = new FileInputStream(finalSchematicFile);
-                     ClipboardReader reader = format.getReader(fis)) {
-                    clipboard = reader.read();
-                }
-
-                com.sk89q.worldedit.world.World weWorld = BukkitAdapter.adapt(bukkitWorld);
-
-                try (EditSession editSession = WorldEdit.getInstance().newEditSession(weWorld)) {
-                    Operation operation = new ClipboardHolder(clipboard)
-                            .createPaste(editSession)
-                            .to(pasteLocation)
-                            .ignoreAirBlocks(false)
-                            .build();
-
-                    Operations.complete(operation);
-                    plugin.getLogger().info("[TNTLive] Schematic collé (" + editSession.getBlockChangeCount() + " blocs)");
+        resetEngine.reset(bukkitWorld, schematicFile, schematicOrigin, full).whenComplete((result, error) -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof CancellationException) {
+                    plugin.getLogger().info("[TNTLive] Restauration interrompue par un nouveau reset");
+                } else {
+                    plugin.getLogger().warning("[TNTLive] Erreur paste: " + cause.getMessage());
                 }
-
-            } catch (Exception e) {
-                plugin.getLogger().warning("[TNTLive] Erreur paste: " + e.getMessage());
+            } else if (result.full()) {
+                plugin.getLogger().info("[TNTLive] Schematic collé (" + result.restoredBlocks() + " blocs, " +
+                        result.elapsedMillis() + "ms)");
+            } else {
+                plugin.getLogger().info("[TNTLive] Map restaurée: " + result.restoredBlocks() + " blocs dans " +
+                        result.dirtySections() + " sections modifiées (" + result.elapsedMillis() + "ms, " +
+                        String.format("%.1f", result.mainThreadMillis()) + "ms sur le thread principal)");
             }
         });
     }
 
     /**
-     * Cherche un fichier schematic avec différentes extensions
+     * Cherche un fichier schematic avec différentes extensions (résultat mémorisé par le cache)
      */
     private File findSchematicFile(File folder, String name) {
-        String[] extensions = {".schem", ".schematic"};
-        for (String ext : extensions) {
-            File file = new File(folder, name + ext);
-            if (file.exists()) {
-                return file;
-            }
-        }
-        // Essayer sans extension (au cas où le nom inclut déjà l'extension)
-        File direct = new File(folder, name);
-        if (direct.exists()) {
-            return direct;
-        }
-        return null;
+        return plugin.getGameManager().getSchematicCache().resolve(folder, name);
+    }
+
+    @Override
+    public List<File> getArenaSchematics() {
+        File schematicFile = findSchematicFile(new File(plugin.getDataFolder(), "schematics"), schematicName);
+        return schematicFile != null ? List.of(schematicFile) : List.of();
     }
 
     // ==================== Game Events ====================
@@ -849,6 +923,13 @@ public class TNTLiveGame extends GameEvent implements Listener {
 
     @Override
     protected void onStop() {
+        // Stopper la suppression des barriers si elle n'est pas terminée
+        barrierGeneration++;
+        if (barrierOperation != null) {
+            barrierOperation.cancel();
+            barrierOperation = null;
+        }
+
         // Réactiver l'invincibilité dans la zone barrier (pour le prochain event)
         setBarrierInvincible(true);
 
@@ -861,7 +942,7 @@ public class TNTLiveGame extends GameEvent implements Listener {
         // Paste le schematic après délai configurable
         int resetDelay = settingInt("schematic-reset-delay", 60);
         Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            pasteSchematic();
+            resetArena(false);
             plugin.getLogger().info("[TNTLive] Map reset (" + resetDelay + "s après la fin)");
         }, 20L * resetDelay);
 
@@ -0,0 +1,135 @@
+package fr.arkyalys.event.metrics;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme de durées à buckets log-linéaires (principe HdrHistogram)
+ *
+ * - 4 sous-buckets par puissance de 2: erreur relative < 25%, de 1 ns à ~18 minutes
+ * - enregistrer une valeur = un calcul de bits + un incrément atomique, sans allocation ni verrou
+ * - export Prometheus sur les puissances de 2 (bornes exactes des buckets), de ~1 µs à ~69 s
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_OCTAVE = 40;
+    private static final int BUCKET_COUNT = (MAX_OCTAVE - 1) * SUB_BUCKETS + SUB_BUCKETS;
+
+    // Bornes exportées: 2^10 ns (~1 µs) à 2^36 ns (~69 s)
+    static final int FIRST_EXPORTED_OCTAVE = 10;
+    static final int LAST_EXPORTED_OCTAVE = 36;
+    static final String[] EXPORTED_LABELS = new String[LAST_EXPORTED_OCTAVE - FIRST_EXPORTED_OCTAVE + 1];
+
+    static {
+        for (int i = 0; i < EXPORTED_LABELS.length; i++) {
+            EXPORTED_LABELS[i] = BigDecimal.valueOf(1L << (FIRST_EXPORTED_OCTAVE + i)).movePointLeft(9)
+                    .stripTrailingZeros().toPlainString();
+        }
+    }
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    Histogram() {
+    }
+
+    /**
+     * Enregistre une durée en nanosecondes
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(indexOf(value));
+        count.increment();
+        sumNanos.add(value);
+    }
+
+    /**
+     * Enregistre la durée écoulée depuis startNanos (System.nanoTime())
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+
+    /**
+     * Estimation d'un quantile (0.5, 0.99...) en millisecondes, milieu du bucket concerné
+     */
+    public double quantileMillis(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(Math.min(Math.max(quantile, 0), 1) * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= Math.max(rank, 1)) {
+                return (lowerBound(i) + lowerBound(i + 1)) / 2.0 / 1_000_000.0;
+            }
+        }
+        return lowerBound(BUCKET_COUNT) / 1_000_000.0;
+    }
+
+    /**
+     * Nombre cumulé de valeurs inférieures à chaque borne exportée (EXPORTED_LABELS), puis le total (+Inf)
+     */
+    long[] cumulativeCounts() {
+        long[] result = new long[EXPORTED_LABELS.length + 1];
+        long cumulative = 0;
+        int bucket = 0;
+        for (int i = 0; i < EXPORTED_LABELS.length; i++) {
+            int limit = firstBucketOfOctave(FIRST_EXPORTED_OCTAVE + i);
+            while (bucket < limit) {
+                cumulative += buckets.get(bucket++);
+            }
+            result[i] = cumulative;
+        }
+        while (bucket < BUCKET_COUNT) {
+            cumulative += buckets.get(bucket++);
+        }
+        result[EXPORTED_LABELS.length] = cumulative;
+        return result;
+    }
+
+    // ==================== Buckets ====================
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int octave = 63 - Long.numberOfLeadingZeros(value);
+        if (octave > MAX_OCTAVE) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (value >>> (octave - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (octave - 1) * SUB_BUCKETS + sub;
+    }
+
+    private static int firstBucketOfOctave(int octave) {
+        return (octave - 1) * SUB_BUCKETS;
+    }
+
+    private static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int octave = index / SUB_BUCKETS + 1;
+        int sub = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (octave - SUB_BUCKET_BITS);
+    }
+}
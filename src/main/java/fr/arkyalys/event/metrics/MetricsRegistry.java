@@ -0,0 +1,166 @@
+package fr.arkyalys.event.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Registre des métriques du plugin, exposé sur /metrics (serveur overlay)
+ *
+ * - compteurs et histogrammes sans verrou: les composants gardent la référence obtenue ici
+ *   et n'ont plus qu'un incrément à faire sur le chemin chaud
+ * - jauges lues au moment de l'export (aucun coût hors scrape)
+ * - format texte Prometheus 0.0.4 ou OpenMetrics 1.0 (négocié par l'en-tête Accept)
+ *
+ * Les labels sont passés par paires: counter("x_total", "aide", "provider", "innertube")
+ */
+public class MetricsRegistry {
+
+    private enum Type { COUNTER, GAUGE, HISTOGRAM }
+
+    /**
+     * Famille de métriques: même nom, même type, un enfant par combinaison de labels
+     */
+    private static final class Family {
+        final String name;
+        final String help;
+        final Type type;
+        final Map<String, Object> children = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Compteur (créé au premier appel, le même objet est renvoyé ensuite)
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).children.computeIfAbsent(labels(labels), k -> new Counter());
+    }
+
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) family(name, help, Type.HISTOGRAM).children.computeIfAbsent(labels(labels), k -> new Histogram());
+    }
+
+    /**
+     * Compteur tenu ailleurs (AtomicLong existant...), lu au moment de l'export
+     */
+    public void functionCounter(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, Type.COUNTER).children.put(labels(labels), value);
+    }
+
+    /**
+     * Jauge calculée à l'export (remplace une jauge déjà enregistrée avec les mêmes labels)
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).children.put(labels(labels), value);
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metrique " + name + " deja enregistree comme " + family.type);
+        }
+        return family;
+    }
+
+    // ==================== Export ====================
+
+    /**
+     * Export texte de toutes les métriques
+     * @param openMetrics true pour le format OpenMetrics (familles de compteurs sans _total, # EOF final)
+     */
+    public void write(StringBuilder sb, boolean openMetrics) {
+        for (Family family : families.values()) {
+            String familyName = openMetrics && family.type == Type.COUNTER && family.name.endsWith("_total")
+                    ? family.name.substring(0, family.name.length() - "_total".length())
+                    : family.name;
+
+            sb.append("# HELP ").append(familyName).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(familyName).append(' ').append(family.type.name().toLowerCase(Locale.ROOT)).append('\n');
+
+            family.children.forEach((labels, child) -> {
+                switch (family.type) {
+                    case COUNTER -> sample(sb, family.name, labels, child instanceof Counter counter
+                            ? counter.get() : ((LongSupplier) child).getAsLong());
+                    case GAUGE -> sample(sb, family.name, labels, ((DoubleSupplier) child).getAsDouble());
+                    case HISTOGRAM -> writeHistogram(sb, family.name, labels, (Histogram) child);
+                }
+            });
+        }
+        if (openMetrics) {
+            sb.append("# EOF\n");
+        }
+    }
+
+    private static void writeHistogram(StringBuilder sb, String name, String labels, Histogram histogram) {
+        long[] cumulative = histogram.cumulativeCounts();
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (int i = 0; i < Histogram.EXPORTED_LABELS.length; i++) {
+            sample(sb, name + "_bucket", prefix + "le=\"" + Histogram.EXPORTED_LABELS[i] + "\"", cumulative[i]);
+        }
+        long total = cumulative[cumulative.length - 1];
+        sample(sb, name + "_bucket", prefix + "le=\"+Inf\"", total);
+        sample(sb, name + "_sum", labels, histogram.getSumSeconds());
+        sample(sb, name + "_count", labels, total);
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, long value) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ');
+        if (Double.isNaN(value)) {
+            sb.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            sb.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * Paires clé/valeur -> provider="innertube",type="text" (valeurs échappées)
+     */
+    private static String labels(String[] pairs) {
+        if (pairs.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels attendus par paires cle/valeur");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(pairs[i]).append("=\"");
+            String value = pairs[i + 1];
+            for (int c = 0; c < value.length(); c++) {
+                char ch = value.charAt(c);
+                switch (ch) {
+                    case '\\' -> sb.append("\\\\");
+                    case '"' -> sb.append("\\\"");
+                    case '\n' -> sb.append("\\n");
+                    default -> sb.append(ch);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+}
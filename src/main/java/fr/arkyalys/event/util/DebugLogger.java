@@ -1,51 +1,89 @@
 package fr.arkyalys.event.util;
 
 import fr.arkyalys.event.YouTubeEventPlugin;
+import org.bukkit.configuration.file.FileConfiguration;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Logger de debug qui écrit dans un fichier séparé
+ *
+ * L'appel à log() ne fait que déposer la ligne dans un ring buffer (sans verrou ni I/O):
+ * un thread dédié écrit les lignes par lots dans un fichier gardé ouvert.
+ * - file bornée: si elle est pleine, la ligne est perdue et comptée
+ * - rotation par taille et par jour (debug-AAAAMMJJ-HHMMSS-mmm.log)
+ * - shutdown() vide la file et ferme le fichier (onDisable)
  */
 public class DebugLogger {
 
     private static YouTubeEventPlugin plugin;
     private static File logFile;
-    private static boolean enabled = true;
+    private static volatile boolean enabled = true;
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+    private static final DateTimeFormatter ROTATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    // Configuration
+    private static long maxSizeBytes = 5L * 1024 * 1024;
+    private static boolean rotateDaily = true;
+    private static int maxFiles = 5;
+    private static long flushIntervalMs = 500;
+
+    // File d'attente (ring buffer multi-producteurs / un consommateur)
+    private static LineRing queue;
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong written = new AtomicLong();
+
+    // Thread d'écriture
+    private static Thread writerThread;
+    private static volatile boolean running = false;
+    private static volatile boolean clearRequested = false;
 
     public static void init(YouTubeEventPlugin pluginInstance) {
+        shutdown();
+
         plugin = pluginInstance;
         logFile = new File(plugin.getDataFolder(), "debug.log");
+        logFile.getParentFile().mkdirs();
 
-        // Créer le fichier si nécessaire
-        try {
-            if (!logFile.exists()) {
-                logFile.getParentFile().mkdirs();
-                logFile.createNewFile();
-            }
-        } catch (IOException e) {
-            plugin.getLogger().warning("Impossible de créer le fichier debug.log");
-        }
+        FileConfiguration config = plugin.getConfig();
+        maxSizeBytes = Math.max(config.getLong("debug.max-size-kb", 5120), 1) * 1024;
+        rotateDaily = config.getBoolean("debug.rotate-daily", true);
+        maxFiles = Math.max(config.getInt("debug.max-files", 5), 0);
+        flushIntervalMs = Math.max(config.getLong("debug.flush-interval-ms", 500), 10);
+        queue = new LineRing(config.getInt("debug.queue-size", 8192));
+
+        running = true;
+        writerThread = new Thread(DebugLogger::writeLoop, "YouTubeEvent-DebugLog");
+        writerThread.setDaemon(true);
+        writerThread.start();
 
         log("=== Debug Logger initialisé ===");
     }
 
     public static void log(String message) {
-        if (!enabled || logFile == null) return;
-
-        String timestamp = LocalDateTime.now().format(TIME_FORMAT);
-        String line = "[" + timestamp + "] " + message;
+        LineRing ring = queue;
+        if (!enabled || ring == null || !running) return;
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(logFile, true))) {
-            writer.println(line);
-        } catch (IOException e) {
-            // Silently fail
+        if (!ring.offer(new Line(System.currentTimeMillis(), message))) {
+            dropped.incrementAndGet();
         }
     }
 
@@ -74,15 +112,284 @@ public class DebugLogger {
     }
 
     /**
-     * Vide le fichier de log
+     * Vide le fichier de log (effectué par le thread d'écriture)
      */
     public static void clear() {
-        if (logFile == null) return;
+        if (writerThread == null) return;
+
+        clearRequested = true;
+        LockSupport.unpark(writerThread);
+    }
+
+    /**
+     * Écrit les lignes en attente et ferme le fichier (appelé dans onDisable)
+     */
+    public static void shutdown() {
+        Thread thread = writerThread;
+        if (thread == null) return;
+
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    /**
+     * Lignes perdues car la file était pleine
+     */
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public static long getWrittenCount() {
+        return written.get();
+    }
+
+    public static int getQueueDepth() {
+        LineRing ring = queue;
+        return ring != null ? ring.size() : 0;
+    }
+
+    // ==================== Thread d'écriture ====================
+
+    private record Line(long time, String message) {}
+
+    private static void writeLoop() {
+        Writer writer = new Writer();
+        long reportedDrops = dropped.get();
+
+        try {
+            while (true) {
+                boolean stopping = !running;
+
+                if (clearRequested) {
+                    clearRequested = false;
+                    writer.truncate();
+                }
+
+                Line line;
+                while ((line = queue.poll()) != null) {
+                    writer.write(line);
+                }
+
+                long drops = dropped.get();
+                if (drops != reportedDrops) {
+                    writer.write(new Line(System.currentTimeMillis(),
+                            "[DebugLogger] " + (drops - reportedDrops) + " lignes perdues (file pleine)"));
+                    reportedDrops = drops;
+                }
+
+                writer.flush();
+
+                if (stopping) break;
+                LockSupport.parkNanos(flushIntervalMs * 1_000_000L);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Fichier de log ouvert en continu (utilisé uniquement par le thread d'écriture)
+     */
+    private static class Writer {
+
+        private BufferedWriter out;
+        private long size; // Octets (UTF-8) du fichier
+        private LocalDate day;
+        private boolean renameFailed;
+        private LocalDate rotationSuspendedDay;
+
+        void write(Line line) {
+            try {
+                LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(line.time()), ZoneId.systemDefault());
+                if (out == null) {
+                    open();
+                }
+                if ((size >= maxSizeBytes || (rotateDaily && !time.toLocalDate().equals(day)))
+                        && !time.toLocalDate().equals(rotationSuspendedDay)) {
+                    rotate();
+                }
+
+                String text = "[" + time.format(TIME_FORMAT) + "] " + line.message();
+                out.write(text);
+                out.newLine();
+                size += utf8Length(text) + System.lineSeparator().length();
+                written.incrementAndGet();
+            } catch (IOException e) {
+                close(); // Nouvelle tentative à la prochaine ligne
+            }
+        }
+
+        void flush() {
+            if (out == null) return;
+            try {
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void truncate() {
+            close();
+            try {
+                FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING).close();
+                open();
+                out.write("=== Log cleared at " + LocalDateTime.now() + " ===");
+                out.newLine();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            if (out == null) return;
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+            out = null;
+        }
+
+        private void open() throws IOException {
+            FileChannel channel = FileChannel.open(logFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            size = channel.size();
+            // Jour du contenu déjà présent: un debug.log laissé par un jour précédent est tourné dès le premier message
+            day = size > 0
+                    ? LocalDate.ofInstant(Instant.ofEpochMilli(logFile.lastModified()), ZoneId.systemDefault())
+                    : LocalDate.now();
+            out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        private void rotate() throws IOException {
+            close();
+
+            // Nom unique même pour deux rotations dans la même milliseconde
+            String base = "debug-" + LocalDateTime.now().format(ROTATE_FORMAT);
+            File rotated = new File(logFile.getParentFile(), base + ".log");
+            for (int i = 1; rotated.exists(); i++) {
+                rotated = new File(logFile.getParentFile(), base + "-" + i + ".log");
+            }
+
+            if (logFile.renameTo(rotated)) {
+                deleteOldFiles();
+                open();
+                return;
+            }
+
+            // Renommage impossible (fichier verrouillé...): on repart d'un fichier vide plutôt que
+            // de retenter la rotation à chaque ligne; si même ça échoue, plus de rotation aujourd'hui
+            if (!renameFailed) {
+                renameFailed = true;
+                plugin.getLogger().warning("Rotation de debug.log impossible, le fichier est vide a la place");
+            }
+            try {
+                FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING).close();
+            } catch (IOException e) {
+                rotationSuspendedDay = LocalDate.now();
+            }
+            open();
+            day = LocalDate.now();
+        }
+
+        /**
+         * Taille en octets d'un texte encodé en UTF-8 (sans l'encoder)
+         */
+        private static int utf8Length(String text) {
+            int bytes = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    bytes++;
+                } else if (c < 0x800) {
+                    bytes += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    bytes += 4;
+                    i++;
+                } else {
+                    bytes += 3;
+                }
+            }
+            return bytes;
+        }
+
+        /**
+         * Ne garde que les maxFiles fichiers tournés les plus récents
+         */
+        private void deleteOldFiles() {
+            File[] files = logFile.getParentFile().listFiles((dir, name) -> name.startsWith("debug-") && name.endsWith(".log"));
+            if (files == null || files.length <= maxFiles) return;
+
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified).thenComparing(File::getName));
+            for (int i = 0; i < files.length - maxFiles; i++) {
+                files[i].delete();
+            }
+        }
+    }
+
+    /**
+     * File bornée sans verrou (plusieurs producteurs, un seul consommateur)
+     * Chaque case porte un numéro de séquence qui indique si elle est libre ou remplie.
+     */
+    private static class LineRing {
+
+        private final AtomicReferenceArray<Line> lines;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong(); // Prochaine écriture (producteurs)
+        private long head = 0;                            // Prochaine lecture (consommateur)
+
+        LineRing(int capacity) {
+            int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+            this.lines = new AtomicReferenceArray<>(size);
+            this.sequences = new AtomicLongArray(size);
+            this.mask = size - 1;
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        boolean offer(Line line) {
+            long pos = tail.get();
+            while (true) {
+                int index = (int) (pos & mask);
+                long diff = sequences.get(index) - pos;
+                if (diff == 0) {
+                    if (tail.compareAndSet(pos, pos + 1)) {
+                        lines.lazySet(index, line);
+                        sequences.lazySet(index, pos + 1); // Publie la case au consommateur
+                        return true;
+                    }
+                    pos = tail.get();
+                } else if (diff < 0) {
+                    return false; // Pleine
+                } else {
+                    pos = tail.get();
+                }
+            }
+        }
+
+        Line poll() {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                return null; // Vide (ou écriture en cours)
+            }
+            Line line = lines.get(index);
+            lines.lazySet(index, null);
+            sequences.lazySet(index, head + mask + 1); // Libère la case pour le tour suivant
+            head++;
+            return line;
+        }
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(logFile, false))) {
-            writer.println("=== Log cleared at " + LocalDateTime.now() + " ===");
-        } catch (IOException e) {
-            // Silently fail
+        int size() {
+            return (int) Math.max(0, tail.get() - head);
         }
     }
 }
@@ -0,0 +1,189 @@
+package fr.arkyalys.event.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chaîne de config pré-compilée contenant des placeholders %nom%
+ *
+ * Le texte est découpé une seule fois en segments (texte fixe / placeholder),
+ * puis chaque rendu:
+ * - n'évalue que les placeholders réellement présents
+ * - écrit dans un StringBuilder réutilisé (pas de chaîne intermédiaire par placeholder)
+ * - renvoie le texte d'origine tel quel s'il n'a aucun placeholder
+ *
+ * Un placeholder que le resolver ne connaît pas (retour null) est laissé intact,
+ * pour pouvoir être remplacé plus tard (ex: %all%, %participant%).
+ */
+public final class PlaceholderTemplate {
+
+    /**
+     * Fournit la valeur d'un placeholder (sans les %), ou null s'il est inconnu
+     */
+    @FunctionalInterface
+    public interface Resolver {
+        String resolve(String name);
+    }
+
+    private static final int MAX_CACHED = 2048;
+    private static final Map<String, PlaceholderTemplate> CACHE = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(Buffer::new);
+
+    /**
+     * Buffer réutilisé par thread (un resolver peut lui-même rendre un template: dans ce cas on en alloue un autre)
+     */
+    private static final class Buffer {
+        final StringBuilder sb = new StringBuilder(256);
+        boolean inUse;
+    }
+
+    private final String source;
+    // Segments alternés: texte fixe (literal[i]) puis placeholder (names[i], null pour le dernier)
+    private final String[] literals;
+    private final String[] names;
+
+    private PlaceholderTemplate(String source) {
+        this.source = source;
+
+        List<String> literalList = new ArrayList<>();
+        List<String> nameList = new ArrayList<>();
+
+        int literalStart = 0;
+        int i = 0;
+        while (i < source.length()) {
+            int open = source.indexOf('%', i);
+            if (open == -1) break;
+            int close = source.indexOf('%', open + 1);
+            if (close == -1) break;
+
+            if (isValidName(source, open + 1, close)) {
+                literalList.add(source.substring(literalStart, open));
+                nameList.add(source.substring(open + 1, close));
+                literalStart = close + 1;
+                i = close + 1;
+            } else {
+                // "%" isolé (ex: "50% de chance"): le second % peut ouvrir un placeholder
+                i = close;
+            }
+        }
+        literalList.add(source.substring(literalStart));
+        nameList.add(null);
+
+        this.literals = literalList.toArray(new String[0]);
+        this.names = nameList.toArray(new String[0]);
+    }
+
+    /**
+     * Compile une chaîne (mise en cache: une chaîne de config n'est découpée qu'une fois)
+     */
+    public static PlaceholderTemplate compile(String text) {
+        if (text == null) text = "";
+
+        PlaceholderTemplate template = CACHE.get(text);
+        if (template == null) {
+            if (CACHE.size() >= MAX_CACHED) {
+                CACHE.clear(); // Garde-fou si des chaînes dynamiques passent par ici
+            }
+            template = CACHE.computeIfAbsent(text, PlaceholderTemplate::new);
+        }
+        return template;
+    }
+
+    /**
+     * Compile une liste de chaînes
+     */
+    public static List<PlaceholderTemplate> compileAll(List<String> texts) {
+        List<PlaceholderTemplate> templates = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            templates.add(compile(text));
+        }
+        return templates;
+    }
+
+    /**
+     * Produit le texte final
+     */
+    public String render(Resolver resolver) {
+        if (names.length == 1) {
+            return source;
+        }
+
+        Buffer buffer = BUFFER.get();
+        if (buffer.inUse) {
+            StringBuilder sb = new StringBuilder(source.length() + 32);
+            renderTo(sb, resolver);
+            return sb.toString();
+        }
+
+        buffer.inUse = true;
+        try {
+            StringBuilder sb = buffer.sb;
+            sb.setLength(0);
+            renderTo(sb, resolver);
+            return sb.toString();
+        } finally {
+            buffer.inUse = false;
+            if (buffer.sb.capacity() > 8192) {
+                BUFFER.remove(); // Ne pas garder un énorme buffer après un texte exceptionnel
+            }
+        }
+    }
+
+    /**
+     * Écrit le texte final dans un StringBuilder existant
+     */
+    public void renderTo(StringBuilder sb, Resolver resolver) {
+        for (int i = 0; i < literals.length; i++) {
+            sb.append(literals[i]);
+
+            String name = names[i];
+            if (name == null) continue;
+
+            String value = resolver.resolve(name);
+            if (value != null) {
+                sb.append(value);
+            } else {
+                sb.append('%').append(name).append('%');
+            }
+        }
+    }
+
+    /**
+     * Le texte contient-il ce placeholder ?
+     */
+    public boolean contains(String name) {
+        for (String n : names) {
+            if (name.equals(n)) return true;
+        }
+        return false;
+    }
+
+    public boolean hasPlaceholders() {
+        return names.length > 1;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * Nom de placeholder valide: lettres, chiffres, _ ou - (pas d'espace)
+     */
+    private static boolean isValidName(String text, int start, int end) {
+        if (start == end) return false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,244 @@
+package fr.arkyalys.event.web;
+
+import com.google.gson.Gson;
+import fr.arkyalys.event.youtube.models.ChatMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Derniers messages du live, dans un buffer circulaire de taille fixe
+ *
+ * - un seul écrivain (thread principal), lecteurs HTTP sans verrou
+ * - chaque message reçoit un numéro de séquence: /api/chat?since=N ne renvoie que les suivants
+ * - les numéros partent de l'époque du démarrage (secondes << 20): après un reload ou un redémarrage,
+ *   ils dépassent ceux de l'ancien buffer, et un curseur inconnu (since > dernier) repart du début
+ * - le JSON d'un message est produit à la première lecture puis réutilisé
+ * - mémoire constante: le plus ancien message est écrasé quand le buffer est plein
+ */
+public class ChatFeed {
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Message conservé (immuable, hormis le JSON calculé une fois)
+     */
+    static final class Entry {
+        final long seq;
+        final long epoch;
+        final ChatMessage message;
+        private volatile byte[] json;
+
+        Entry(long seq, long epoch, ChatMessage message) {
+            this.seq = seq;
+            this.epoch = epoch;
+            this.message = message;
+        }
+
+        byte[] json() {
+            byte[] bytes = json;
+            if (bytes == null) {
+                Map<String, Object> data = new LinkedHashMap<>();
+                data.put("seq", seq);
+                data.put("epoch", epoch);
+                data.putAll(payload(message));
+                bytes = GSON.toJson(data).getBytes(StandardCharsets.UTF_8);
+                json = bytes; // Course bénigne: deux lecteurs produisent le même contenu
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Filtre de lecture: ?type=SUPER_CHAT,SUPER_STICKER&role=MODERATOR&min_amount=5
+     */
+    public record Filter(Set<ChatMessage.MessageType> types, Set<String> roles, double minAmount) {
+
+        public static final Filter ALL = new Filter(null, null, 0);
+
+        public static Filter parse(Map<String, String> query) {
+            Set<ChatMessage.MessageType> types = null;
+            String typeParam = query.get("type");
+            if (typeParam != null && !typeParam.isEmpty()) {
+                types = EnumSet.noneOf(ChatMessage.MessageType.class);
+                for (String name : typeParam.split(",")) {
+                    try {
+                        types.add(ChatMessage.MessageType.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                    } catch (IllegalArgumentException ignored) {
+                    }
+                }
+            }
+
+            Set<String> roles = null;
+            String roleParam = query.get("role");
+            if (roleParam != null && !roleParam.isEmpty()) {
+                roles = new HashSet<>();
+                for (String role : roleParam.split(",")) {
+                    roles.add(role.trim().toUpperCase(Locale.ROOT));
+                }
+            }
+
+            double minAmount = 0;
+            try {
+                minAmount = Double.parseDouble(query.getOrDefault("min_amount", "0"));
+            } catch (NumberFormatException ignored) {
+            }
+
+            return new Filter(types, roles, minAmount);
+        }
+
+        public boolean matches(ChatMessage message) {
+            if (types != null && !types.contains(message.getType())) return false;
+            if (minAmount > 0 && message.getAmountValue() < minAmount) return false;
+            if (roles != null) {
+                boolean any = (message.isOwner() && roles.contains("OWNER"))
+                        || (message.isModerator() && roles.contains("MODERATOR"))
+                        || (message.isSponsor() && roles.contains("SPONSOR"))
+                        || ("VIEWER".equals(message.getAuthorRole()) && roles.contains("VIEWER"));
+                if (!any) return false;
+            }
+            return true;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> ring;
+    private final int mask;
+    // Époque du démarrage (secondes) et premier numéro de séquence qui en découle
+    // (reste sous 2^53: les numéros sont exacts côté JavaScript)
+    private final long epoch;
+    private final long baseSeq;
+    private volatile long lastSeq;
+
+    public ChatFeed(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.epoch = System.currentTimeMillis() / 1000L;
+        this.baseSeq = epoch << 20;
+        this.lastSeq = baseSeq;
+    }
+
+    /**
+     * Ajoute un message (thread principal uniquement)
+     */
+    Entry append(ChatMessage message) {
+        long seq = lastSeq + 1;
+        Entry entry = new Entry(seq, epoch, message);
+        ring.set((int) (seq & mask), entry);
+        lastSeq = seq; // Publie le message aux lecteurs
+        return entry;
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Curseur d'un client ramené à ce buffer: un numéro d'un autre démarrage
+     * (avant le premier message ou après le dernier) repart du début du buffer
+     */
+    public long resolveSince(long since) {
+        long last = lastSeq;
+        return since < baseSeq || since > last ? baseSeq : since;
+    }
+
+    public int getCapacity() {
+        return ring.length();
+    }
+
+    /**
+     * Réponse de /api/chat: {"seq":dernier,"epoch":démarrage,"messages":[...]} (au plus limit messages, les plus récents)
+     */
+    public byte[] toJson(long since, Filter filter, int limit) {
+        long last = lastSeq;
+        since = since > last ? baseSeq : since;
+        long first = Math.max(since + 1, last - ring.length() + 1);
+
+        // Parcours à rebours pour ne garder que les `limit` plus récents, sans copier tout l'historique
+        Entry[] selected = new Entry[Math.min(limit, ring.length())];
+        int count = 0;
+        for (long seq = last; seq >= first && count < selected.length; seq--) {
+            Entry entry = ring.get((int) (seq & mask));
+            if (entry == null || entry.seq != seq) break; // Déjà écrasé par un message plus récent
+            if (filter.matches(entry.message)) {
+                selected[count++] = entry;
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + count * 256);
+        out.writeBytes(("{\"seq\":" + last + ",\"epoch\":" + epoch + ",\"messages\":[").getBytes(StandardCharsets.UTF_8));
+        for (int i = count - 1; i >= 0; i--) {
+            out.writeBytes(selected[i].json());
+            if (i > 0) out.write(',');
+        }
+        out.writeBytes("]}".getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    /**
+     * Messages après `since` (ordre chronologique), pour rattraper un client SSE reconnecté
+     */
+    void forEachSince(long since, Filter filter, Consumer<Entry> action) {
+        long last = lastSeq;
+        long first = Math.max(since + 1, last - ring.length() + 1);
+        for (long seq = first; seq <= last; seq++) {
+            Entry entry = ring.get((int) (seq & mask));
+            if (entry != null && entry.seq == seq && filter.matches(entry.message)) {
+                action.accept(entry);
+            }
+        }
+    }
+
+    /**
+     * Données publiques d'un message (aussi utilisées par le WebSocket)
+     */
+    static Map<String, Object> payload(ChatMessage message) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", message.getMessageId());
+        data.put("type", message.getType().name());
+        data.put("author", message.getAuthorName());
+        data.put("authorImage", message.getAuthorProfileImage());
+        data.put("role", message.getAuthorRole());
+        data.put("message", message.getMessage());
+        data.put("time", message.getPublishedAt());
+        if (message.getAmountMicros() > 0) {
+            data.put("amount", message.getAmountDisplay());
+            data.put("amountValue", message.getAmountValue());
+            data.put("currency", message.getCurrency());
+        }
+        return data;
+    }
+
+    /**
+     * Paramètres d'une query string (?a=1&b=2)
+     */
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return params;
+
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq == -1 ? pair : pair.substring(0, eq);
+            String value = eq == -1 ? "" : pair.substring(eq + 1);
+            try {
+                params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        return params;
+    }
+}
@@ -0,0 +1,238 @@
+package fr.arkyalys.event.web;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flux Server-Sent Events du chat (/api/chat/stream)
+ *
+ * - chaque client a son filtre (type, rôle, montant minimum) passé en query string
+ * - à la connexion: les derniers messages du buffer, ou ceux manqués depuis Last-Event-ID
+ * - l'id de chaque event est le numéro de séquence du message
+ *
+ * Même modèle que StatsStream: un thread d'écriture dédié, le thread principal ne fait que déposer.
+ */
+public class ChatStream {
+
+    /**
+     * Client connecté (manipulé uniquement par le thread d'écriture)
+     */
+    private static final class Client {
+        final HttpExchange exchange;
+        final ChatFeed.Filter filter;
+        long lastSeq;
+
+        Client(HttpExchange exchange, ChatFeed.Filter filter) {
+            this.exchange = exchange;
+            this.filter = filter;
+        }
+    }
+
+    private final List<Client> clients = new ArrayList<>();
+    private final AtomicInteger clientCount = new AtomicInteger();
+
+    private ExecutorService writer;
+    private volatile ChatFeed feed;
+    private int history = 20;
+    private int maxClients = 32;
+
+    // Heartbeat (thread principal)
+    private long lastEventMillis = 0;
+    private long heartbeatMillis = 15_000L;
+
+    /**
+     * Démarre le thread d'écriture
+     */
+    public void start(ChatFeed feed, int history, int heartbeatSeconds, int maxClients) {
+        stop();
+
+        this.feed = feed;
+        this.history = Math.max(history, 0);
+        this.heartbeatMillis = Math.max(heartbeatSeconds, 1) * 1000L;
+        this.maxClients = maxClients;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "YouTubeEvent-ChatStream");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Arrête le flux et ferme toutes les connexions
+     */
+    public void stop() {
+        if (writer != null) {
+            ExecutorService executor = writer;
+            writer = null;
+            try {
+                executor.execute(this::closeAll);
+            } catch (RejectedExecutionException ignored) {
+            }
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Ouvre un flux SSE pour cette requête (la réponse reste ouverte après le retour du handler)
+     */
+    public void open(HttpExchange exchange) throws IOException {
+        ExecutorService executor = writer;
+        if (executor == null || clientCount.get() >= maxClients) {
+            exchange.getResponseHeaders().set("Retry-After", "5");
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+
+        ChatFeed.Filter filter = ChatFeed.Filter.parse(ChatFeed.parseQuery(exchange.getRequestURI().getRawQuery()));
+        long since = feed.getLastSeq() - history;
+        String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        if (lastEventId != null) {
+            try {
+                // Identifiant d'un autre démarrage (reload, redémarrage): tout le buffer actuel est nouveau
+                since = feed.resolveSince(Long.parseLong(lastEventId.trim()));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("X-Accel-Buffering", "no");
+        exchange.sendResponseHeaders(200, 0);
+
+        clientCount.incrementAndGet();
+        long from = since;
+        try {
+            // Le rattrapage passe par le thread d'écriture: aucun nouveau message ne peut le doubler
+            executor.execute(() -> register(new Client(exchange, filter), from));
+        } catch (RejectedExecutionException e) {
+            clientCount.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    public int getClientCount() {
+        return clientCount.get();
+    }
+
+    // ==================== Thread principal ====================
+
+    /**
+     * Nouveau message ajouté au buffer
+     */
+    void publish(ChatFeed.Entry entry) {
+        if (clientCount.get() == 0) return;
+
+        lastEventMillis = System.currentTimeMillis();
+        submit(() -> writeAll(entry));
+    }
+
+    /**
+     * Heartbeat si aucun message depuis trop longtemps
+     */
+    public void idle() {
+        if (clientCount.get() == 0) return;
+
+        long now = System.currentTimeMillis();
+        if (now - lastEventMillis >= heartbeatMillis) {
+            lastEventMillis = now;
+            submit(this::heartbeat);
+        }
+    }
+
+    private void submit(Runnable task) {
+        ExecutorService executor = writer;
+        if (executor == null) return;
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ignored) {
+        }
+    }
+
+    // ==================== Thread d'écriture ====================
+
+    private void register(Client client, long since) {
+        if (!write(client.exchange, StatsStream.RETRY)) {
+            clientCount.decrementAndGet();
+            return;
+        }
+
+        // Rattrapage depuis le buffer; un message déjà envoyé ici est ignoré par writeAll (lastSeq)
+        boolean[] alive = {true};
+        client.lastSeq = since;
+        feed.forEachSince(since, client.filter, entry -> {
+            if (alive[0]) {
+                alive[0] = write(client.exchange, event(entry));
+                client.lastSeq = entry.seq;
+            }
+        });
+
+        if (alive[0]) {
+            clients.add(client);
+        } else {
+            clientCount.decrementAndGet();
+        }
+    }
+
+    private void writeAll(ChatFeed.Entry entry) {
+        byte[] event = null;
+        Iterator<Client> it = clients.iterator();
+        while (it.hasNext()) {
+            Client client = it.next();
+            if (entry.seq <= client.lastSeq || !client.filter.matches(entry.message)) continue;
+
+            if (event == null) {
+                event = event(entry); // Encodé une seule fois pour tous les clients
+            }
+            client.lastSeq = entry.seq;
+            if (!write(client.exchange, event)) {
+                it.remove();
+                clientCount.decrementAndGet();
+            }
+        }
+    }
+
+    private void heartbeat() {
+        Iterator<Client> it = clients.iterator();
+        while (it.hasNext()) {
+            if (!write(it.next().exchange, StatsStream.HEARTBEAT)) {
+                it.remove();
+                clientCount.decrementAndGet();
+            }
+        }
+    }
+
+    private boolean write(HttpExchange exchange, byte[] data) {
+        try {
+            OutputStream os = exchange.getResponseBody();
+            os.write(data);
+            os.flush();
+            return true;
+        } catch (IOException e) {
+            exchange.close();
+            return false;
+        }
+    }
+
+    private void closeAll() {
+        for (Client client : clients) {
+            client.exchange.close();
+        }
+        clientCount.addAndGet(-clients.size());
+        clients.clear();
+    }
+
+    private static byte[] event(ChatFeed.Entry entry) {
+        return StatsStream.format("chat", entry.seq, entry.json());
+    }
+}
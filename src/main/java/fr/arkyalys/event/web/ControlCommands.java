@@ -0,0 +1,93 @@
+package fr.arkyalys.event.web;
+
+import com.google.gson.JsonObject;
+import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.game.GameEvent;
+import fr.arkyalys.event.game.GameManager;
+import fr.arkyalys.event.youtube.models.ChatMessage;
+
+/**
+ * Actions du canal "control" du WebSocket (stream deck, outils de stream)
+ *
+ * Exécutées sur le thread principal. Chaque action renvoie un message de résultat
+ * ou lève IllegalArgumentException / IllegalStateException.
+ *
+ * {"op":"control","action":"start","game":"tntlive"}
+ * {"op":"control","action":"begin"} / {"op":"control","action":"stop"}
+ * {"op":"control","action":"test","event":"superchat|supersticker|member|like|message"}
+ */
+class ControlCommands {
+
+    private final YouTubeEventPlugin plugin;
+
+    ControlCommands(YouTubeEventPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    String execute(JsonObject request) {
+        String action = string(request, "action", "");
+        GameManager games = plugin.getGameManager();
+
+        return switch (action) {
+            case "start" -> {
+                String name = string(request, "game", "");
+                GameEvent game = games.getGame(name);
+                if (game == null) {
+                    throw new IllegalArgumentException("Event inconnu: " + name);
+                }
+                if (!games.startGame(name)) {
+                    throw new IllegalStateException("Impossible d'ouvrir " + name + " (un event est deja en cours ?)");
+                }
+                yield "Event " + game.getDisplayName() + " ouvert";
+            }
+            case "begin" -> {
+                if (!games.beginGame()) {
+                    throw new IllegalStateException("Aucun event ouvert a lancer");
+                }
+                yield "Event lance";
+            }
+            case "stop" -> {
+                if (games.getCurrentGame() == null) {
+                    throw new IllegalStateException("Aucun event en cours");
+                }
+                games.stopGame();
+                yield "Event arrete";
+            }
+            case "test" -> test(string(request, "event", "message"), request);
+            default -> throw new IllegalArgumentException("Action inconnue: " + action);
+        };
+    }
+
+    /**
+     * Simule un evenement YouTube (equivalent de /youtube test, sans joueur cible impose)
+     */
+    private String test(String event, JsonObject request) {
+        long now = System.currentTimeMillis();
+        String author = string(request, "author", "TestViewer");
+
+        switch (event) {
+            case "superchat" -> plugin.getEventManager().handleMessage(ChatMessage.superChat(
+                    "test-" + now, "test-channel", author, "",
+                    string(request, "message", "Super Chat de test!"), now,
+                    "10,00 €", 10_000_000L, "EUR", false, false, true));
+            case "supersticker" -> plugin.getEventManager().handleMessage(ChatMessage.superSticker(
+                    "test-" + now, "test-channel", author, "", now,
+                    "5,00 €", 5_000_000L, "EUR", false, false, true));
+            case "member" -> plugin.getEventManager().handleMessage(ChatMessage.newMember(
+                    "test-" + now, "test-channel", author, "", now, false, false, true));
+            case "like" -> {
+                long likes = request.has("count") ? request.get("count").getAsLong() : 1;
+                plugin.getEventManager().handleLike(likes, likes);
+            }
+            case "message" -> plugin.getEventManager().handleMessage(ChatMessage.normalMessage(
+                    "test-" + now, "test-channel", author, "",
+                    string(request, "message", "Message de test!"), now, false, false, false));
+            default -> throw new IllegalArgumentException("Evenement de test inconnu: " + event);
+        }
+        return "Evenement simule: " + event;
+    }
+
+    private static String string(JsonObject object, String key, String def) {
+        return object.has(key) && object.get(key).isJsonPrimitive() ? object.get(key).getAsString() : def;
+    }
+}
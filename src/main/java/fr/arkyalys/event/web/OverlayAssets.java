@@ -0,0 +1,191 @@
+package fr.arkyalys.event.web;
+
+import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.util.PlaceholderTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Fichiers statiques des overlays (HTML, JS, CSS, images), préparés une seule fois
+ *
+ * - fichiers intégrés au plugin (ressources overlay/)
+ * - thème personnalisé: plugins/YouTubeEvent/overlay/<theme>/ remplace ou complète les fichiers intégrés
+ * - chaque fichier est gardé en mémoire en version brute et gzip, avec son ETag
+ * - %port% et %ws_port% sont remplacés dans les fichiers HTML et JS
+ *
+ * L'instance est immuable: un reload en construit une nouvelle puis la publie d'un coup.
+ */
+public final class OverlayAssets {
+
+    /**
+     * Fichiers fournis avec le plugin
+     */
+    private static final List<String> BUILT_IN = List.of(
+            "index.html", "likes.html", "kills.html", "stats.html", "milestone.html", "participants.html", "chat.html",
+            "stream.js", "socket.js"
+    );
+
+    private static final long MAX_FILE_SIZE = 2 * 1024 * 1024;
+    private static final int MIN_GZIP_SIZE = 256;
+
+    /**
+     * Fichier prêt à être envoyé
+     */
+    public record Asset(String name, String contentType, byte[] identity, byte[] gzip, String etag) {
+
+        public boolean hasGzip() {
+            return gzip != null;
+        }
+    }
+
+    private final Map<String, Asset> assets;
+    private final String theme;
+    private final int themeFileCount;
+
+    private OverlayAssets(Map<String, Asset> assets, String theme, int themeFileCount) {
+        this.assets = assets;
+        this.theme = theme;
+        this.themeFileCount = themeFileCount;
+    }
+
+    /**
+     * Charge les fichiers intégrés puis ceux du thème
+     */
+    public static OverlayAssets load(YouTubeEventPlugin plugin, String theme, int port, int socketPort) {
+        PlaceholderTemplate.Resolver resolver = name -> switch (name) {
+            case "port" -> String.valueOf(port);
+            case "ws_port" -> String.valueOf(socketPort);
+            default -> null;
+        };
+        Map<String, Asset> assets = new HashMap<>();
+
+        for (String name : BUILT_IN) {
+            try (InputStream in = plugin.getResource("overlay/" + name)) {
+                if (in == null) {
+                    plugin.getLogger().warning("Fichier overlay manquant dans le plugin: " + name);
+                    continue;
+                }
+                assets.put(name, prepare(name, in.readAllBytes(), resolver));
+            } catch (IOException e) {
+                plugin.getLogger().warning("Lecture impossible de l'overlay " + name + ": " + e.getMessage());
+            }
+        }
+
+        int themeFiles = 0;
+        File themeFolder = new File(new File(plugin.getDataFolder(), "overlay"), theme);
+        File[] files = themeFolder.listFiles(File::isFile);
+        if (files != null) {
+            for (File file : files) {
+                if (file.length() > MAX_FILE_SIZE) {
+                    plugin.getLogger().warning("Fichier de theme ignore (trop gros): " + file.getName());
+                    continue;
+                }
+                try {
+                    assets.put(file.getName(), prepare(file.getName(), Files.readAllBytes(file.toPath()), resolver));
+                    themeFiles++;
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Lecture impossible du fichier de theme " + file.getName() + ": " + e.getMessage());
+                }
+            }
+        } else if (!"default".equals(theme)) {
+            plugin.getLogger().warning("Theme overlay introuvable: " + themeFolder.getPath());
+        }
+
+        return new OverlayAssets(assets, theme, themeFiles);
+    }
+
+    /**
+     * Fichier par nom (ex: "likes.html"), null s'il n'existe pas
+     */
+    public Asset get(String name) {
+        return assets.get(name);
+    }
+
+    public String getTheme() {
+        return theme;
+    }
+
+    public int getThemeFileCount() {
+        return themeFileCount;
+    }
+
+    public int size() {
+        return assets.size();
+    }
+
+    // ==================== Préparation ====================
+
+    private static Asset prepare(String name, byte[] content, PlaceholderTemplate.Resolver resolver) throws IOException {
+        String contentType = contentType(name);
+
+        if (contentType.startsWith("text/html") || contentType.startsWith("application/javascript")) {
+            String text = new String(content, StandardCharsets.UTF_8);
+            content = PlaceholderTemplate.compile(text).render(resolver).getBytes(StandardCharsets.UTF_8);
+        }
+
+        byte[] gzip = null;
+        if (isCompressible(contentType) && content.length >= MIN_GZIP_SIZE) {
+            byte[] compressed = gzip(content);
+            if (compressed.length < content.length) {
+                gzip = compressed;
+            }
+        }
+
+        return new Asset(name, contentType, content, gzip, etag(content));
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 12) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            return "\"" + Integer.toHexString(Arrays.hashCode(content)) + "\"";
+        }
+    }
+
+    private static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.startsWith("application/javascript")
+                || contentType.startsWith("application/json") || contentType.startsWith("image/svg+xml");
+    }
+
+    private static String contentType(String name) {
+        String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return switch (extension) {
+            case "html", "htm" -> "text/html; charset=UTF-8";
+            case "js" -> "application/javascript; charset=UTF-8";
+            case "css" -> "text/css; charset=UTF-8";
+            case "json" -> "application/json; charset=UTF-8";
+            case "svg" -> "image/svg+xml";
+            case "png" -> "image/png";
+            case "jpg", "jpeg" -> "image/jpeg";
+            case "gif" -> "image/gif";
+            case "webp" -> "image/webp";
+            case "woff2" -> "font/woff2";
+            case "mp3" -> "audio/mpeg";
+            case "ogg" -> "audio/ogg";
+            default -> "application/octet-stream";
+        };
+    }
+}
@@ -0,0 +1,451 @@
+package fr.arkyalys.event.web;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import fr.arkyalys.event.YouTubeEventPlugin;
+import org.bukkit.Bukkit;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Serveur WebSocket des overlays (ws://IP:port/ws), sur son propre port
+ *
+ * Un client s'abonne à des canaux: {"op":"subscribe","channels":["stats","chat"]}
+ * - stats: état complet à l'abonnement puis changements uniquement
+ * - chat: messages du live / superchat: Super Chats et Super Stickers / milestone: paliers atteints
+ * - control: actions (start/stop d'event, triggers de test) après {"op":"auth","token":"..."}
+ *
+ * Messages sortants en JSON compact: {"ch":"stats","type":"delta","data":{...}}
+ * Chaque publication est sérialisée et encodée en trame une seule fois, puis déposée dans la file
+ * de chaque abonné. Un thread virtuel par client lit, un autre écrit: un client lent remplit
+ * sa propre file (et se fait déconnecter) sans ralentir les autres.
+ */
+public class OverlaySocketServer {
+
+    /**
+     * Canaux disponibles
+     */
+    public enum Channel {
+        STATS, CHAT, SUPERCHAT, MILESTONE, CONTROL;
+
+        final int bit = 1 << ordinal();
+
+        static Channel parse(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final int MAX_MESSAGE_BYTES = 16 * 1024;
+    private static final int OUTBOX_SIZE = 256;
+    private static final long PING_INTERVAL_SECONDS = 30;
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 10_000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 1_000;
+    private static final byte[] PING = WebSocketCodec.frame(WebSocketCodec.OP_PING, new byte[0]);
+
+    private final YouTubeEventPlugin plugin;
+    private final Supplier<StatsSnapshot> snapshots;
+    private final ControlCommands control;
+    private final Gson gson = new Gson();
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+    private ServerSocket serverSocket;
+    private ScheduledExecutorService pinger;
+    private volatile boolean running = false;
+    private int maxClients;
+    private byte[] controlToken;
+
+    public OverlaySocketServer(YouTubeEventPlugin plugin, Supplier<StatsSnapshot> snapshots) {
+        this.plugin = plugin;
+        this.snapshots = snapshots;
+        this.control = new ControlCommands(plugin);
+    }
+
+    /**
+     * Démarre l'écoute (thread d'acceptation dédié, un thread virtuel par client)
+     */
+    public void start(int port, int maxClients, String token) throws IOException {
+        stop();
+
+        this.maxClients = maxClients;
+        this.controlToken = token == null || token.isEmpty() ? null : token.getBytes(StandardCharsets.UTF_8);
+
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(port));
+        running = true;
+
+        ServerSocket listening = serverSocket;
+        Thread acceptor = new Thread(() -> acceptLoop(listening), "YouTubeEvent-WebSocket");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        pinger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "YouTubeEvent-WebSocket-Ping");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pinger.scheduleAtFixedRate(() -> broadcastAll(PING), PING_INTERVAL_SECONDS, PING_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Ferme toutes les connexions et arrête l'écoute
+     */
+    public void stop() {
+        running = false;
+        if (pinger != null) {
+            pinger.shutdownNow();
+            pinger = null;
+        }
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException ignored) {
+            }
+            serverSocket = null;
+        }
+        // Trame de fermeture 1001 envoyée par le thread d'écriture de chaque client avant de couper
+        List<Connection> closing = new ArrayList<>(connections);
+        connections.clear();
+        for (Connection connection : closing) {
+            connection.send(WebSocketCodec.close(1001));
+            connection.closeAfterFlush();
+        }
+        if (!closing.isEmpty()) {
+            // Clients qui ne lisent plus (écriture bloquée): coupés après un court délai
+            Thread.ofVirtual().name("YouTubeEvent-WebSocket-Close").start(() -> {
+                try {
+                    Thread.sleep(CLOSE_TIMEOUT_MILLIS);
+                } catch (InterruptedException ignored) {
+                }
+                closing.forEach(Connection::close);
+            });
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getClientCount() {
+        return connections.size();
+    }
+
+    /**
+     * Au moins un client est-il abonné à ce canal ? (évite de sérialiser pour personne)
+     */
+    public boolean hasSubscribers(Channel channel) {
+        for (Connection connection : connections) {
+            if ((connection.subscriptions & channel.bit) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Publie un message sur un canal (sérialisé une seule fois pour tous les abonnés)
+     */
+    public void publish(Channel channel, String type, Object data) {
+        if (!hasSubscribers(channel)) return;
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("ch", channel.name().toLowerCase(Locale.ROOT));
+        message.put("type", type);
+        message.put("data", data);
+        byte[] frame = WebSocketCodec.text(gson.toJson(message));
+
+        for (Connection connection : connections) {
+            if ((connection.subscriptions & channel.bit) != 0) {
+                connection.send(frame);
+            }
+        }
+    }
+
+    private void broadcastAll(byte[] frame) {
+        for (Connection connection : connections) {
+            connection.send(frame);
+        }
+    }
+
+    // ==================== Connexions ====================
+
+    private void acceptLoop(ServerSocket listening) {
+        while (running && !listening.isClosed()) {
+            try {
+                Socket socket = listening.accept();
+                Thread.ofVirtual().name("YouTubeEvent-WebSocket-Client").start(() -> serve(socket));
+            } catch (IOException e) {
+                if (running) {
+                    plugin.getLogger().warning("WebSocket: erreur d'acceptation: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Connection connection = null;
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+
+            WebSocketCodec.Handshake handshake = WebSocketCodec.readHandshake(in);
+            if (!handshake.isUpgrade() || !"/ws".equals(handshake.path())) {
+                out.write(WebSocketCodec.errorResponse(400, "Bad Request"));
+                return;
+            }
+            if (connections.size() >= maxClients) {
+                out.write(WebSocketCodec.errorResponse(503, "Service Unavailable"));
+                return;
+            }
+
+            out.write(WebSocketCodec.acceptResponse(handshake.headers().get("sec-websocket-key")));
+            out.flush();
+            // Le serveur envoie un ping toutes les 30s: un client muet au-delà est considéré parti
+            socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(PING_INTERVAL_SECONDS * 3));
+
+            connection = new Connection(socket, out);
+            connections.add(connection);
+            Thread.ofVirtual().name("YouTubeEvent-WebSocket-Writer").start(connection::writeLoop);
+
+            readLoop(connection, in);
+        } catch (SocketTimeoutException e) {
+            // Client inactif
+        } catch (IOException e) {
+            // Client déconnecté ou trame invalide
+        } finally {
+            if (connection == null) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+            } else {
+                connections.remove(connection);
+                if (!connection.closing) {
+                    connection.close(); // Sinon le thread d'écriture ferme après avoir envoyé la trame de fermeture
+                }
+            }
+        }
+    }
+
+    private void readLoop(Connection connection, InputStream in) throws IOException {
+        while (running && connection.open) {
+            WebSocketCodec.Message message = WebSocketCodec.read(in, MAX_MESSAGE_BYTES);
+            switch (message.opcode()) {
+                case WebSocketCodec.OP_TEXT -> handleMessage(connection, message.text());
+                case WebSocketCodec.OP_PING -> connection.send(WebSocketCodec.frame(WebSocketCodec.OP_PONG, message.payload()));
+                case WebSocketCodec.OP_CLOSE -> {
+                    connection.send(WebSocketCodec.close(1000));
+                    connection.closeAfterFlush();
+                    return;
+                }
+                case WebSocketCodec.OP_PONG -> {
+                }
+                default -> {
+                    connection.send(WebSocketCodec.close(1003));
+                    connection.closeAfterFlush();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handleMessage(Connection connection, String text) {
+        try {
+            JsonElement element = JsonParser.parseString(text);
+            if (!element.isJsonObject()) {
+                reply(connection, "error", Map.of("message", "JSON invalide"));
+                return;
+            }
+            handleRequest(connection, element.getAsJsonObject());
+        } catch (RuntimeException e) {
+            reply(connection, "error", Map.of("message", "Requete invalide"));
+        }
+    }
+
+    private void handleRequest(Connection connection, JsonObject request) {
+        String op = request.has("op") ? request.get("op").getAsString() : "";
+        switch (op) {
+            case "subscribe" -> subscribe(connection, request, true);
+            case "unsubscribe" -> subscribe(connection, request, false);
+            case "auth" -> {
+                byte[] token = request.has("token") ? request.get("token").getAsString().getBytes(StandardCharsets.UTF_8) : new byte[0];
+                connection.authenticated = controlToken != null && MessageDigest.isEqual(controlToken, token);
+                reply(connection, "auth", Map.of("ok", connection.authenticated));
+            }
+            case "control" -> {
+                if (!connection.authenticated) {
+                    reply(connection, "error", Map.of("message", "Non authentifie"));
+                    return;
+                }
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    try {
+                        result.put("ok", true);
+                        result.put("message", control.execute(request));
+                    } catch (RuntimeException e) {
+                        result.put("ok", false);
+                        result.put("message", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                    }
+                    if (request.has("id")) {
+                        result.put("id", request.get("id").getAsString());
+                    }
+                    sendTo(connection, Channel.CONTROL, "result", result);
+                });
+            }
+            default -> reply(connection, "error", Map.of("message", "Operation inconnue: " + op));
+        }
+    }
+
+    private void subscribe(Connection connection, JsonObject request, boolean add) {
+        JsonArray channels = request.has("channels") && request.get("channels").isJsonArray()
+                ? request.getAsJsonArray("channels") : new JsonArray();
+
+        for (JsonElement element : channels) {
+            Channel channel = Channel.parse(element.getAsString());
+            if (channel == null) continue;
+            if (channel == Channel.CONTROL && !connection.authenticated) {
+                reply(connection, "error", Map.of("message", "Canal control: authentification requise"));
+                continue;
+            }
+
+            if (add) {
+                boolean already = (connection.subscriptions & channel.bit) != 0;
+                connection.subscriptions |= channel.bit;
+                if (channel == Channel.STATS && !already) {
+                    sendFullStats(connection);
+                }
+            } else {
+                connection.subscriptions &= ~channel.bit;
+            }
+        }
+
+        reply(connection, "subscribed", Map.of("channels", subscribedNames(connection)));
+    }
+
+    /**
+     * État complet des stats: réutilise le JSON déjà sérialisé du snapshot
+     */
+    private void sendFullStats(Connection connection) {
+        StatsSnapshot snapshot = snapshots.get();
+        if (snapshot == null) return;
+
+        String json = "{\"ch\":\"stats\",\"type\":\"full\",\"version\":" + snapshot.getVersion() +
+                ",\"data\":" + new String(snapshot.getStatsJson(), StandardCharsets.UTF_8) + "}";
+        connection.send(WebSocketCodec.text(json));
+    }
+
+    private List<String> subscribedNames(Connection connection) {
+        return Arrays.stream(Channel.values())
+                .filter(channel -> (connection.subscriptions & channel.bit) != 0)
+                .map(channel -> channel.name().toLowerCase(Locale.ROOT))
+                .toList();
+    }
+
+    private void reply(Connection connection, String type, Object data) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("ch", "system");
+        message.put("type", type);
+        message.put("data", data);
+        connection.send(WebSocketCodec.text(gson.toJson(message)));
+    }
+
+    private void sendTo(Connection connection, Channel channel, String type, Object data) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("ch", channel.name().toLowerCase(Locale.ROOT));
+        message.put("type", type);
+        message.put("data", data);
+        connection.send(WebSocketCodec.text(gson.toJson(message)));
+    }
+
+    /**
+     * Client connecté: file d'envoi bornée vidée par son propre thread d'écriture
+     */
+    private static final class Connection {
+
+        private final Socket socket;
+        private final OutputStream out;
+        private final BlockingQueue<byte[]> outbox = new ArrayBlockingQueue<>(OUTBOX_SIZE);
+        volatile int subscriptions = 0;
+        volatile boolean authenticated = false;
+        volatile boolean open = true;
+        volatile boolean closing = false;
+
+        Connection(Socket socket, OutputStream out) {
+            this.socket = socket;
+            this.out = out;
+        }
+
+        void send(byte[] frame) {
+            if (!open || closing) return;
+            if (!outbox.offer(frame)) {
+                close(); // Client trop lent: on coupe plutôt que de retenir la mémoire
+            }
+        }
+
+        void writeLoop() {
+            try {
+                while (open) {
+                    byte[] frame = outbox.poll(1, TimeUnit.SECONDS);
+                    if (frame == null) {
+                        if (closing) break;
+                        continue;
+                    }
+                    out.write(frame);
+                    // Vider ce qui est déjà en attente avant un seul flush
+                    while ((frame = outbox.poll()) != null) {
+                        out.write(frame);
+                    }
+                    out.flush();
+                    if (closing && outbox.isEmpty()) break;
+                }
+            } catch (IOException | InterruptedException e) {
+                // Connexion fermée
+            } finally {
+                close();
+            }
+        }
+
+        void closeAfterFlush() {
+            closing = true;
+        }
+
+        void close() {
+            if (!open) return;
+            open = false;
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package fr.arkyalys.event.web;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
@@ -9,14 +8,23 @@ import fr.arkyalys.event.YouTubeEventPlugin;
 import fr.arkyalys.event.game.GameEvent;
 import fr.arkyalys.event.game.GameState;
 import fr.arkyalys.event.game.games.TNTLiveGame;
+import fr.arkyalys.event.youtube.models.ChatMessage;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Serveur web intégré pour les overlays OBS
@@ -26,7 +34,20 @@ public class OverlayWebServer {
 
     private final YouTubeEventPlugin plugin;
     private final Gson gson;
+    private final StatsStream stream;
+    private final ChatStream chatStream = new ChatStream();
+    private final OverlaySocketServer socketServer;
+    private final WebMetrics metrics;
     private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService watchdog;
+    private RequestFilter.Limits limits;
+    private long drainMillis;
+    private BukkitTask refreshTask;
+    private volatile StatsSnapshot snapshot;
+    private volatile ChatFeed chatFeed = new ChatFeed(256);
+    private volatile OverlayAssets assets;
+    private volatile String assetCacheControl = "public, max-age=60";
     private int port;
     private boolean running = false;
 
@@ -36,7 +57,17 @@ public class OverlayWebServer {
 
     public OverlayWebServer(YouTubeEventPlugin plugin) {
         this.plugin = plugin;
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.gson = new Gson();
+        this.stream = new StatsStream(() -> snapshot);
+        this.socketServer = new OverlaySocketServer(plugin, () -> snapshot);
+        this.metrics = new WebMetrics(plugin.getMetrics());
+
+        plugin.getMetrics().gauge("youtubeevent_web_requests_in_flight",
+                "Requetes en cours de traitement", this::getInFlightRequests);
+        plugin.getMetrics().gauge("youtubeevent_web_stream_clients",
+                "Overlays connectes aux flux SSE", this::getStreamClientCount);
+        plugin.getMetrics().gauge("youtubeevent_web_socket_clients",
+                "Clients WebSocket connectes", this::getSocketClientCount);
     }
 
     /**
@@ -48,46 +79,128 @@ public class OverlayWebServer {
         }
 
         this.port = port;
+        reloadAssets();
+
+        FileConfiguration config = plugin.getConfig();
+        drainMillis = Math.max(config.getLong("web-server.drain-seconds", 2), 0) * 1000L;
 
         try {
-            server = HttpServer.create(new InetSocketAddress(port), 0);
-            server.setExecutor(Executors.newFixedThreadPool(4));
+            server = HttpServer.create(new InetSocketAddress(port), Math.max(config.getInt("web-server.backlog", 64), 1));
+
+            // Un thread virtuel par requête: un client lent ne bloque plus les autres
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("YouTubeEvent-Web-", 0).factory());
+            server.setExecutor(executor);
+
+            watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "YouTubeEvent-Web-Watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            limits = new RequestFilter.Limits(
+                    Math.max(config.getInt("web-server.max-concurrent-requests", 64), 1),
+                    Math.max(config.getLong("web-server.request-timeout-seconds", 10), 1) * 1000L,
+                    watchdog, metrics);
 
             // Endpoints API JSON
-            server.createContext("/api/stats", new StatsJsonHandler());
-            server.createContext("/api/likes", new LikesJsonHandler());
-            server.createContext("/api/kills", new KillsJsonHandler());
+            context("/api/stats", new StatsJsonHandler());
+            context("/api/likes", new LikesJsonHandler());
+            context("/api/kills", new KillsJsonHandler());
+            context("/api/stream", new StreamHandler());
+            context("/api/chat", new ChatJsonHandler());
+            context("/api/chat/stream", new ChatStreamHandler());
+            if (config.getBoolean("web-server.metrics", true)) {
+                context("/metrics", new MetricsHandler());
+            }
+
+            // Overlays HTML (+ fichiers du thème) et page d'accueil
+            AssetHandler assetHandler = new AssetHandler();
+            context("/overlay/", assetHandler);
+            context("/", assetHandler);
 
-            // Endpoints Overlays HTML
-            server.createContext("/overlay/likes", new LikesOverlayHandler());
-            server.createContext("/overlay/kills", new KillsOverlayHandler());
-            server.createContext("/overlay/stats", new StatsOverlayHandler());
-            server.createContext("/overlay/milestone", new MilestoneOverlayHandler());
-            server.createContext("/overlay/participants", new ParticipantsOverlayHandler());
+            // Premier état publié avant d'accepter des requêtes, puis détection des changements
+            snapshot = StatsSnapshot.initial(getGameStats(), gson);
+            int refreshTicks = Math.max(plugin.getConfig().getInt("web-server.refresh-ticks", 2), 1);
+            refreshTask = Bukkit.getScheduler().runTaskTimer(plugin, this::refresh, refreshTicks, refreshTicks);
+            stream.start(config.getInt("web-server.stream.heartbeat-seconds", 15),
+                    Math.max(config.getInt("web-server.stream.max-clients", 32), 1));
 
-            // Page d'accueil
-            server.createContext("/", new IndexHandler());
+            // Buffer du chat: taille fixe, les plus anciens messages sont écrasés
+            chatFeed = new ChatFeed(Math.max(config.getInt("web-server.chat.capacity", 256), 16));
+            chatStream.start(chatFeed, config.getInt("web-server.chat.history", 20),
+                    config.getInt("web-server.stream.heartbeat-seconds", 15),
+                    Math.max(config.getInt("web-server.stream.max-clients", 32), 1));
 
             server.start();
             running = true;
             plugin.getLogger().info("Serveur web overlay demarre sur le port " + port);
             plugin.getLogger().info("Acces: http://localhost:" + port + "/");
 
+            startWebSocket(config);
+
         } catch (IOException e) {
             plugin.getLogger().severe("Impossible de demarrer le serveur web: " + e.getMessage());
+            shutdownExecutors();
         }
     }
 
+    /**
+     * Serveur WebSocket (port séparé): une erreur ici ne bloque pas les overlays HTTP
+     */
+    private void startWebSocket(FileConfiguration config) {
+        if (!config.getBoolean("web-server.websocket.enabled", true)) return;
+
+        int wsPort = config.getInt("web-server.websocket.port", 8086);
+        try {
+            socketServer.start(wsPort,
+                    Math.max(config.getInt("web-server.websocket.max-clients", 32), 1),
+                    config.getString("web-server.websocket.control-token", ""));
+            plugin.getLogger().info("WebSocket overlay: ws://localhost:" + wsPort + "/ws");
+        } catch (IOException e) {
+            plugin.getLogger().severe("Impossible de demarrer le WebSocket sur le port " + wsPort + ": " + e.getMessage());
+        }
+    }
+
+    private void context(String path, HttpHandler handler) {
+        server.createContext(path, handler).getFilters().add(new RequestFilter(limits, path));
+    }
+
     /**
      * Arrête le serveur web
      */
     public void stop() {
+        if (refreshTask != null) {
+            refreshTask.cancel();
+            refreshTask = null;
+        }
+        stream.stop();
+        chatStream.stop();
+        socketServer.stop();
         if (server != null) {
+            // Refuser les nouvelles requêtes et laisser finir celles en cours
+            limits.draining = true;
+            try {
+                limits.permits.tryAcquire(limits.maxConcurrent, drainMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
             server.stop(0);
             server = null;
             running = false;
             plugin.getLogger().info("Serveur web overlay arrete");
         }
+        shutdownExecutors();
+    }
+
+    private void shutdownExecutors() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+            watchdog = null;
+        }
     }
 
     public boolean isRunning() {
@@ -98,8 +211,120 @@ public class OverlayWebServer {
         return port;
     }
 
+    public WebMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Requêtes en cours de traitement
+     */
+    public int getInFlightRequests() {
+        RequestFilter.Limits current = limits;
+        return current != null && running ? current.inFlight() : 0;
+    }
+
+    /**
+     * Nombre de clients WebSocket connectés
+     */
+    public int getSocketClientCount() {
+        return socketServer.getClientCount();
+    }
+
+    /**
+     * Nouveau message du live (thread principal): buffer du chat, flux SSE et canaux du WebSocket
+     */
+    public void onChatMessage(ChatMessage message) {
+        if (!running) return;
+
+        chatStream.publish(chatFeed.append(message));
+
+        boolean chat = socketServer.hasSubscribers(OverlaySocketServer.Channel.CHAT);
+        boolean alert = (message.isSuperChat() || message.isSuperSticker())
+                && socketServer.hasSubscribers(OverlaySocketServer.Channel.SUPERCHAT);
+        if (!chat && !alert) return;
+
+        Map<String, Object> data = ChatFeed.payload(message);
+        if (chat) {
+            socketServer.publish(OverlaySocketServer.Channel.CHAT, "message", data);
+        }
+        if (alert) {
+            socketServer.publish(OverlaySocketServer.Channel.SUPERCHAT, message.getType().name().toLowerCase(Locale.ROOT), data);
+        }
+    }
+
+    /**
+     * Nombre d'overlays connectés aux flux SSE (stats et chat)
+     */
+    public int getStreamClientCount() {
+        return stream.getClientCount() + chatStream.getClientCount();
+    }
+
+    public ChatFeed getChatFeed() {
+        return chatFeed;
+    }
+
+    /**
+     * Recharge les fichiers des overlays (thème compris) et les publie d'un coup
+     */
+    public void reloadAssets() {
+        String theme = plugin.getConfig().getString("web-server.theme", "default");
+        assets = OverlayAssets.load(plugin, theme, port, plugin.getConfig().getInt("web-server.websocket.port", 8086));
+        assetCacheControl = "public, max-age=" + Math.max(plugin.getConfig().getInt("web-server.assets-cache-seconds", 60), 0);
+    }
+
+    public OverlayAssets getAssets() {
+        return assets;
+    }
+
+    /**
+     * Version des stats actuellement publiée
+     */
+    public long getStatsVersion() {
+        StatsSnapshot current = snapshot;
+        return current != null ? current.getVersion() : 0;
+    }
+
     // ==================== HELPERS ====================
 
+    /**
+     * Relit l'état du jeu (thread principal) et publie un nouveau snapshot uniquement s'il a changé
+     */
+    private void refresh() {
+        StatsSnapshot previous = snapshot;
+        GameStats current = getGameStats();
+
+        Map<String, Object> delta = current.diff(previous.getStats());
+        chatStream.idle();
+        if (delta.isEmpty()) {
+            stream.idle();
+            return;
+        }
+
+        StatsSnapshot next = previous.next(current, gson);
+        snapshot = next;
+        stream.publish(next, delta);
+        socketServer.publish(OverlaySocketServer.Channel.STATS, "delta", delta);
+
+        GameStats before = previous.getStats();
+        if (current.likesNext > before.likesNext && current.likes >= before.likesNext) {
+            publishMilestone("likes", before.likesNext, current.likes);
+        }
+        if (current.killsNext > before.killsNext && current.kills >= before.killsNext) {
+            publishMilestone("kills", before.killsNext, current.kills);
+        }
+    }
+
+    private void publishMilestone(String type, int reached, int value) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("type", type);
+        data.put("milestone", reached);
+        data.put("value", value);
+        socketServer.publish(OverlaySocketServer.Channel.MILESTONE, "reached", data);
+    }
+
+    /**
+     * Lit l'état du jeu (thread principal uniquement, les handlers HTTP utilisent le snapshot)
+     */
     private GameStats getGameStats() {
         GameStats stats = new GameStats();
 
@@ -158,6 +383,65 @@ public class OverlayWebServer {
         return 100;
     }
 
+    /**
+     * Renvoie un corps JSON pré-sérialisé, ou 304 si le client a déjà cette version
+     */
+    private void sendSnapshot(HttpExchange exchange, StatsSnapshot current, byte[] json) throws IOException {
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("ETag", current.getETag());
+
+        if (current.getETag().equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, json.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(json);
+        }
+    }
+
+    /**
+     * Renvoie un fichier pré-encodé: 304 si l'ETag correspond, gzip si le client l'accepte
+     */
+    private void sendAsset(HttpExchange exchange, OverlayAssets.Asset asset) throws IOException {
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("Cache-Control", assetCacheControl);
+        exchange.getResponseHeaders().set("ETag", asset.etag());
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+
+        if (asset.etag().equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = asset.identity();
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (asset.hasGzip() && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            body = asset.gzip();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", asset.contentType());
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static long parseLong(String value, long def) {
+        if (value == null) return def;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
     private void sendResponse(HttpExchange exchange, int code, String contentType, String response) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=UTF-8");
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
@@ -190,6 +474,48 @@ public class OverlayWebServer {
         public int participants = 0;
         public int participantsTotal = 0;
         public int arrowsGiven = 0;
+
+        /**
+         * Champs modifiés depuis un état précédent (nom JSON -> nouvelle valeur)
+         */
+        public Map<String, Object> diff(GameStats previous) {
+            Map<String, Object> delta = new LinkedHashMap<>();
+            put(delta, "active", active, previous.active);
+            put(delta, "gameName", gameName, previous.gameName);
+            put(delta, "gameId", gameId, previous.gameId);
+            put(delta, "status", status, previous.status);
+            put(delta, "streamer", streamer, previous.streamer);
+            put(delta, "likes", likes, previous.likes);
+            put(delta, "likesNext", likesNext, previous.likesNext);
+            put(delta, "likesRemaining", likesRemaining, previous.likesRemaining);
+            put(delta, "likesProgress", likesProgress, previous.likesProgress);
+            put(delta, "kills", kills, previous.kills);
+            put(delta, "killsNext", killsNext, previous.killsNext);
+            put(delta, "killsRemaining", killsRemaining, previous.killsRemaining);
+            put(delta, "killsProgress", killsProgress, previous.killsProgress);
+            put(delta, "participants", participants, previous.participants);
+            put(delta, "participantsTotal", participantsTotal, previous.participantsTotal);
+            put(delta, "arrowsGiven", arrowsGiven, previous.arrowsGiven);
+            return delta;
+        }
+
+        private static void put(Map<String, Object> delta, String name, String value, String previous) {
+            if (!Objects.equals(value, previous)) {
+                delta.put(name, value);
+            }
+        }
+
+        private static void put(Map<String, Object> delta, String name, int value, int previous) {
+            if (value != previous) {
+                delta.put(name, value);
+            }
+        }
+
+        private static void put(Map<String, Object> delta, String name, boolean value, boolean previous) {
+            if (value != previous) {
+                delta.put(name, value);
+            }
+        }
     }
 
     // ==================== HANDLERS JSON ====================
@@ -197,592 +523,103 @@ public class OverlayWebServer {
     private class StatsJsonHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            GameStats stats = getGameStats();
-            sendResponse(exchange, 200, "application/json", gson.toJson(stats));
+            StatsSnapshot current = snapshot;
+            sendSnapshot(exchange, current, current.getStatsJson());
         }
     }
 
     private class LikesJsonHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            GameStats stats = getGameStats();
-            Map<String, Object> data = new HashMap<>();
-            data.put("likes", stats.likes);
-            data.put("next", stats.likesNext);
-            data.put("remaining", stats.likesRemaining);
-            data.put("progress", stats.likesProgress);
-            sendResponse(exchange, 200, "application/json", gson.toJson(data));
+            StatsSnapshot current = snapshot;
+            sendSnapshot(exchange, current, current.getLikesJson());
         }
     }
 
     private class KillsJsonHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            GameStats stats = getGameStats();
-            Map<String, Object> data = new HashMap<>();
-            data.put("kills", stats.kills);
-            data.put("next", stats.killsNext);
-            data.put("remaining", stats.killsRemaining);
-            data.put("progress", stats.killsProgress);
-            data.put("streamer", stats.streamer);
-            sendResponse(exchange, 200, "application/json", gson.toJson(data));
+            StatsSnapshot current = snapshot;
+            sendSnapshot(exchange, current, current.getKillsJson());
         }
     }
 
-    // ==================== HANDLERS HTML OVERLAYS ====================
-
-    private class IndexHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            String html = """
-                <!DOCTYPE html>
-                <html lang="fr">
-                <head>
-                    <meta charset="UTF-8">
-                    <title>YouTubeEvent Overlays</title>
-                    <style>
-                        body {
-                            font-family: 'Segoe UI', Arial, sans-serif;
-                            background: linear-gradient(135deg, #1a1a2e 0%, #16213e 100%);
-                            color: #fff;
-                            padding: 40px;
-                            min-height: 100vh;
-                            margin: 0;
-                        }
-                        h1 { color: #ff4444; text-align: center; }
-                        .container { max-width: 800px; margin: 0 auto; }
-                        .card {
-                            background: rgba(255,255,255,0.1);
-                            border-radius: 15px;
-                            padding: 20px;
-                            margin: 20px 0;
-                            backdrop-filter: blur(10px);
-                        }
-                        .card h2 { color: #ffd700; margin-top: 0; }
-                        a {
-                            color: #00d4ff;
-                            text-decoration: none;
-                            display: block;
-                            padding: 10px;
-                            margin: 5px 0;
-                            background: rgba(0,212,255,0.1);
-                            border-radius: 8px;
-                            transition: all 0.3s;
-                        }
-                        a:hover {
-                            background: rgba(0,212,255,0.3);
-                            transform: translateX(10px);
-                        }
-                        .api { color: #00ff88; }
-                        .api:hover { background: rgba(0,255,136,0.2); }
-                        code {
-                            background: rgba(0,0,0,0.3);
-                            padding: 2px 8px;
-                            border-radius: 4px;
-                            font-size: 12px;
-                        }
-                    </style>
-                </head>
-                <body>
-                    <div class="container">
-                        <h1>YouTubeEvent - Overlays OBS</h1>
-
-                        <div class="card">
-                            <h2>Overlays HTML (pour OBS Browser Source)</h2>
-                            <a href="/overlay/likes">/overlay/likes - Compteur de likes</a>
-                            <a href="/overlay/kills">/overlay/kills - Compteur de kills</a>
-                            <a href="/overlay/stats">/overlay/stats - Toutes les stats</a>
-                            <a href="/overlay/milestone">/overlay/milestone - Prochain palier</a>
-                            <a href="/overlay/participants">/overlay/participants - Participants</a>
-                        </div>
-
-                        <div class="card">
-                            <h2>API JSON (pour developpeurs)</h2>
-                            <a href="/api/stats" class="api">/api/stats - Toutes les stats</a>
-                            <a href="/api/likes" class="api">/api/likes - Likes uniquement</a>
-                            <a href="/api/kills" class="api">/api/kills - Kills uniquement</a>
-                        </div>
-
-                        <div class="card">
-                            <h2>Utilisation OBS</h2>
-                            <p>1. Ajouter une source <code>Navigateur</code></p>
-                            <p>2. URL: <code>http://IP_SERVEUR:%d/overlay/likes</code></p>
-                            <p>3. Largeur: 400, Hauteur: 150</p>
-                            <p>4. Cocher "Actualiser le navigateur lorsque la scene devient active"</p>
-                        </div>
-                    </div>
-                </body>
-                </html>
-                """.formatted(port);
-
-            sendResponse(exchange, 200, "text/html", html);
-        }
-    }
-
-    private class LikesOverlayHandler implements HttpHandler {
+    private class StreamHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            String html = """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <meta charset="UTF-8">
-                    <style>
-                        * { margin: 0; padding: 0; box-sizing: border-box; }
-                        body {
-                            font-family: 'Segoe UI', Arial, sans-serif;
-                            background: transparent;
-                            display: flex;
-                            justify-content: center;
-                            align-items: center;
-                            min-height: 100vh;
-                        }
-                        .container {
-                            background: linear-gradient(135deg, rgba(255,68,68,0.9) 0%, rgba(200,50,50,0.9) 100%);
-                            border-radius: 20px;
-                            padding: 20px 40px;
-                            text-align: center;
-                            box-shadow: 0 10px 40px rgba(255,68,68,0.5);
-                            animation: pulse 2s infinite;
-                        }
-                        @keyframes pulse {
-                            0%, 100% { transform: scale(1); }
-                            50% { transform: scale(1.02); }
-                        }
-                        .icon { font-size: 40px; margin-bottom: 5px; }
-                        .count {
-                            font-size: 72px;
-                            font-weight: bold;
-                            color: #fff;
-                            text-shadow: 2px 2px 10px rgba(0,0,0,0.3);
-                        }
-                        .label {
-                            font-size: 18px;
-                            color: rgba(255,255,255,0.9);
-                            text-transform: uppercase;
-                            letter-spacing: 3px;
-                        }
-                        .updated { display: none; }
-                        @keyframes pop {
-                            0% { transform: scale(1); }
-                            50% { transform: scale(1.3); }
-                            100% { transform: scale(1); }
-                        }
-                        .pop { animation: pop 0.3s ease-out; }
-                    </style>
-                </head>
-                <body>
-                    <div class="container">
-                        <div class="icon">❤️</div>
-                        <div class="count" id="likes">0</div>
-                        <div class="label">Likes</div>
-                    </div>
-                    <script>
-                        let lastLikes = 0;
-                        async function update() {
-                            try {
-                                const res = await fetch('/api/likes');
-                                const data = await res.json();
-                                const el = document.getElementById('likes');
-                                if (data.likes !== lastLikes) {
-                                    el.classList.remove('pop');
-                                    void el.offsetWidth;
-                                    el.classList.add('pop');
-                                    lastLikes = data.likes;
-                                }
-                                el.textContent = data.likes;
-                            } catch(e) {}
-                        }
-                        update();
-                        setInterval(update, 1000);
-                    </script>
-                </body>
-                </html>
-                """;
-
-            sendResponse(exchange, 200, "text/html", html);
-        }
-    }
-
-    private class KillsOverlayHandler implements HttpHandler {
+            stream.open(exchange);
+        }
+    }
+
+    /**
+     * /api/chat?since=<seq>&limit=50&type=SUPER_CHAT&role=MODERATOR&min_amount=5
+     */
+    private class ChatJsonHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            String html = """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <meta charset="UTF-8">
-                    <style>
-                        * { margin: 0; padding: 0; box-sizing: border-box; }
-                        body {
-                            font-family: 'Segoe UI', Arial, sans-serif;
-                            background: transparent;
-                            display: flex;
-                            justify-content: center;
-                            align-items: center;
-                            min-height: 100vh;
-                        }
-                        .container {
-                            background: linear-gradient(135deg, rgba(255,165,0,0.9) 0%, rgba(200,120,0,0.9) 100%);
-                            border-radius: 20px;
-                            padding: 20px 40px;
-                            text-align: center;
-                            box-shadow: 0 10px 40px rgba(255,165,0,0.5);
-                        }
-                        .icon { font-size: 40px; margin-bottom: 5px; }
-                        .count {
-                            font-size: 72px;
-                            font-weight: bold;
-                            color: #fff;
-                            text-shadow: 2px 2px 10px rgba(0,0,0,0.3);
-                        }
-                        .label {
-                            font-size: 18px;
-                            color: rgba(255,255,255,0.9);
-                            text-transform: uppercase;
-                            letter-spacing: 3px;
-                        }
-                        .streamer {
-                            font-size: 14px;
-                            color: rgba(255,255,255,0.7);
-                            margin-top: 5px;
-                        }
-                        @keyframes pop {
-                            0% { transform: scale(1); }
-                            50% { transform: scale(1.3); color: #ff0000; }
-                            100% { transform: scale(1); }
-                        }
-                        .pop { animation: pop 0.3s ease-out; }
-                    </style>
-                </head>
-                <body>
-                    <div class="container">
-                        <div class="icon">⚔️</div>
-                        <div class="count" id="kills">0</div>
-                        <div class="label">Kills</div>
-                        <div class="streamer" id="streamer"></div>
-                    </div>
-                    <script>
-                        let lastKills = 0;
-                        async function update() {
-                            try {
-                                const res = await fetch('/api/kills');
-                                const data = await res.json();
-                                const el = document.getElementById('kills');
-                                if (data.kills !== lastKills) {
-                                    el.classList.remove('pop');
-                                    void el.offsetWidth;
-                                    el.classList.add('pop');
-                                    lastKills = data.kills;
-                                }
-                                el.textContent = data.kills;
-                                document.getElementById('streamer').textContent = data.streamer;
-                            } catch(e) {}
-                        }
-                        update();
-                        setInterval(update, 1000);
-                    </script>
-                </body>
-                </html>
-                """;
-
-            sendResponse(exchange, 200, "text/html", html);
-        }
-    }
-
-    private class StatsOverlayHandler implements HttpHandler {
+            Map<String, String> query = ChatFeed.parseQuery(exchange.getRequestURI().getRawQuery());
+            long since = parseLong(query.get("since"), 0);
+            int limit = (int) Math.max(parseLong(query.get("limit"), 50), 1);
+
+            byte[] json = chatFeed.toJson(since, ChatFeed.Filter.parse(query), limit);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache, no-store, must-revalidate");
+            exchange.sendResponseHeaders(200, json.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(json);
+            }
+        }
+    }
+
+    private class ChatStreamHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            String html = """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <meta charset="UTF-8">
-                    <style>
-                        * { margin: 0; padding: 0; box-sizing: border-box; }
-                        body {
-                            font-family: 'Segoe UI', Arial, sans-serif;
-                            background: transparent;
-                            padding: 20px;
-                        }
-                        .container {
-                            background: linear-gradient(135deg, rgba(26,26,46,0.95) 0%, rgba(22,33,62,0.95) 100%);
-                            border-radius: 20px;
-                            padding: 25px;
-                            box-shadow: 0 10px 40px rgba(0,0,0,0.5);
-                            border: 2px solid rgba(255,215,0,0.3);
-                        }
-                        .title {
-                            text-align: center;
-                            color: #ffd700;
-                            font-size: 24px;
-                            font-weight: bold;
-                            margin-bottom: 20px;
-                            text-shadow: 0 0 20px rgba(255,215,0,0.5);
-                        }
-                        .stats-grid {
-                            display: grid;
-                            grid-template-columns: 1fr 1fr;
-                            gap: 15px;
-                        }
-                        .stat-box {
-                            background: rgba(255,255,255,0.1);
-                            border-radius: 12px;
-                            padding: 15px;
-                            text-align: center;
-                        }
-                        .stat-icon { font-size: 24px; }
-                        .stat-value {
-                            font-size: 36px;
-                            font-weight: bold;
-                            color: #fff;
-                        }
-                        .stat-label {
-                            font-size: 12px;
-                            color: rgba(255,255,255,0.7);
-                            text-transform: uppercase;
-                        }
-                        .likes .stat-value { color: #ff4444; }
-                        .kills .stat-value { color: #ffa500; }
-                        .participants .stat-value { color: #00d4ff; }
-                        .arrows .stat-value { color: #00ff88; }
-                        .streamer-bar {
-                            margin-top: 15px;
-                            text-align: center;
-                            color: #fff;
-                            font-size: 14px;
-                        }
-                        .streamer-name {
-                            color: #ff4444;
-                            font-weight: bold;
-                        }
-                    </style>
-                </head>
-                <body>
-                    <div class="container">
-                        <div class="title">⚡ TNT LIVE ⚡</div>
-                        <div class="stats-grid">
-                            <div class="stat-box likes">
-                                <div class="stat-icon">❤️</div>
-                                <div class="stat-value" id="likes">0</div>
-                                <div class="stat-label">Likes</div>
-                            </div>
-                            <div class="stat-box kills">
-                                <div class="stat-icon">⚔️</div>
-                                <div class="stat-value" id="kills">0</div>
-                                <div class="stat-label">Kills</div>
-                            </div>
-                            <div class="stat-box participants">
-                                <div class="stat-icon">👥</div>
-                                <div class="stat-value"><span id="participants">0</span>/<span id="total">0</span></div>
-                                <div class="stat-label">En vie</div>
-                            </div>
-                            <div class="stat-box arrows">
-                                <div class="stat-icon">🏹</div>
-                                <div class="stat-value" id="arrows">0</div>
-                                <div class="stat-label">Fleches</div>
-                            </div>
-                        </div>
-                        <div class="streamer-bar">
-                            Streamer: <span class="streamer-name" id="streamer">-</span>
-                        </div>
-                    </div>
-                    <script>
-                        async function update() {
-                            try {
-                                const res = await fetch('/api/stats');
-                                const data = await res.json();
-                                document.getElementById('likes').textContent = data.likes;
-                                document.getElementById('kills').textContent = data.kills;
-                                document.getElementById('participants').textContent = data.participants;
-                                document.getElementById('total').textContent = data.participantsTotal;
-                                document.getElementById('arrows').textContent = data.arrowsGiven;
-                                document.getElementById('streamer').textContent = data.streamer;
-                            } catch(e) {}
-                        }
-                        update();
-                        setInterval(update, 1000);
-                    </script>
-                </body>
-                </html>
-                """;
-
-            sendResponse(exchange, 200, "text/html", html);
-        }
-    }
-
-    private class MilestoneOverlayHandler implements HttpHandler {
+            chatStream.open(exchange);
+        }
+    }
+
+    /**
+     * Toutes les métriques du plugin (OpenMetrics si le client le demande, sinon texte Prometheus)
+     */
+    private class MetricsHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            String html = """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <meta charset="UTF-8">
-                    <style>
-                        * { margin: 0; padding: 0; box-sizing: border-box; }
-                        body {
-                            font-family: 'Segoe UI', Arial, sans-serif;
-                            background: transparent;
-                            padding: 20px;
-                        }
-                        .container {
-                            background: linear-gradient(135deg, rgba(102,51,153,0.9) 0%, rgba(75,0,130,0.9) 100%);
-                            border-radius: 20px;
-                            padding: 25px;
-                            box-shadow: 0 10px 40px rgba(102,51,153,0.5);
-                        }
-                        .milestone-title {
-                            text-align: center;
-                            color: #ffd700;
-                            font-size: 16px;
-                            margin-bottom: 10px;
-                            text-transform: uppercase;
-                            letter-spacing: 2px;
-                        }
-                        .milestone-target {
-                            text-align: center;
-                            font-size: 48px;
-                            font-weight: bold;
-                            color: #fff;
-                            text-shadow: 0 0 20px rgba(255,255,255,0.5);
-                        }
-                        .progress-container {
-                            margin-top: 15px;
-                            background: rgba(0,0,0,0.3);
-                            border-radius: 10px;
-                            height: 20px;
-                            overflow: hidden;
-                        }
-                        .progress-bar {
-                            height: 100%;
-                            background: linear-gradient(90deg, #ff4444, #ffd700);
-                            border-radius: 10px;
-                            transition: width 0.5s ease-out;
-                            box-shadow: 0 0 20px rgba(255,215,0,0.5);
-                        }
-                        .progress-text {
-                            text-align: center;
-                            margin-top: 10px;
-                            color: rgba(255,255,255,0.8);
-                            font-size: 14px;
-                        }
-                        .current {
-                            color: #ff4444;
-                            font-weight: bold;
-                        }
-                    </style>
-                </head>
-                <body>
-                    <div class="container">
-                        <div class="milestone-title">🎯 Prochain Palier Likes</div>
-                        <div class="milestone-target" id="target">10</div>
-                        <div class="progress-container">
-                            <div class="progress-bar" id="progress" style="width: 0%"></div>
-                        </div>
-                        <div class="progress-text">
-                            <span class="current" id="current">0</span> / <span id="next">10</span> likes
-                        </div>
-                    </div>
-                    <script>
-                        async function update() {
-                            try {
-                                const res = await fetch('/api/likes');
-                                const data = await res.json();
-                                document.getElementById('target').textContent = data.next;
-                                document.getElementById('current').textContent = data.likes;
-                                document.getElementById('next').textContent = data.next;
-                                document.getElementById('progress').style.width = data.progress + '%';
-                            } catch(e) {}
-                        }
-                        update();
-                        setInterval(update, 1000);
-                    </script>
-                </body>
-                </html>
-                """;
-
-            sendResponse(exchange, 200, "text/html", html);
-        }
-    }
-
-    private class ParticipantsOverlayHandler implements HttpHandler {
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            boolean openMetrics = accept != null && accept.contains("application/openmetrics-text");
+
+            StringBuilder sb = new StringBuilder(16384);
+            plugin.getMetrics().write(sb, openMetrics);
+            sendResponse(exchange, 200, openMetrics ? "application/openmetrics-text; version=1.0.0" : "text/plain; version=0.0.4",
+                    sb.toString());
+        }
+    }
+
+    // ==================== HANDLERS OVERLAYS ====================
+
+    /**
+     * Fichiers des overlays: /overlay/likes -> likes.html, /overlay/stream.js -> stream.js
+     * Toute autre adresse renvoie la page d'accueil.
+     */
+    private class AssetHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            String html = """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <meta charset="UTF-8">
-                    <style>
-                        * { margin: 0; padding: 0; box-sizing: border-box; }
-                        body {
-                            font-family: 'Segoe UI', Arial, sans-serif;
-                            background: transparent;
-                            display: flex;
-                            justify-content: center;
-                            align-items: center;
-                            min-height: 100vh;
-                        }
-                        .container {
-                            background: linear-gradient(135deg, rgba(0,150,200,0.9) 0%, rgba(0,100,150,0.9) 100%);
-                            border-radius: 20px;
-                            padding: 20px 40px;
-                            text-align: center;
-                            box-shadow: 0 10px 40px rgba(0,150,200,0.5);
-                        }
-                        .icon { font-size: 40px; margin-bottom: 5px; }
-                        .count {
-                            font-size: 56px;
-                            font-weight: bold;
-                            color: #fff;
-                            text-shadow: 2px 2px 10px rgba(0,0,0,0.3);
-                        }
-                        .total {
-                            font-size: 28px;
-                            color: rgba(255,255,255,0.7);
-                        }
-                        .label {
-                            font-size: 16px;
-                            color: rgba(255,255,255,0.9);
-                            text-transform: uppercase;
-                            letter-spacing: 2px;
-                            margin-top: 5px;
-                        }
-                        .dead {
-                            font-size: 14px;
-                            color: #ff6b6b;
-                            margin-top: 10px;
-                        }
-                    </style>
-                </head>
-                <body>
-                    <div class="container">
-                        <div class="icon">👥</div>
-                        <div class="count">
-                            <span id="alive">0</span><span class="total">/<span id="total">0</span></span>
-                        </div>
-                        <div class="label">Subs en vie</div>
-                        <div class="dead">☠️ <span id="dead">0</span> elimines</div>
-                    </div>
-                    <script>
-                        async function update() {
-                            try {
-                                const res = await fetch('/api/stats');
-                                const data = await res.json();
-                                document.getElementById('alive').textContent = data.participants;
-                                document.getElementById('total').textContent = data.participantsTotal;
-                                document.getElementById('dead').textContent = data.participantsTotal - data.participants;
-                            } catch(e) {}
-                        }
-                        update();
-                        setInterval(update, 1000);
-                    </script>
-                </body>
-                </html>
-                """;
-
-            sendResponse(exchange, 200, "text/html", html);
+            String path = exchange.getRequestURI().getPath();
+
+            String name = "index.html";
+            if (path.startsWith("/overlay/")) {
+                name = path.substring("/overlay/".length());
+                if (name.indexOf('.') == -1) {
+                    name += ".html";
+                }
+            }
+
+            OverlayAssets.Asset asset = assets.get(name);
+            if (asset == null) {
+                sendResponse(exchange, 404, "text/plain", "Overlay introuvable: " + name);
+                return;
+            }
+            sendAsset(exchange, asset);
         }
     }
 }
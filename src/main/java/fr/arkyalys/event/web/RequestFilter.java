@@ -0,0 +1,91 @@
+package fr.arkyalys.event.web;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Filtre appliqué à chaque endpoint du serveur overlay
+ *
+ * - limite le nombre de requêtes traitées en même temps (503 + Retry-After au-delà)
+ * - refuse les nouvelles requêtes pendant l'arrêt du serveur
+ * - délai maximum par requête: au-delà, la connexion est fermée et sa place libérée
+ * - mesure la latence et le code de retour par endpoint
+ */
+class RequestFilter extends Filter {
+
+    /**
+     * État partagé par tous les filtres d'un même serveur
+     */
+    static class Limits {
+        final Semaphore permits;
+        final int maxConcurrent;
+        final long timeoutMillis;
+        final ScheduledExecutorService watchdog;
+        final WebMetrics metrics;
+        volatile boolean draining = false;
+
+        Limits(int maxConcurrent, long timeoutMillis, ScheduledExecutorService watchdog, WebMetrics metrics) {
+            this.permits = new Semaphore(maxConcurrent);
+            this.maxConcurrent = maxConcurrent;
+            this.timeoutMillis = timeoutMillis;
+            this.watchdog = watchdog;
+            this.metrics = metrics;
+        }
+
+        int inFlight() {
+            return maxConcurrent - permits.availablePermits();
+        }
+    }
+
+    private final Limits limits;
+    private final WebMetrics.Endpoint endpoint;
+
+    RequestFilter(Limits limits, String endpointName) {
+        this.limits = limits;
+        this.endpoint = limits.metrics.endpoint(endpointName);
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (limits.draining || !limits.permits.tryAcquire()) {
+            limits.metrics.rejected(endpoint);
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean(false);
+        ScheduledFuture<?> timeout = limits.watchdog.schedule(() -> {
+            if (released.compareAndSet(false, true)) {
+                limits.permits.release();
+                limits.metrics.timeout(endpoint);
+                // close() peut lui-même bloquer sur un client figé: thread virtuel jetable
+                Thread.ofVirtual().start(exchange::close);
+            }
+        }, limits.timeoutMillis, TimeUnit.MILLISECONDS);
+
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            timeout.cancel(false);
+            if (released.compareAndSet(false, true)) {
+                limits.permits.release();
+            }
+            endpoint.record(exchange.getResponseCode(), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Limites et mesures du serveur overlay";
+    }
+}
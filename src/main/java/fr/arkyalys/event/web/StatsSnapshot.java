@@ -0,0 +1,98 @@
+package fr.arkyalys.event.web;
+
+import com.google.gson.Gson;
+import fr.arkyalys.event.web.OverlayWebServer.GameStats;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * État des stats publié par le thread principal pour les threads HTTP
+ *
+ * Immuable une fois publié: les réponses JSON sont sérialisées une seule fois ici,
+ * les handlers ne font que renvoyer ces octets (aucune lecture de l'état du jeu hors du thread principal).
+ * La version augmente à chaque changement et sert d'ETag (réponse 304 si rien n'a changé).
+ */
+public final class StatsSnapshot {
+
+    // Distingue les versions d'un démarrage à l'autre (le compteur repart à 1 après un reload)
+    private static final String EPOCH = Long.toHexString(System.currentTimeMillis());
+
+    private final long version;
+    private final GameStats stats;
+    private final String etag;
+    private final byte[] statsJson;
+    private final byte[] likesJson;
+    private final byte[] killsJson;
+
+    private StatsSnapshot(long version, GameStats stats, Gson gson) {
+        this.version = version;
+        this.stats = stats;
+        this.etag = "\"" + EPOCH + "-" + version + "\"";
+
+        Map<String, Object> likes = new LinkedHashMap<>();
+        likes.put("likes", stats.likes);
+        likes.put("next", stats.likesNext);
+        likes.put("remaining", stats.likesRemaining);
+        likes.put("progress", stats.likesProgress);
+
+        Map<String, Object> kills = new LinkedHashMap<>();
+        kills.put("kills", stats.kills);
+        kills.put("next", stats.killsNext);
+        kills.put("remaining", stats.killsRemaining);
+        kills.put("progress", stats.killsProgress);
+        kills.put("streamer", stats.streamer);
+
+        this.statsJson = gson.toJson(stats).getBytes(StandardCharsets.UTF_8);
+        this.likesJson = gson.toJson(likes).getBytes(StandardCharsets.UTF_8);
+        this.killsJson = gson.toJson(kills).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Premier état publié
+     */
+    public static StatsSnapshot initial(GameStats stats, Gson gson) {
+        return new StatsSnapshot(1, stats, gson);
+    }
+
+    /**
+     * État suivant (les stats ne doivent plus être modifiées après publication)
+     */
+    public StatsSnapshot next(GameStats stats, Gson gson) {
+        return new StatsSnapshot(version + 1, stats, gson);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public GameStats getStats() {
+        return stats;
+    }
+
+    public String getETag() {
+        return etag;
+    }
+
+    /**
+     * Corps de /api/stats (ne pas modifier le tableau)
+     */
+    public byte[] getStatsJson() {
+        return statsJson;
+    }
+
+    /**
+     * Corps de /api/likes
+     */
+    public byte[] getLikesJson() {
+        return likesJson;
+    }
+
+    /**
+     * Corps de /api/kills
+     */
+    public byte[] getKillsJson() {
+        return killsJson;
+    }
+}
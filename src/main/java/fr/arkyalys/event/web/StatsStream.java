@@ -0,0 +1,205 @@
+package fr.arkyalys.event.web;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Canal Server-Sent Events (/api/stream) pour les overlays
+ *
+ * Au lieu d'un fetch par seconde et par source OBS:
+ * - chaque nouveau snapshot publié par le thread principal est poussé immédiatement
+ * - seuls les champs modifiés sont envoyés (event "delta"), sérialisés une seule fois pour tous les clients
+ * - un client qui se connecte reçoit d'abord l'état complet (event "stats")
+ * - un commentaire de heartbeat maintient la connexion et détecte les clients partis
+ *
+ * L'id de chaque event est la version du snapshot.
+ * Les écritures réseau se font sur un thread dédié: un client lent ne bloque jamais le tick.
+ */
+public class StatsStream {
+
+    static final byte[] HEARTBEAT = ": ping\n\n".getBytes(StandardCharsets.UTF_8);
+    static final byte[] RETRY = "retry: 3000\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Supplier<StatsSnapshot> snapshots;
+    private final Gson gson = new Gson();
+
+    // Clients (manipulés uniquement par le thread d'écriture)
+    private final List<HttpExchange> clients = new ArrayList<>();
+    // Compte aussi les clients en cours d'inscription, pour qu'aucun delta ne leur échappe
+    private final AtomicInteger clientCount = new AtomicInteger();
+
+    private ExecutorService writer;
+
+    // Heartbeat (thread principal)
+    private long lastEventMillis = 0;
+    private long heartbeatMillis;
+    private int maxClients = 32;
+
+    public StatsStream(Supplier<StatsSnapshot> snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Démarre le thread d'écriture
+     */
+    public void start(int heartbeatSeconds, int maxClients) {
+        stop();
+
+        this.heartbeatMillis = Math.max(heartbeatSeconds, 1) * 1000L;
+        this.maxClients = maxClients;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "YouTubeEvent-Stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Arrête le canal et ferme toutes les connexions
+     */
+    public void stop() {
+        if (writer != null) {
+            ExecutorService executor = writer;
+            writer = null;
+            try {
+                executor.execute(this::closeAll);
+            } catch (RejectedExecutionException ignored) {
+            }
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Ouvre un flux SSE pour cette requête (la réponse reste ouverte après le retour du handler)
+     */
+    public void open(HttpExchange exchange) throws IOException {
+        ExecutorService executor = writer;
+        if (executor == null || clientCount.get() >= maxClients) {
+            exchange.getResponseHeaders().set("Retry-After", "5");
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("X-Accel-Buffering", "no");
+        exchange.sendResponseHeaders(200, 0);
+
+        clientCount.incrementAndGet();
+        try {
+            // L'état complet est envoyé depuis le thread d'écriture: aucun delta ne peut passer avant lui
+            executor.execute(() -> register(exchange));
+        } catch (RejectedExecutionException e) {
+            clientCount.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    public int getClientCount() {
+        return clientCount.get();
+    }
+
+    // ==================== Thread principal ====================
+
+    /**
+     * Un nouveau snapshot vient d'être publié
+     */
+    public void publish(StatsSnapshot snapshot, Map<String, Object> delta) {
+        if (clientCount.get() == 0) return;
+
+        lastEventMillis = System.currentTimeMillis();
+        broadcast(format("delta", snapshot.getVersion(), gson.toJson(delta).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Rien n'a changé: heartbeat si le flux est silencieux depuis trop longtemps
+     */
+    public void idle() {
+        if (clientCount.get() == 0) return;
+
+        long now = System.currentTimeMillis();
+        if (now - lastEventMillis >= heartbeatMillis) {
+            lastEventMillis = now;
+            broadcast(HEARTBEAT);
+        }
+    }
+
+    private void broadcast(byte[] event) {
+        ExecutorService executor = writer;
+        if (executor == null) return;
+        try {
+            executor.execute(() -> writeAll(event));
+        } catch (RejectedExecutionException ignored) {
+        }
+    }
+
+    // ==================== Thread d'écriture ====================
+
+    private void register(HttpExchange exchange) {
+        StatsSnapshot snapshot = snapshots.get();
+        byte[] hello = format("stats", snapshot.getVersion(), snapshot.getStatsJson());
+        if (write(exchange, RETRY) && write(exchange, hello)) {
+            clients.add(exchange);
+        } else {
+            clientCount.decrementAndGet();
+        }
+    }
+
+    private void writeAll(byte[] event) {
+        Iterator<HttpExchange> it = clients.iterator();
+        while (it.hasNext()) {
+            if (!write(it.next(), event)) {
+                it.remove();
+                clientCount.decrementAndGet();
+            }
+        }
+    }
+
+    private boolean write(HttpExchange exchange, byte[] data) {
+        try {
+            OutputStream os = exchange.getResponseBody();
+            os.write(data);
+            os.flush();
+            return true;
+        } catch (IOException e) {
+            exchange.close(); // Client parti (source OBS fermée, rechargée...)
+            return false;
+        }
+    }
+
+    private void closeAll() {
+        for (HttpExchange exchange : clients) {
+            exchange.close();
+        }
+        clientCount.addAndGet(-clients.size());
+        clients.clear();
+    }
+
+    /**
+     * Event SSE complet (id, type, données JSON), partagé avec le flux du chat
+     */
+    static byte[] format(String event, long id, byte[] json) {
+        byte[] header = ("id: " + id + "\nevent: " + event + "\ndata: ").getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[header.length + json.length + 2];
+        System.arraycopy(header, 0, frame, 0, header.length);
+        System.arraycopy(json, 0, frame, header.length, json.length);
+        frame[frame.length - 2] = '\n';
+        frame[frame.length - 1] = '\n';
+        return frame;
+    }
+}
@@ -0,0 +1,103 @@
+package fr.arkyalys.event.web;
+
+import fr.arkyalys.event.metrics.Counter;
+import fr.arkyalys.event.metrics.Histogram;
+import fr.arkyalys.event.metrics.MetricsRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compteurs et histogrammes de latence du serveur overlay, par endpoint
+ *
+ * Enregistrés dans le registre du plugin (exporté sur /metrics avec les autres métriques).
+ * Chaque endpoint garde ses références: enregistrer une requête ne coûte que quelques incréments.
+ */
+public class WebMetrics {
+
+    /**
+     * Statistiques d'un endpoint
+     */
+    public static class Endpoint {
+        private final Counter requests;
+        private final Counter errors;
+        private final Counter rejected;
+        private final Counter timeouts;
+        private final Histogram latency;
+
+        Endpoint(MetricsRegistry registry, String name) {
+            this.requests = registry.counter("youtubeevent_web_requests_total",
+                    "Requetes HTTP traitees par endpoint", "endpoint", name);
+            this.errors = registry.counter("youtubeevent_web_errors_total",
+                    "Reponses en erreur (4xx/5xx) par endpoint", "endpoint", name);
+            this.rejected = registry.counter("youtubeevent_web_rejected_total",
+                    "Requetes refusees (limite de connexions atteinte)", "endpoint", name);
+            this.timeouts = registry.counter("youtubeevent_web_timeouts_total",
+                    "Requetes ayant depasse le delai maximum", "endpoint", name);
+            this.latency = registry.histogram("youtubeevent_web_request_duration_seconds",
+                    "Duree de traitement des requetes", "endpoint", name);
+        }
+
+        void record(int status, long nanos) {
+            requests.increment();
+            if (status >= 400 || status <= 0) {
+                errors.increment();
+            }
+            latency.record(nanos);
+        }
+
+        public long getRequests() {
+            return requests.get();
+        }
+
+        public long getErrors() {
+            return errors.get();
+        }
+
+        public long getRejected() {
+            return rejected.get();
+        }
+
+        public long getTimeouts() {
+            return timeouts.get();
+        }
+    }
+
+    private final MetricsRegistry registry;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public WebMetrics(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Endpoint endpoint(String name) {
+        return endpoints.computeIfAbsent(name, n -> new Endpoint(registry, n));
+    }
+
+    void rejected(Endpoint endpoint) {
+        endpoint.rejected.increment();
+    }
+
+    void timeout(Endpoint endpoint) {
+        endpoint.timeouts.increment();
+    }
+
+    /**
+     * Total des requêtes traitées, tous endpoints confondus
+     */
+    public long getTotalRequests() {
+        long total = 0;
+        for (Endpoint endpoint : endpoints.values()) {
+            total += endpoint.getRequests();
+        }
+        return total;
+    }
+
+    public long getTotalRejected() {
+        long total = 0;
+        for (Endpoint endpoint : endpoints.values()) {
+            total += endpoint.getRejected();
+        }
+        return total;
+    }
+}
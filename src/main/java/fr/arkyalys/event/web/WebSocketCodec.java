@@ -0,0 +1,240 @@
+package fr.arkyalys.event.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lecture / écriture du protocole WebSocket (RFC 6455), limité à ce dont les overlays ont besoin
+ *
+ * - trames serveur non masquées: une trame encodée une fois peut être envoyée à tous les clients
+ * - trames client masquées, fragmentation acceptée, taille limitée
+ */
+final class WebSocketCodec {
+
+    static final int OP_CONTINUATION = 0x0;
+    static final int OP_TEXT = 0x1;
+    static final int OP_BINARY = 0x2;
+    static final int OP_CLOSE = 0x8;
+    static final int OP_PING = 0x9;
+    static final int OP_PONG = 0xA;
+
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int MAX_HEADER_BYTES = 8192;
+
+    /**
+     * Message complet reçu d'un client
+     */
+    record Message(int opcode, byte[] payload) {
+
+        String text() {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Requête HTTP d'ouverture (ligne de requête + en-têtes en minuscules)
+     */
+    record Handshake(String method, String path, Map<String, String> headers) {
+
+        boolean isUpgrade() {
+            String upgrade = headers.get("upgrade");
+            String connection = headers.get("connection");
+            return "GET".equals(method) && upgrade != null && upgrade.equalsIgnoreCase("websocket")
+                    && connection != null && connection.toLowerCase(Locale.ROOT).contains("upgrade")
+                    && headers.containsKey("sec-websocket-key");
+        }
+    }
+
+    private WebSocketCodec() {
+    }
+
+    // ==================== Handshake ====================
+
+    static Handshake readHandshake(InputStream in) throws IOException {
+        String requestLine = readLine(in);
+        String[] parts = requestLine.split(" ");
+        if (parts.length < 3) {
+            throw new IOException("Requete invalide");
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        int total = requestLine.length();
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            total += line.length();
+            if (total > MAX_HEADER_BYTES) {
+                throw new IOException("En-tetes trop longs");
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+
+        String path = parts[1];
+        int query = path.indexOf('?');
+        return new Handshake(parts[0], query == -1 ? path : path.substring(0, query), headers);
+    }
+
+    static byte[] acceptResponse(String key) {
+        String accept;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + GUID).getBytes(StandardCharsets.US_ASCII));
+            accept = Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        return ("HTTP/1.1 101 Switching Protocols\r\n" +
+                "Upgrade: websocket\r\n" +
+                "Connection: Upgrade\r\n" +
+                "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static byte[] errorResponse(int code, String reason) {
+        return ("HTTP/1.1 " + code + " " + reason + "\r\n" +
+                "Content-Length: 0\r\n" +
+                "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder(64);
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int length = sb.length();
+                if (length > 0 && sb.charAt(length - 1) == '\r') {
+                    sb.setLength(length - 1);
+                }
+                return sb.toString();
+            }
+            if (sb.length() >= MAX_HEADER_BYTES) {
+                throw new IOException("Ligne trop longue");
+            }
+            sb.append((char) c);
+        }
+        throw new EOFException();
+    }
+
+    // ==================== Trames ====================
+
+    static byte[] text(String text) {
+        return frame(OP_TEXT, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static byte[] close(int code) {
+        return frame(OP_CLOSE, new byte[]{(byte) (code >> 8), (byte) code});
+    }
+
+    /**
+     * Trame serveur (FIN, non masquée)
+     */
+    static byte[] frame(int opcode, byte[] payload) {
+        int length = payload.length;
+        int headerLength = length < 126 ? 2 : length <= 0xFFFF ? 4 : 10;
+        byte[] frame = new byte[headerLength + length];
+
+        frame[0] = (byte) (0x80 | opcode);
+        if (length < 126) {
+            frame[1] = (byte) length;
+        } else if (length <= 0xFFFF) {
+            frame[1] = 126;
+            frame[2] = (byte) (length >> 8);
+            frame[3] = (byte) length;
+        } else {
+            frame[1] = 127;
+            for (int i = 0; i < 8; i++) {
+                frame[2 + i] = (byte) ((long) length >> (56 - 8 * i));
+            }
+        }
+        System.arraycopy(payload, 0, frame, headerLength, length);
+        return frame;
+    }
+
+    /**
+     * Lit un message complet (réassemble les fragments, les trames de contrôle passent en premier)
+     */
+    static Message read(InputStream in, int maxPayload) throws IOException {
+        ByteArrayOutputStream fragments = null;
+        int messageOpcode = -1;
+
+        while (true) {
+            int b0 = readByte(in);
+            int b1 = readByte(in);
+            boolean fin = (b0 & 0x80) != 0;
+            int opcode = b0 & 0x0F;
+
+            if ((b1 & 0x80) == 0) {
+                throw new IOException("Trame client non masquee");
+            }
+
+            long length = b1 & 0x7F;
+            if (length == 126) {
+                length = (readByte(in) << 8) | readByte(in);
+            } else if (length == 127) {
+                length = 0;
+                for (int i = 0; i < 8; i++) {
+                    length = (length << 8) | readByte(in);
+                }
+                // RFC 6455 §5.2: le bit de poids fort d'une longueur sur 64 bits doit être nul
+                if (length < 0) {
+                    throw new IOException("Longueur de trame invalide");
+                }
+            }
+            if (length > maxPayload) {
+                throw new IOException("Message trop long");
+            }
+
+            byte[] mask = in.readNBytes(4);
+            byte[] payload = in.readNBytes((int) length);
+            if (mask.length < 4 || payload.length < length) {
+                throw new EOFException();
+            }
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i & 3];
+            }
+
+            // Trames de contrôle: jamais fragmentées, peuvent arriver entre deux fragments
+            if (opcode >= OP_CLOSE) {
+                return new Message(opcode, payload);
+            }
+
+            if (opcode != OP_CONTINUATION) {
+                messageOpcode = opcode;
+            } else if (messageOpcode == -1) {
+                throw new IOException("Fragment inattendu");
+            }
+
+            if (fin && fragments == null) {
+                return new Message(messageOpcode, payload);
+            }
+
+            if (fragments == null) {
+                fragments = new ByteArrayOutputStream();
+            }
+            fragments.write(payload);
+            if (fragments.size() > maxPayload) {
+                throw new IOException("Message trop long");
+            }
+            if (fin) {
+                return new Message(messageOpcode, fragments.toByteArray());
+            }
+        }
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            throw new EOFException();
+        }
+        return b;
+    }
+}
@@ -0,0 +1,391 @@
+package fr.arkyalys.event.youtube;
+
+import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.metrics.Counter;
+import fr.arkyalys.event.metrics.Histogram;
+import fr.arkyalys.event.youtube.models.ChatMessage;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * File d'attente entre le thread de polling et le thread principal
+ *
+ * Le poller (producteur) dépose les messages dans une inbox bornée,
+ * le thread principal (consommateur) la vide une fois par tick sous un budget de temps.
+ * Les messages non traités restent dans l'inbox pour le tick suivant:
+ * une rafale de 200 messages est étalée sur plusieurs ticks au lieu de bloquer un tick.
+ */
+public class ChatDispatcher {
+
+    /**
+     * Comportement quand l'inbox est pleine
+     */
+    public enum OverflowPolicy {
+        /** Supprime le plus ancien message pour faire de la place */
+        DROP_OLDEST,
+        /**
+         * Fusionne un message texte avec celui du même auteur encore en attente (mots-clés conservés),
+         * Super Chats/membres passent en priorité; un texte sans message à rejoindre est abandonné
+         */
+        COALESCE,
+        /** Bloque le poller jusqu'à ce que le thread principal libère de la place */
+        BLOCK
+    }
+
+    // Taille max d'un message fusionné (au-delà, le message entrant est abandonné)
+    private static final int MAX_COALESCED_LENGTH = 2000;
+
+    /**
+     * Message en attente + instant d'arrivée (pour mesurer le lag)
+     * En mode COALESCE, le poller peut y fusionner un message tant que le thread principal ne l'a pas pris.
+     */
+    private static final class Envelope {
+        private ChatMessage message;
+        private boolean taken;
+        final long enqueuedAt;
+
+        Envelope(ChatMessage message, long enqueuedAt) {
+            this.message = message;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        ChatMessage message() {
+            return message;
+        }
+
+        synchronized ChatMessage take() {
+            taken = true;
+            return message;
+        }
+
+        /**
+         * Ajoute le texte d'un message du même auteur
+         * @return false si le message a déjà été pris (ou serait trop long)
+         */
+        synchronized boolean merge(ChatMessage next) {
+            if (taken) return false;
+            String text = message.getMessage() + " " + next.getMessage();
+            if (text.length() > MAX_COALESCED_LENGTH) return false;
+            message = ChatMessage.normalMessage(message.getMessageId(), message.getAuthorChannelId(),
+                    message.getAuthorName(), message.getAuthorProfileImage(), text, next.getPublishedAt(),
+                    next.isModerator(), next.isOwner(), next.isSponsor());
+            return true;
+        }
+    }
+
+    private final YouTubeEventPlugin plugin;
+    private final Consumer<ChatMessage> handler;
+    private final ArrayBlockingQueue<Envelope> inbox;
+    private final OverflowPolicy overflowPolicy;
+    private final long tickBudgetNanos;
+    // COALESCE: message texte en attente de chaque auteur
+    private final Map<String, Envelope> queuedText = new ConcurrentHashMap<>();
+
+    private BukkitTask drainTask;
+
+    // Métriques
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong textDropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private long dispatched = 0;
+    private long ticksOverBudget = 0;
+    private long drainTicks = 0;
+    private long drainNanos = 0;
+    private long maxDrainNanos = 0;
+    private volatile long lastLagNanos = 0;
+    private volatile long maxLagNanos = 0;
+
+    // Métriques cumulées du plugin (survivent aux reconnexions)
+    private final Counter droppedTotal;
+    private final Counter textDroppedTotal;
+    private final Counter coalescedTotal;
+    private final Counter overBudgetTotal;
+    private final Histogram lagHistogram;
+
+    public ChatDispatcher(YouTubeEventPlugin plugin, Consumer<ChatMessage> handler,
+                          int capacity, long tickBudgetNanos, OverflowPolicy overflowPolicy) {
+        this.plugin = plugin;
+        this.handler = handler;
+        this.inbox = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+        this.tickBudgetNanos = Math.max(tickBudgetNanos, 0);
+        this.overflowPolicy = overflowPolicy;
+
+        this.droppedTotal = plugin.getMetrics().counter("youtubeevent_chat_dropped_total",
+                "Messages perdus par la file de dispatch", "reason", "overflow");
+        this.textDroppedTotal = plugin.getMetrics().counter("youtubeevent_chat_dropped_total",
+                "Messages perdus par la file de dispatch", "reason", "text");
+        this.coalescedTotal = plugin.getMetrics().counter("youtubeevent_chat_coalesced_total",
+                "Messages texte fusionnes avec un message du meme auteur (file pleine)");
+        this.overBudgetTotal = plugin.getMetrics().counter("youtubeevent_chat_ticks_over_budget_total",
+                "Ticks ou le budget de dispatch a ete epuise avec des messages restants");
+        this.lagHistogram = plugin.getMetrics().histogram("youtubeevent_chat_dispatch_lag_seconds",
+                "Delai entre la reception d'un message et son traitement sur le thread principal");
+    }
+
+    /**
+     * Démarre la vidange de l'inbox (1 fois par tick)
+     */
+    public void start() {
+        stop();
+        drainTask = Bukkit.getScheduler().runTaskTimer(plugin, this::drain, 1L, 1L);
+    }
+
+    /**
+     * Arrête la vidange et vide l'inbox
+     */
+    public void stop() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+        inbox.clear();
+        queuedText.clear();
+    }
+
+    /**
+     * Dépose un lot de messages (appelé depuis le thread de polling)
+     * @throws InterruptedException si le poller est interrompu pendant un blocage (policy BLOCK)
+     */
+    public void submit(List<ChatMessage> messages) throws InterruptedException {
+        for (ChatMessage message : messages) {
+            submit(message);
+        }
+    }
+
+    /**
+     * Dépose un message (appelé depuis le thread de polling)
+     * @throws InterruptedException si le poller est interrompu pendant un blocage (policy BLOCK)
+     */
+    public void submit(ChatMessage message) throws InterruptedException {
+        Envelope envelope = new Envelope(message, System.nanoTime());
+        enqueued.incrementAndGet();
+
+        if (overflowPolicy == OverflowPolicy.COALESCE) {
+            submitCoalescing(envelope);
+            return;
+        }
+
+        if (inbox.offer(envelope)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK -> inbox.put(envelope);
+            default -> {
+                // DROP_OLDEST
+                while (!inbox.offer(envelope)) {
+                    if (inbox.poll() != null) {
+                        dropped.incrementAndGet();
+                        droppedTotal.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Mode COALESCE (thread de polling):
+     * - inbox pleine, message texte: fusionné avec le message en attente du même auteur
+     *   (les mots-clés des deux messages restent détectés), sinon abandonné
+     * - inbox pleine, message payant/membre: évince le plus ancien message texte (ou le plus ancien tout court)
+     */
+    private void submitCoalescing(Envelope envelope) {
+        ChatMessage message = envelope.message();
+        boolean text = message.getType() == ChatMessage.MessageType.TEXT_MESSAGE;
+
+        if (inbox.offer(envelope)) {
+            if (text && message.getAuthorChannelId() != null) {
+                queuedText.put(message.getAuthorChannelId(), envelope);
+            }
+            return;
+        }
+
+        if (text) {
+            Envelope queued = message.getAuthorChannelId() != null ? queuedText.get(message.getAuthorChannelId()) : null;
+            if (queued != null && queued.merge(message)) {
+                coalesced.incrementAndGet();
+                coalescedTotal.increment();
+                return;
+            }
+            textDropped.incrementAndGet();
+            textDroppedTotal.increment();
+            return;
+        }
+
+        while (!inbox.offer(envelope)) {
+            boolean removed = false;
+            Envelope evicted;
+            Iterator<Envelope> it = inbox.iterator();
+            while (it.hasNext()) {
+                Envelope queued = it.next();
+                if (queued.message().getType() == ChatMessage.MessageType.TEXT_MESSAGE) {
+                    it.remove();
+                    queued.take();
+                    forget(queued);
+                    textDropped.incrementAndGet();
+                    textDroppedTotal.increment();
+                    removed = true;
+                    break;
+                }
+            }
+            if (!removed && (evicted = inbox.poll()) != null) {
+                evicted.take();
+                forget(evicted);
+                dropped.incrementAndGet();
+                droppedTotal.increment();
+            }
+        }
+    }
+
+    /**
+     * Retire un message de l'index par auteur (COALESCE) s'il y est encore
+     */
+    private void forget(Envelope envelope) {
+        String author = envelope.message().getAuthorChannelId();
+        if (author != null) {
+            queuedText.remove(author, envelope);
+        }
+    }
+
+    /**
+     * Vide l'inbox sous le budget du tick (thread principal)
+     * Au moins un message est toujours traité pour garantir la progression
+     */
+    private void drain() {
+        if (inbox.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + tickBudgetNanos;
+
+        Envelope envelope;
+        while ((envelope = inbox.poll()) != null) {
+            long now = System.nanoTime();
+            long lag = now - envelope.enqueuedAt;
+            lastLagNanos = lag;
+            if (lag > maxLagNanos) {
+                maxLagNanos = lag;
+            }
+            lagHistogram.record(lag);
+
+            // Plus de fusion possible une fois pris
+            ChatMessage message = envelope.take();
+            if (overflowPolicy == OverflowPolicy.COALESCE) {
+                forget(envelope);
+            }
+
+            try {
+                handler.accept(message);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Erreur traitement message YouTube: " + e.getMessage());
+            }
+            dispatched++;
+
+            if (System.nanoTime() - deadline >= 0) {
+                if (!inbox.isEmpty()) {
+                    ticksOverBudget++;
+                    overBudgetTotal.increment();
+                }
+                break;
+            }
+        }
+
+        long spent = System.nanoTime() - start;
+        drainTicks++;
+        drainNanos += spent;
+        if (spent > maxDrainNanos) {
+            maxDrainNanos = spent;
+        }
+    }
+
+    // ==================== Métriques ====================
+
+    /**
+     * Nombre de messages en attente
+     */
+    public int getQueueDepth() {
+        return inbox.size();
+    }
+
+    public int getCapacity() {
+        return inbox.size() + inbox.remainingCapacity();
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.get();
+    }
+
+    public long getDispatchedCount() {
+        return dispatched;
+    }
+
+    /**
+     * Messages perdus (DROP_OLDEST, ou COALESCE sans message texte à évincer)
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Messages texte abandonnés (COALESCE, aucun message du même auteur à rejoindre)
+     */
+    public long getTextDroppedCount() {
+        return textDropped.get();
+    }
+
+    /**
+     * Messages texte fusionnés avec un message du même auteur (COALESCE)
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Nombre de ticks où le budget a été épuisé avec des messages restants
+     */
+    public long getTicksOverBudget() {
+        return ticksOverBudget;
+    }
+
+    /**
+     * Temps moyen passé à traiter les messages pendant un tick (ticks avec messages), en ms
+     */
+    public double getAverageDrainMillis() {
+        return drainTicks == 0 ? 0 : drainNanos / (double) drainTicks / 1_000_000.0;
+    }
+
+    /**
+     * Temps maximum passé à traiter les messages pendant un tick, en ms
+     */
+    public double getMaxDrainMillis() {
+        return maxDrainNanos / 1_000_000.0;
+    }
+
+    /**
+     * Lag (arrivée -> traitement) du dernier message traité, en ms
+     */
+    public double getLastLagMillis() {
+        return lastLagNanos / 1_000_000.0;
+    }
+
+    /**
+     * Lag maximum observé, en ms
+     */
+    public double getMaxLagMillis() {
+        return maxLagNanos / 1_000_000.0;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+}
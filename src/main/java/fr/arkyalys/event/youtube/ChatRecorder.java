@@ -0,0 +1,101 @@
+package fr.arkyalys.event.youtube;
+
+import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.youtube.models.ChatMessage;
+import fr.arkyalys.event.youtube.provider.ChatRecording;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Enregistre les messages reçus pendant un live (recordings/<liveId>-AAAAMMJJ-HHMMSS.ytrec)
+ *
+ * Alimenté par le thread du poller, démarré/arrêté depuis le thread principal:
+ * les accès au fichier sont synchronisés (jamais contendus en pratique).
+ */
+public class ChatRecorder {
+
+    private static final DateTimeFormatter FILE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final YouTubeEventPlugin plugin;
+    private ChatRecording.Writer writer;
+
+    public ChatRecorder(YouTubeEventPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Dossier des enregistrements
+     */
+    public File getDirectory() {
+        return new File(plugin.getDataFolder(), "recordings");
+    }
+
+    /**
+     * Démarre un nouvel enregistrement (l'éventuel enregistrement en cours est fermé)
+     * @return Le fichier créé, ou null en cas d'erreur
+     */
+    public synchronized File start(String liveId) {
+        stop();
+
+        String safeId = liveId != null ? liveId.replaceAll("[^A-Za-z0-9_-]", "_") : "live";
+        File file = new File(getDirectory(), safeId + "-" + LocalDateTime.now().format(FILE_FORMAT) + ".ytrec");
+        try {
+            writer = ChatRecording.create(file, liveId);
+            plugin.getLogger().info("Enregistrement du chat: " + file.getName());
+            return file;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Impossible de demarrer l'enregistrement: " + e.getMessage());
+            writer = null;
+            return null;
+        }
+    }
+
+    /**
+     * Ajoute les messages d'un poll (sans effet si aucun enregistrement n'est en cours)
+     */
+    public synchronized void record(List<ChatMessage> messages) {
+        if (writer == null || messages.isEmpty()) return;
+
+        try {
+            writer.write(messages);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Enregistrement interrompu: " + e.getMessage());
+            stop();
+        }
+    }
+
+    /**
+     * Ferme l'enregistrement en cours
+     */
+    public synchronized void stop() {
+        if (writer == null) return;
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Erreur a la fermeture de l'enregistrement: " + e.getMessage());
+        }
+        plugin.getLogger().info("Enregistrement termine: " + writer.getFile().getName() + " (" +
+                writer.getMessageCount() + " messages)");
+        writer = null;
+    }
+
+    public synchronized boolean isRecording() {
+        return writer != null;
+    }
+
+    /**
+     * Nombre de messages enregistrés dans le fichier en cours
+     */
+    public synchronized int getRecordedCount() {
+        return writer != null ? writer.getMessageCount() : 0;
+    }
+
+    public synchronized File getCurrentFile() {
+        return writer != null ? writer.getFile() : null;
+    }
+}
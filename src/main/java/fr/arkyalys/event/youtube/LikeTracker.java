@@ -4,6 +4,8 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.metrics.Counter;
+import fr.arkyalys.event.metrics.Histogram;
 import fr.arkyalys.event.youtube.models.ChatMessage;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -12,7 +14,6 @@ import org.bukkit.Bukkit;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Traque les likes sur le live YouTube et déclenche des événements
@@ -26,9 +27,9 @@ public class LikeTracker {
 
     private BukkitTask trackTask;
     private String currentVideoId;
-    private long lastLikeCount = -1;
-    private long lastViewCount = -1;
-    private boolean running = false;
+    private volatile long lastLikeCount = -1;
+    private volatile long lastViewCount = -1;
+    private volatile boolean running = false;
 
     // Anti-abus : on garde le MAX de likes jamais atteint
     // comme ça si quelqu'un like/unlike, on ne recompense pas
@@ -39,12 +40,25 @@ public class LikeTracker {
     private long totalNewLikes = 0;
     private long totalNewViews = 0;
 
+    // Métriques
+    private final Histogram checkDuration;
+    private final Counter checkErrors;
+    private final Counter newLikesTotal;
+    private final Counter videosQuota;
+
     public LikeTracker(YouTubeEventPlugin plugin) {
         this.plugin = plugin;
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(10, TimeUnit.SECONDS)
-                .readTimeout(10, TimeUnit.SECONDS)
-                .build();
+        this.httpClient = plugin.getHttpClient().getClient();
+
+        this.checkDuration = plugin.getMetrics().histogram("youtubeevent_likes_check_duration_seconds",
+                "Duree d'une lecture des likes et vues (API puis page en secours)");
+        this.checkErrors = plugin.getMetrics().counter("youtubeevent_likes_check_errors_total",
+                "Lectures des likes et vues sans resultat");
+        this.newLikesTotal = plugin.getMetrics().counter("youtubeevent_likes_new_total",
+                "Nouveaux likes detectes (au-dela du maximum deja atteint)");
+        this.videosQuota = YouTubeAPI.quotaCounter(plugin, "videos.list");
+        plugin.getMetrics().gauge("youtubeevent_live_likes", "Likes du live suivi", () -> lastLikeCount);
+        plugin.getMetrics().gauge("youtubeevent_live_views", "Vues du live suivi", () -> lastViewCount);
     }
 
     /**
@@ -96,6 +110,8 @@ public class LikeTracker {
      * Utilise l'API YouTube en priorité (plus précis), sinon scraping
      */
     private void checkStats() {
+        long start = System.nanoTime();
+
         // Essayer d'abord l'API (plus précis pour les vues en temps réel)
         long[] stats = getStatsAPI();
 
@@ -104,7 +120,11 @@ public class LikeTracker {
             stats = getStatsFree();
         }
 
-        if (stats == null) return;
+        checkDuration.recordSince(start);
+        if (stats == null) {
+            checkErrors.increment();
+            return;
+        }
 
         long likeCount = stats[0];
         long viewCount = stats[1];
@@ -124,6 +144,7 @@ public class LikeTracker {
         if (likeCount > maxLikeCountEver) {
             long newLikes = likeCount - maxLikeCountEver;
             totalNewLikes += newLikes;
+            newLikesTotal.add(newLikes);
             maxLikeCountEver = likeCount; // Mettre a jour le max
 
             Bukkit.getScheduler().runTask(plugin, () -> {
@@ -269,6 +290,7 @@ public class LikeTracker {
     private long[] getStatsAPI() {
         String apiKey = plugin.getConfigManager().getApiKey();
         String url = BASE_URL + "/videos?part=statistics&id=" + currentVideoId + "&key=" + apiKey;
+        videosQuota.add(YouTubeAPI.QUOTA_VIDEOS);
 
         try {
             Request request = new Request.Builder()
@@ -2,33 +2,78 @@ package fr.arkyalys.event.youtube;
 
 import fr.arkyalys.event.YouTubeEventPlugin;
 import fr.arkyalys.event.api.events.YouTubeConnectionEvent;
+import fr.arkyalys.event.metrics.Counter;
+import fr.arkyalys.event.metrics.Histogram;
+import fr.arkyalys.event.metrics.MetricsRegistry;
+import fr.arkyalys.event.util.DebugLogger;
 import fr.arkyalys.event.youtube.models.ChatMessage;
 import org.bukkit.Bukkit;
-import org.bukkit.scheduler.BukkitTask;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Gère le polling du chat YouTube Live
  * Utilise automatiquement InnerTube (0 quota) ou Data API (fallback)
+ *
+ * La boucle de polling tourne sur son propre thread (hors scheduler Bukkit)
+ * et se re-planifie après chaque réponse:
+ * - délai = intervalle conseillé par le serveur (timeoutMs / pollingIntervalMillis)
+ * - rafale de messages = délai réduit pour suivre les moments de hype
+ * - chat calme = délai allongé progressivement
+ * - erreur = backoff exponentiel avec jitter
  */
 public class LiveChatPoller {
 
     private final YouTubeEventPlugin plugin;
     private final YouTubeAPI api;
 
-    private BukkitTask pollTask;
+    private ScheduledExecutorService pollExecutor;
+    private volatile ChatDispatcher dispatcher;
+    private final ChatRecorder recorder;
     private String currentLiveId;
-    private boolean running = false;
+    private volatile boolean running = false;
+
+    // État adaptatif (modifié uniquement par le thread de polling)
+    private int consecutiveErrors = 0;
+    private int consecutiveEmptyPolls = 0;
+    private volatile long currentPollDelay = 0;
 
     // Stats
-    private int totalMessagesReceived = 0;
+    private volatile int totalMessagesReceived = 0;
     private long connectionTime = 0;
 
+    // Métriques (registre du plugin)
+    private final Histogram pollDuration;
+    private final Counter pollErrors;
+    private final EnumMap<ChatMessage.MessageType, Counter> messagesByType = new EnumMap<>(ChatMessage.MessageType.class);
+
     public LiveChatPoller(YouTubeEventPlugin plugin) {
         this.plugin = plugin;
         this.api = plugin.getYouTubeAPI();
+        this.recorder = new ChatRecorder(plugin);
+
+        MetricsRegistry metrics = plugin.getMetrics();
+        this.pollDuration = metrics.histogram("youtubeevent_chat_poll_duration_seconds",
+                "Duree d'un poll du chat (requete, parsing et deduplication)");
+        this.pollErrors = metrics.counter("youtubeevent_chat_poll_errors_total", "Polls du chat en echec");
+        for (ChatMessage.MessageType type : ChatMessage.MessageType.values()) {
+            messagesByType.put(type, metrics.counter("youtubeevent_chat_messages_total",
+                    "Messages recus du chat par type", "type", type.name().toLowerCase(Locale.ROOT)));
+        }
+        metrics.gauge("youtubeevent_chat_connected", "1 si le chat d'un live est suivi", () -> running ? 1 : 0);
+        metrics.gauge("youtubeevent_chat_poll_delay_seconds", "Delai applique avant le prochain poll",
+                () -> getCurrentPollDelay() / 1000.0);
+        metrics.gauge("youtubeevent_chat_queue_depth", "Messages en attente de traitement sur le thread principal", () -> {
+            ChatDispatcher current = dispatcher;
+            return current != null ? current.getQueueDepth() : 0;
+        });
     }
 
     /**
@@ -70,6 +115,11 @@ public class LiveChatPoller {
                             plugin.getLogger().warning("Mode quota actif (Data API) - Attention a la limite!");
                         }
 
+                        // Enregistrement automatique (pas pendant un rejeu ou un test de charge)
+                        if (plugin.getConfigManager().isAutoRecord() && !api.isSimulated()) {
+                            recorder.start(currentLiveId);
+                        }
+
                         // Démarrer le polling
                         startPolling();
 
@@ -100,16 +150,20 @@ public class LiveChatPoller {
     public void stop() {
         String disconnectedLiveId = currentLiveId;
 
-        if (pollTask != null) {
-            pollTask.cancel();
-            pollTask = null;
+        running = false;
+        if (pollExecutor != null) {
+            pollExecutor.shutdownNow();
+            pollExecutor = null;
         }
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+
+        recorder.stop();
 
         // Déconnecter l'API
         api.disconnect();
 
-        running = false;
-
         plugin.getLogger().info("Deconnecte du live YouTube.");
 
         // Déclencher l'événement de déconnexion Bukkit
@@ -135,41 +189,150 @@ public class LiveChatPoller {
      * Démarre la boucle de polling
      */
     private void startPolling() {
-        // L'intervalle est déterminé par le provider
-        final int intervalTicks = Math.max(api.getPollingInterval() / 50, 20); // Minimum 1 seconde
+        consecutiveErrors = 0;
+        consecutiveEmptyPolls = 0;
+
+        // Inbox vidée sur le thread principal à chaque tick
+        dispatcher = new ChatDispatcher(plugin, this::processMessage,
+                plugin.getConfigManager().getDispatchQueueCapacity(),
+                plugin.getConfigManager().getDispatchTickBudgetNanos(),
+                parseOverflowPolicy(plugin.getConfigManager().getDispatchOverflowPolicy()));
+        dispatcher.start();
+
+        pollExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "YouTubeEvent-ChatPoller");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduleNextPoll(pollExecutor, 1000L); // Premier poll après 1 seconde
+    }
 
-        pollTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> {
-            if (!running || !api.isConnected()) {
-                return;
-            }
+    /**
+     * Planifie le prochain poll sur l'executor donné
+     * (l'executor est passé explicitement pour ne pas relancer une boucle arrêtée)
+     */
+    private void scheduleNextPoll(ScheduledExecutorService executor, long delayMs) {
+        if (!running || executor.isShutdown()) {
+            return;
+        }
 
-            try {
-                // Récupérer les nouveaux messages via le provider actif
-                List<ChatMessage> messages = api.pollMessages();
+        currentPollDelay = delayMs;
+        executor.schedule(() -> pollOnce(executor), delayMs, TimeUnit.MILLISECONDS);
+    }
 
-                if (!messages.isEmpty()) {
-                    totalMessagesReceived += messages.size();
+    /**
+     * Exécute un poll puis se re-planifie selon la réponse
+     */
+    private void pollOnce(ScheduledExecutorService executor) {
+        if (!running) {
+            return;
+        }
 
-                    // Traiter les messages sur le thread principal
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        for (ChatMessage message : messages) {
-                            processMessage(message);
-                        }
-                    });
+        if (!api.isConnected()) {
+            // Provider déconnecté: on attend sans solliciter YouTube
+            scheduleNextPoll(executor, plugin.getConfigManager().getPollMaxDelayMs());
+            return;
+        }
+
+        int received = 0;
+        boolean failed;
+        long start = System.nanoTime();
+
+        try {
+            // Récupérer les nouveaux messages via le provider actif
+            List<ChatMessage> messages = api.pollMessages();
+            failed = api.hasLastPollFailed();
+            received = messages.size();
+            pollDuration.recordSince(start);
+
+            if (!messages.isEmpty()) {
+                totalMessagesReceived += messages.size();
+                recorder.record(messages);
+                for (ChatMessage message : messages) {
+                    messagesByType.get(message.getType()).increment();
                 }
 
-            } catch (Exception e) {
-                plugin.getLogger().severe("Erreur pendant le polling: " + e.getMessage());
+                // Déposer dans l'inbox (traitée sur le thread principal, par lots)
+                dispatcher.submit(messages);
             }
-        }, 20L, intervalTicks);
+
+        } catch (InterruptedException e) {
+            // stop() pendant un blocage (overflow-policy BLOCK)
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            plugin.getLogger().severe("Erreur pendant le polling: " + e.getMessage());
+            failed = true;
+        }
+
+        if (failed) {
+            pollErrors.increment();
+        }
+        scheduleNextPoll(executor, computeNextDelay(received, failed));
+    }
+
+    /**
+     * Calcule le délai avant le prochain poll
+     * @param received Nombre de messages reçus au dernier poll
+     * @param failed true si le dernier poll a échoué
+     */
+    private long computeNextDelay(int received, boolean failed) {
+        var config = plugin.getConfigManager();
+        long minDelay = Math.max(config.getPollMinDelayMs(), 250);
+        long maxDelay = Math.max(config.getPollMaxDelayMs(), minDelay);
+
+        // Intervalle conseillé par le serveur (mis à jour à chaque réponse)
+        long hint = Math.max(api.getPollingInterval(), minDelay);
+
+        if (failed) {
+            // Backoff exponentiel avec jitter: [base/2, base]
+            consecutiveErrors++;
+            consecutiveEmptyPolls = 0;
+            long base = Math.min(hint << Math.min(consecutiveErrors, 6), Math.max(config.getPollMaxBackoffMs(), hint));
+            return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+        }
+
+        consecutiveErrors = 0;
+
+        if (received >= config.getPollBurstThreshold() && !api.isUsingQuota()) {
+            // Rafale: on accélère pour réduire la latence (pas avec la Data API: chaque requête coûte du quota)
+            consecutiveEmptyPolls = 0;
+            return clamp(hint / 2, minDelay, maxDelay);
+        }
+
+        if (received == 0) {
+            // Chat calme: +25% par poll vide consécutif
+            consecutiveEmptyPolls = Math.min(consecutiveEmptyPolls + 1, 8);
+            return clamp(hint + hint * consecutiveEmptyPolls / 4, minDelay, maxDelay);
+        }
+
+        consecutiveEmptyPolls = 0;
+        return clamp(hint, minDelay, maxDelay);
+    }
+
+    private long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(value, max));
+    }
+
+    private ChatDispatcher.OverflowPolicy parseOverflowPolicy(String name) {
+        try {
+            return ChatDispatcher.OverflowPolicy.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            plugin.getLogger().warning("overflow-policy invalide: " + name + ", utilisation de DROP_OLDEST");
+            return ChatDispatcher.OverflowPolicy.DROP_OLDEST;
+        }
     }
 
     /**
      * Traite un message reçu
      */
     private void processMessage(ChatMessage message) {
-        // Log le message
-        plugin.getLogger().info("YouTube: " + message.toString());
+        // Log du message dans debug.log (pas dans la console: un live chargé noierait latest.log)
+        // Messages simulés (/youtube test stress) non loggés: le test mesure le traitement, pas les logs
+        if (!api.isSimulated()) {
+            DebugLogger.logYouTube("Chat: " + message);
+        }
 
         // Déclencher les événements via l'EventManager
         plugin.getEventManager().handleMessage(message);
@@ -188,6 +351,34 @@ public class LiveChatPoller {
         return totalMessagesReceived;
     }
 
+    /**
+     * Enregistreur du chat (/youtube record)
+     */
+    public ChatRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Durées des polls (cumulées depuis le démarrage du plugin)
+     */
+    public Histogram getPollDuration() {
+        return pollDuration;
+    }
+
+    /**
+     * File de dispatch vers le thread principal (null avant la première connexion)
+     */
+    public ChatDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Délai actuellement appliqué avant le prochain poll (ms)
+     */
+    public long getCurrentPollDelay() {
+        return running ? currentPollDelay : 0;
+    }
+
     public long getConnectionTime() {
         return connectionTime;
     }
@@ -0,0 +1,158 @@
+package fr.arkyalys.event.youtube;
+
+import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.youtube.provider.SyntheticChatProvider;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test de charge du pipeline de chat (/youtube test stress)
+ *
+ * Branche un SyntheticChatProvider à la place de YouTube, mesure l'intervalle entre les ticks
+ * pendant toute la durée, puis rend un rapport: débit généré/traité, pertes, impact sur les ticks
+ * et lag de la file de dispatch. La connexion est coupée automatiquement à la fin.
+ */
+public class StressTest {
+
+    // Attente max de la vidange de la file après la fin de la génération
+    private static final long DRAIN_TIMEOUT_NANOS = 10_000_000_000L;
+    private static final long TICK_NANOS = 50_000_000L;
+
+    private final YouTubeEventPlugin plugin;
+    private final SyntheticChatProvider provider;
+    private final CommandSender sender;
+
+    private BukkitTask monitor;
+    private long startNanos;
+    private long finishedAt;
+    private boolean connected;
+
+    // Intervalle entre deux ticks
+    private long lastTick;
+    private long ticks;
+    private long tickGapNanos;
+    private long maxTickGapNanos;
+    private long slowTicks;
+
+    public StressTest(YouTubeEventPlugin plugin, SyntheticChatProvider provider, CommandSender sender) {
+        this.plugin = plugin;
+        this.provider = provider;
+        this.sender = sender;
+    }
+
+    /**
+     * Lance le test (thread principal)
+     * @return false si une connexion est déjà active
+     */
+    public boolean start() {
+        if (plugin.isConnected() || !plugin.startSimulated(provider, "stress:" + provider.getProfile().name().toLowerCase())) {
+            return false;
+        }
+        startNanos = System.nanoTime();
+        lastTick = startNanos;
+        monitor = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        return true;
+    }
+
+    public boolean isRunning() {
+        return monitor != null;
+    }
+
+    /**
+     * Arrête le test avant la fin et affiche le rapport partiel
+     */
+    public void cancel() {
+        if (monitor != null) {
+            finish();
+        }
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        long gap = now - lastTick;
+        lastTick = now;
+
+        if (!plugin.isConnected()) {
+            // Connexion coupée (/youtube stop) ou jamais établie
+            if (connected || now - startNanos > DRAIN_TIMEOUT_NANOS) {
+                finish();
+            }
+            return;
+        }
+        if (!connected) {
+            // Premier tick connecté: les mesures commencent ici
+            connected = true;
+            return;
+        }
+
+        ticks++;
+        tickGapNanos += gap;
+        if (gap > maxTickGapNanos) {
+            maxTickGapNanos = gap;
+        }
+        if (gap > TICK_NANOS + TICK_NANOS / 10) {
+            slowTicks++;
+        }
+
+        if (provider.isFinished()) {
+            if (finishedAt == 0) {
+                finishedAt = now;
+            }
+            ChatDispatcher dispatcher = plugin.getLiveChatPoller().getDispatcher();
+            if (dispatcher == null || dispatcher.getQueueDepth() == 0 || now - finishedAt > DRAIN_TIMEOUT_NANOS) {
+                finish();
+            }
+        }
+    }
+
+    private void finish() {
+        monitor.cancel();
+        monitor = null;
+
+        // Lire les compteurs avant stop() (qui vide la file)
+        List<String> report = buildReport(connected ? plugin.getLiveChatPoller().getDispatcher() : null);
+        if (plugin.isConnected()) {
+            plugin.stopLive();
+        }
+
+        for (String line : report) {
+            sender.sendMessage(line.replace("&", "\u00A7"));
+            plugin.getLogger().info("[Stress] " + line.replaceAll("&[0-9a-fk-or]", ""));
+        }
+    }
+
+    private List<String> buildReport(ChatDispatcher dispatcher) {
+        double seconds = Math.max((System.nanoTime() - startNanos) / 1_000_000_000.0, 0.001);
+        long generated = provider.getGeneratedCount();
+        List<String> lines = new ArrayList<>();
+
+        lines.add("&6========== &eTest de charge &6==========");
+        lines.add("&7Profil: &f" + provider.getProfile().name().toLowerCase() + " &7a &f" + provider.getRate() + " &7msg/s max, &f" +
+                String.format("%.1f", seconds) + "s");
+        lines.add("&7Generes: &f" + generated + " &7(" + String.format("%.0f", generated / seconds) + " msg/s)");
+
+        if (dispatcher != null) {
+            long dispatched = dispatcher.getDispatchedCount();
+            lines.add("&7Traites: &f" + dispatched + " &7(" + String.format("%.0f", dispatched / seconds) + " msg/s), perdus: &f" +
+                    dispatcher.getDroppedCount() + "&7, textes abandonnes: &f" + dispatcher.getTextDroppedCount() +
+                    "&7, fusionnes: &f" + dispatcher.getCoalescedCount() +
+                    "&7, restants: &f" + dispatcher.getQueueDepth());
+            lines.add("&7Lag de la file: max &f" + String.format("%.1f", dispatcher.getMaxLagMillis()) + "ms&7, dernier &f" +
+                    String.format("%.1f", dispatcher.getLastLagMillis()) + "ms");
+            lines.add("&7Dispatch par tick: moy &f" + String.format("%.2f", dispatcher.getAverageDrainMillis()) + "ms&7, max &f" +
+                    String.format("%.2f", dispatcher.getMaxDrainMillis()) + "ms&7, budget epuise &f" +
+                    dispatcher.getTicksOverBudget() + " &7fois");
+        }
+
+        if (ticks > 0) {
+            lines.add("&7Ticks: moy &f" + String.format("%.1f", tickGapNanos / (double) ticks / 1_000_000.0) + "ms&7, max &f" +
+                    String.format("%.1f", maxTickGapNanos / 1_000_000.0) + "ms&7, &f" + slowTicks + "&7/&f" + ticks +
+                    " &7au-dela de 55ms");
+        }
+        return lines;
+    }
+}
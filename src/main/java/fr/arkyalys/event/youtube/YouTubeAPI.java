@@ -5,6 +5,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.metrics.Counter;
 import fr.arkyalys.event.youtube.models.ChatMessage;
 import fr.arkyalys.event.youtube.provider.ChatProvider;
 import fr.arkyalys.event.youtube.provider.DataAPIProvider;
@@ -16,7 +17,6 @@ import okhttp3.Response;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Gère les appels à YouTube (InnerTube + Data API v3)
@@ -29,31 +29,63 @@ public class YouTubeAPI {
 
     private static final String BASE_URL = "https://www.googleapis.com/youtube/v3";
 
+    // Coût en quota des appels Data API v3 utilisés par le plugin
+    public static final int QUOTA_SEARCH = 100;
+    public static final int QUOTA_VIDEOS = 1;
+    public static final int QUOTA_CHAT_MESSAGES = 5;
+
     private final YouTubeEventPlugin plugin;
     private final OkHttpClient httpClient;
 
     // Providers
-    private ChatProvider activeProvider;
+    private volatile ChatProvider activeProvider;
     private final InnerTubeProvider innerTubeProvider;
     private final DataAPIProvider dataAPIProvider;
 
+    // Provider imposé pour la prochaine connexion (rejeu d'un enregistrement)
+    private volatile ChatProvider overrideProvider;
+
     // Configuration
     private boolean preferInnerTube = true;
     private boolean fallbackToDataAPI = true;
 
     // Anti-spam pour les erreurs de quota
-    private boolean quotaErrorLogged = false;
+    private volatile boolean quotaErrorLogged = false;
+
+    // Métriques
+    private final Counter searchQuota;
 
     public YouTubeAPI(YouTubeEventPlugin plugin) {
         this.plugin = plugin;
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(10, TimeUnit.SECONDS)
-                .readTimeout(10, TimeUnit.SECONDS)
-                .build();
+        this.httpClient = plugin.getHttpClient().getClient();
 
         // Initialiser les providers
         this.innerTubeProvider = new InnerTubeProvider(plugin);
         this.dataAPIProvider = new DataAPIProvider(plugin);
+
+        this.searchQuota = quotaCounter(plugin, "search.list");
+        plugin.getMetrics().gauge("youtubeevent_youtube_provider_active", "1 pour le provider de chat actif",
+                () -> activeProvider == innerTubeProvider ? 1 : 0, "provider", "innertube");
+        plugin.getMetrics().gauge("youtubeevent_youtube_provider_active", "1 pour le provider de chat actif",
+                () -> activeProvider == dataAPIProvider ? 1 : 0, "provider", "dataapi");
+        plugin.getMetrics().gauge("youtubeevent_youtube_quota_exhausted", "1 si le quota Data API a ete epuise",
+                () -> quotaErrorLogged ? 1 : 0);
+    }
+
+    /**
+     * Compteur des unités de quota Data API consommées par une opération (search.list, videos.list...)
+     */
+    public static Counter quotaCounter(YouTubeEventPlugin plugin, String operation) {
+        return plugin.getMetrics().counter("youtubeevent_youtube_quota_units_total",
+                "Unites de quota Data API v3 consommees", "operation", operation);
+    }
+
+    /**
+     * Compteur des recherches de live par méthode et résultat
+     */
+    private Counter liveCheck(String method, String liveId) {
+        return plugin.getMetrics().counter("youtubeevent_youtube_live_checks_total",
+                "Recherches de live par methode", "method", method, "result", liveId != null ? "live" : "none");
     }
 
     /**
@@ -80,6 +112,18 @@ public class YouTubeAPI {
      * @return true si connexion réussie
      */
     public boolean connectToLiveChat(String videoId) {
+        ChatProvider override = overrideProvider;
+        if (override != null) {
+            if (override.connect(videoId)) {
+                this.activeProvider = override;
+                plugin.getLogger().info("Connecte via " + override.getName());
+                return true;
+            }
+            overrideProvider = null;
+            plugin.getLogger().severe("Impossible de se connecter via " + override.getName());
+            return false;
+        }
+
         // Essayer InnerTube en premier si préféré
         if (preferInnerTube) {
             plugin.getLogger().info("Tentative de connexion via InnerTube (sans quota)...");
@@ -111,10 +155,29 @@ public class YouTubeAPI {
     public void disconnect() {
         if (activeProvider != null) {
             activeProvider.disconnect();
+            if (activeProvider == overrideProvider) {
+                overrideProvider = null;
+            }
             activeProvider = null;
         }
     }
 
+    /**
+     * Impose un provider pour la prochaine connexion, à la place d'InnerTube/Data API
+     * Retiré automatiquement à la déconnexion
+     */
+    public void setOverrideProvider(ChatProvider provider) {
+        this.overrideProvider = provider;
+    }
+
+    /**
+     * Indique si le chat vient d'un provider local (rejeu, trafic synthétique) et non de YouTube
+     */
+    public boolean isSimulated() {
+        ChatProvider active = activeProvider;
+        return active != null && active == overrideProvider;
+    }
+
     /**
      * Récupère les nouveaux messages du chat
      */
@@ -125,6 +188,13 @@ public class YouTubeAPI {
         return activeProvider.pollMessages();
     }
 
+    /**
+     * Indique si le dernier poll du provider actif a échoué
+     */
+    public boolean hasLastPollFailed() {
+        return activeProvider != null && activeProvider.hasLastPollFailed();
+    }
+
     /**
      * Vérifie si connecté au chat
      */
@@ -162,6 +232,7 @@ public class YouTubeAPI {
         String username = plugin.getConfigManager().getChannelUsername();
         if (username != null && !username.isEmpty()) {
             String liveId = findActiveLiveByUsername(username);
+            liveCheck("username", liveId).increment();
             if (liveId != null) {
                 return liveId;
             }
@@ -169,13 +240,16 @@ public class YouTubeAPI {
 
         // 2. Essayer avec le channel ID (méthode /live)
         String liveId = findActiveLiveFree(channelId);
+        liveCheck("channel", liveId).increment();
         if (liveId != null) {
             return liveId;
         }
 
         // 3. Fallback sur l'API si activée
         if (fallbackToDataAPI) {
-            return findActiveLiveAPI(channelId);
+            liveId = findActiveLiveAPI(channelId);
+            liveCheck("api", liveId).increment();
+            return liveId;
         }
 
         return null;
@@ -324,6 +398,7 @@ public class YouTubeAPI {
 
         String url = BASE_URL + "/search?part=snippet&channelId=" + channelId +
                 "&type=video&eventType=live&key=" + apiKey;
+        searchQuota.add(QUOTA_SEARCH);
 
         try {
             Request request = new Request.Builder()
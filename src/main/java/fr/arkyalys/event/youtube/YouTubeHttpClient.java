@@ -0,0 +1,304 @@
+package fr.arkyalys.event.youtube;
+
+import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.config.ConfigManager;
+import fr.arkyalys.event.metrics.Histogram;
+import fr.arkyalys.event.metrics.MetricsRegistry;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.brotli.BrotliInterceptor;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client HTTP partagé par tous les composants YouTube
+ * (YouTubeAPI, InnerTubeProvider, DataAPIProvider, LikeTracker)
+ *
+ * - un seul pool de connexions et un seul dispatcher (sessions TLS réutilisées)
+ * - HTTP/2 négocié avec youtube.com / googleapis.com (multiplexage)
+ * - décompression gzip + brotli
+ * - limite de requêtes simultanées par hôte (aussi pour les appels synchrones), corps de réponse compris
+ * - métriques: requêtes, échecs, octets, latence, réutilisation des connexions
+ */
+public class YouTubeHttpClient {
+
+    private final YouTubeEventPlugin plugin;
+    private final OkHttpClient client;
+    private final int maxRequestsPerHost;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    // Métriques
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong connectionsAcquired = new AtomicLong();
+    private final AtomicLong newConnections = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final Histogram latencyHistogram;
+
+    public YouTubeHttpClient(YouTubeEventPlugin plugin) {
+        this.plugin = plugin;
+
+        ConfigManager config = plugin.getConfigManager();
+        this.maxRequestsPerHost = Math.max(config.getHttpMaxRequestsPerHost(), 1);
+
+        okhttp3.Dispatcher dispatcher = new okhttp3.Dispatcher();
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        this.client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(
+                        config.getHttpMaxIdleConnections(),
+                        config.getHttpKeepAliveSeconds(), TimeUnit.SECONDS))
+                .dispatcher(dispatcher)
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(config.getHttpConnectTimeout(), TimeUnit.SECONDS)
+                .readTimeout(config.getHttpReadTimeout(), TimeUnit.SECONDS)
+                .pingInterval(30, TimeUnit.SECONDS) // Garde les connexions HTTP/2 vivantes entre deux polls
+                .addInterceptor(this::limitPerHost)
+                .addInterceptor(BrotliInterceptor.INSTANCE)
+                .eventListenerFactory(call -> new MetricsListener())
+                .build();
+
+        MetricsRegistry metrics = plugin.getMetrics();
+        this.latencyHistogram = metrics.histogram("youtubeevent_http_request_duration_seconds",
+                "Duree des requetes HTTP vers YouTube (tous composants)");
+        metrics.functionCounter("youtubeevent_http_requests_total", "Requetes HTTP vers YouTube", requests::get);
+        metrics.functionCounter("youtubeevent_http_failures_total", "Requetes HTTP en echec (reseau, timeout)", failures::get);
+        metrics.functionCounter("youtubeevent_http_received_bytes_total", "Octets recus de YouTube", bytesReceived::get);
+        metrics.functionCounter("youtubeevent_http_sent_bytes_total", "Octets envoyes a YouTube", bytesSent::get);
+        metrics.functionCounter("youtubeevent_http_new_connections_total", "Nouvelles connexions ouvertes", newConnections::get);
+        metrics.gauge("youtubeevent_http_pooled_connections", "Connexions ouvertes dans le pool", this::getPooledConnectionCount);
+    }
+
+    /**
+     * Client partagé (même pool, même dispatcher)
+     */
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * Variante du client partagé avec un autre timeout de lecture
+     * (partage toujours le pool de connexions et le dispatcher)
+     */
+    public OkHttpClient withReadTimeout(int seconds) {
+        return client.newBuilder()
+                .readTimeout(seconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Ferme les connexions et le dispatcher (onDisable)
+     */
+    public void shutdown() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    /**
+     * Limite le nombre de requêtes simultanées vers un même hôte
+     * (le Dispatcher OkHttp ne limite que les appels asynchrones)
+     * Le slot est gardé jusqu'à la fermeture du corps de la réponse (transfert compris).
+     */
+    private Response limitPerHost(Interceptor.Chain chain) throws IOException {
+        String host = chain.request().url().host();
+        Semaphore permits = hostPermits.computeIfAbsent(host, h -> new Semaphore(maxRequestsPerHost));
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompu en attente d'un slot pour " + host);
+        }
+
+        Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            permits.release();
+            return response;
+        }
+        return response.newBuilder().body(new PermitBody(body, permits)).build();
+    }
+
+    /**
+     * Corps de réponse qui rend le slot de l'hôte à sa fermeture (une seule fois)
+     * ResponseBody.close() ferme source(): tous les appels ferment la Response (try-with-resources), donc le slot.
+     */
+    private static final class PermitBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private BufferedSource source;
+
+        PermitBody(ResponseBody delegate, Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            release();
+                        }
+                    }
+                });
+            }
+            return source;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Collecte les métriques d'un appel (une instance par appel)
+     */
+    private class MetricsListener extends EventListener {
+
+        private long startNanos;
+
+        @Override
+        public void callStart(Call call) {
+            startNanos = System.nanoTime();
+            requests.incrementAndGet();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            newConnections.incrementAndGet();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            connectionsAcquired.incrementAndGet();
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            bytesSent.addAndGet(byteCount);
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            bytesReceived.addAndGet(byteCount);
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            recordLatency();
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            failures.incrementAndGet();
+            recordLatency();
+        }
+
+        private void recordLatency() {
+            long latency = System.nanoTime() - startNanos;
+            totalLatencyNanos.addAndGet(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            latencyHistogram.record(latency);
+        }
+    }
+
+    // ==================== Métriques ====================
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * Octets reçus (corps compressés, tels que transmis sur le réseau)
+     */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * Latence moyenne d'une requête complète, en ms
+     */
+    public double getAverageLatencyMillis() {
+        long count = requests.get();
+        return count == 0 ? 0 : totalLatencyNanos.get() / (count * 1_000_000.0);
+    }
+
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    public long getNewConnectionCount() {
+        return newConnections.get();
+    }
+
+    /**
+     * Part des requêtes servies par une connexion existante (0 à 1)
+     */
+    public double getConnectionReuseRatio() {
+        long acquired = connectionsAcquired.get();
+        if (acquired == 0) return 0;
+        return Math.max(0, 1.0 - (double) newConnections.get() / acquired);
+    }
+
+    public int getPooledConnectionCount() {
+        return client.connectionPool().connectionCount();
+    }
+}
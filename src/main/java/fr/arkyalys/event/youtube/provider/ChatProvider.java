@@ -33,6 +33,15 @@ public interface ChatProvider {
      */
     List<ChatMessage> pollMessages();
 
+    /**
+     * Indique si le dernier pollMessages() a échoué (erreur HTTP ou réseau)
+     * Permet au poller de distinguer "pas de message" d'une erreur et d'appliquer un backoff
+     * Par défaut false (provider qui n'échoue pas, ex: rejeu local)
+     */
+    default boolean hasLastPollFailed() {
+        return false;
+    }
+
     /**
      * Vérifie si le provider est connecté
      */
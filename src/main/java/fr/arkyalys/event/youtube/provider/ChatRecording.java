@@ -0,0 +1,247 @@
+package fr.arkyalys.event.youtube.provider;
+
+import fr.arkyalys.event.youtube.models.ChatMessage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fichier d'enregistrement du chat (.ytrec), rejoué par ReplayChatProvider
+ *
+ * Format binaire compact, en ajout seul:
+ * - en-tête: magic "YTRC", version, date de début (epoch ms), ID du live
+ * - puis un bloc par poll non vide: décalage depuis le début (ms), nombre de messages, messages
+ *
+ * Chaque bloc est flushé à l'écriture: un crash serveur ne perd au pire que le dernier poll,
+ * et un bloc tronqué en fin de fichier est ignoré à la lecture.
+ */
+public final class ChatRecording {
+
+    private static final int MAGIC = 0x59545243; // "YTRC"
+    private static final int VERSION = 1;
+
+    // Drapeaux d'un message
+    private static final int FLAG_MODERATOR = 1;
+    private static final int FLAG_OWNER = 1 << 1;
+    private static final int FLAG_SPONSOR = 1 << 2;
+    private static final int FLAG_AMOUNT = 1 << 3;
+
+    private static final ChatMessage.MessageType[] TYPES = ChatMessage.MessageType.values();
+
+    /**
+     * Messages reçus par un poll, à offsetMillis du début de l'enregistrement
+     */
+    public record Batch(long offsetMillis, List<ChatMessage> messages) {}
+
+    /**
+     * Enregistrement complet chargé en mémoire
+     */
+    public record Recording(String liveId, long startedAt, List<Batch> batches) {
+
+        public int getMessageCount() {
+            int count = 0;
+            for (Batch batch : batches) {
+                count += batch.messages().size();
+            }
+            return count;
+        }
+
+        public long getDurationMillis() {
+            return batches.isEmpty() ? 0 : batches.get(batches.size() - 1).offsetMillis();
+        }
+    }
+
+    private ChatRecording() {
+    }
+
+    // ==================== Écriture ====================
+
+    /**
+     * Écrivain d'un enregistrement (utilisé depuis un seul thread: celui du poller)
+     */
+    public static final class Writer implements Closeable {
+        private final File file;
+        private final DataOutputStream out;
+        private final long startNanos = System.nanoTime();
+        private int batchCount;
+        private int messageCount;
+
+        private Writer(File file, String liveId) throws IOException {
+            this.file = file;
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 16 * 1024));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeUTF(liveId != null ? liveId : "");
+            out.flush();
+        }
+
+        /**
+         * Ajoute les messages d'un poll
+         */
+        public void write(List<ChatMessage> messages) throws IOException {
+            if (messages.isEmpty()) return;
+
+            out.writeLong((System.nanoTime() - startNanos) / 1_000_000L);
+            out.writeInt(messages.size());
+            for (ChatMessage message : messages) {
+                writeMessage(out, message);
+            }
+            out.flush();
+
+            batchCount++;
+            messageCount += messages.size();
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public int getBatchCount() {
+            return batchCount;
+        }
+
+        public int getMessageCount() {
+            return messageCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Crée un nouveau fichier d'enregistrement (les dossiers parents sont créés)
+     */
+    public static Writer create(File file, String liveId) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Impossible de creer " + parent);
+        }
+        return new Writer(file, liveId);
+    }
+
+    private static void writeMessage(DataOutputStream out, ChatMessage message) throws IOException {
+        boolean hasAmount = message.getAmountDisplay() != null;
+        int flags = (message.isModerator() ? FLAG_MODERATOR : 0)
+                | (message.isOwner() ? FLAG_OWNER : 0)
+                | (message.isSponsor() ? FLAG_SPONSOR : 0)
+                | (hasAmount ? FLAG_AMOUNT : 0);
+
+        out.writeByte(message.getType().ordinal());
+        out.writeByte(flags);
+        writeString(out, message.getMessageId());
+        writeString(out, message.getAuthorChannelId());
+        writeString(out, message.getAuthorName());
+        writeString(out, message.getAuthorProfileImage());
+        writeString(out, message.getMessage());
+        out.writeLong(message.getPublishedAt());
+        if (hasAmount) {
+            writeString(out, message.getAmountDisplay());
+            out.writeLong(message.getAmountMicros());
+            writeString(out, message.getCurrency());
+        }
+    }
+
+    /**
+     * Chaîne nullable, tronquée à la limite de writeUTF (un message de chat en est très loin)
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeBoolean(false);
+            return;
+        }
+        out.writeBoolean(true);
+        out.writeUTF(value.length() > 16_000 ? value.substring(0, 16_000) : value);
+    }
+
+    // ==================== Lecture ====================
+
+    /**
+     * Charge un enregistrement complet
+     * @throws IOException si le fichier est illisible ou n'est pas un enregistrement
+     */
+    public static Recording read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Fichier d'enregistrement invalide: " + file.getName());
+            }
+            int version = in.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException("Version d'enregistrement non supportee: " + version);
+            }
+            long startedAt = in.readLong();
+            String liveId = in.readUTF();
+
+            List<Batch> batches = new ArrayList<>();
+            while (true) {
+                Batch batch = readBatch(in);
+                if (batch == null) break;
+                batches.add(batch);
+            }
+            return new Recording(liveId, startedAt, batches);
+        }
+    }
+
+    /**
+     * Lit un bloc (null en fin de fichier ou si le dernier bloc est tronqué)
+     */
+    private static Batch readBatch(DataInputStream in) throws IOException {
+        try {
+            long offset = in.readLong();
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Bloc corrompu (" + count + " messages)");
+            }
+            List<ChatMessage> messages = new ArrayList<>(Math.min(count, 4096));
+            for (int i = 0; i < count; i++) {
+                messages.add(readMessage(in));
+            }
+            return new Batch(offset, messages);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static ChatMessage readMessage(DataInputStream in) throws IOException {
+        int typeIndex = in.readUnsignedByte();
+        if (typeIndex >= TYPES.length) {
+            throw new IOException("Type de message inconnu: " + typeIndex);
+        }
+        int flags = in.readUnsignedByte();
+        String messageId = readString(in);
+        String authorChannelId = readString(in);
+        String authorName = readString(in);
+        String profileImage = readString(in);
+        String text = readString(in);
+        long publishedAt = in.readLong();
+
+        String amountDisplay = null;
+        long amountMicros = 0;
+        String currency = null;
+        if ((flags & FLAG_AMOUNT) != 0) {
+            amountDisplay = readString(in);
+            amountMicros = in.readLong();
+            currency = readString(in);
+        }
+
+        return new ChatMessage(messageId, authorChannelId, authorName, profileImage, text, publishedAt,
+                TYPES[typeIndex], amountDisplay, amountMicros, currency,
+                (flags & FLAG_MODERATOR) != 0, (flags & FLAG_OWNER) != 0, (flags & FLAG_SPONSOR) != 0);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
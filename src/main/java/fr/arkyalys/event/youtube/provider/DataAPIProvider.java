@@ -2,15 +2,14 @@ package fr.arkyalys.event.youtube.provider;
 
 import com.google.gson.*;
 import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.metrics.Counter;
+import fr.arkyalys.event.youtube.YouTubeAPI;
 import fr.arkyalys.event.youtube.models.ChatMessage;
 import okhttp3.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Provider YouTube Data API v3 - Utilise le quota API
@@ -30,15 +29,26 @@ public class DataAPIProvider implements ChatProvider {
     private String videoId;
     private boolean connected = false;
     private int pollingInterval = 3000;
+    private volatile boolean lastPollFailed = false;
+    private final ProviderMetrics metrics;
+    private final Counter messagesQuota;
+    private final Counter videosQuota;
 
-    private final Set<String> processedMessageIds = new HashSet<>();
+    // Pour éviter les doublons (mémoire bornée)
+    private MessageDeduplicator processedMessageIds;
 
     public DataAPIProvider(YouTubeEventPlugin plugin) {
         this.plugin = plugin;
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(10, TimeUnit.SECONDS)
-                .readTimeout(10, TimeUnit.SECONDS)
-                .build();
+        this.httpClient = plugin.getHttpClient().getClient();
+        this.processedMessageIds = createDeduplicator();
+        this.metrics = new ProviderMetrics(plugin.getMetrics(), "dataapi");
+        this.messagesQuota = YouTubeAPI.quotaCounter(plugin, "liveChatMessages.list");
+        this.videosQuota = YouTubeAPI.quotaCounter(plugin, "videos.list");
+    }
+
+    private MessageDeduplicator createDeduplicator() {
+        return new MessageDeduplicator(plugin.getConfigManager().getDedupMaxIds(),
+                plugin.getConfigManager().getDedupWindowSeconds() * 1000L);
     }
 
     @Override
@@ -49,7 +59,7 @@ public class DataAPIProvider implements ChatProvider {
     @Override
     public boolean connect(String videoId) {
         this.videoId = videoId;
-        this.processedMessageIds.clear();
+        this.processedMessageIds = createDeduplicator();
 
         plugin.getLogger().info("[DataAPI] Connexion au live: " + videoId);
 
@@ -97,6 +107,9 @@ public class DataAPIProvider implements ChatProvider {
             urlBuilder.append("&pageToken=").append(pageToken);
         }
 
+        lastPollFailed = false;
+        long start = System.nanoTime();
+        messagesQuota.add(YouTubeAPI.QUOTA_CHAT_MESSAGES);
         try {
             Request request = new Request.Builder()
                     .url(urlBuilder.toString())
@@ -106,6 +119,8 @@ public class DataAPIProvider implements ChatProvider {
             try (Response response = httpClient.newCall(request).execute()) {
                 if (!response.isSuccessful()) {
                     plugin.getLogger().warning("[DataAPI] Erreur: " + response.code());
+                    metrics.httpErrors.increment();
+                    lastPollFailed = true;
                     return messages;
                 }
 
@@ -127,20 +142,35 @@ public class DataAPIProvider implements ChatProvider {
                 if (items != null) {
                     for (JsonElement item : items) {
                         ChatMessage message = parseMessage(item.getAsJsonObject());
-                        if (message != null && !processedMessageIds.contains(message.getMessageId())) {
-                            processedMessageIds.add(message.getMessageId());
+                        if (message == null) continue;
+                        if (processedMessageIds.add(message.getMessageId())) {
                             messages.add(message);
+                        } else {
+                            metrics.duplicates.increment();
                         }
                     }
                 }
             }
         } catch (IOException e) {
             plugin.getLogger().warning("[DataAPI] Erreur de connexion: " + e.getMessage());
+            metrics.networkErrors.increment();
+            lastPollFailed = true;
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("[DataAPI] Erreur parsing: " + e.getMessage());
+            metrics.parseErrors.increment();
+            lastPollFailed = true;
+        } finally {
+            metrics.requestDuration.recordSince(start);
         }
 
         return messages;
     }
 
+    @Override
+    public boolean hasLastPollFailed() {
+        return lastPollFailed;
+    }
+
     @Override
     public boolean isConnected() {
         return connected;
@@ -162,6 +192,7 @@ public class DataAPIProvider implements ChatProvider {
     private String fetchLiveChatId(String videoId) {
         String apiKey = plugin.getConfigManager().getApiKey();
         String url = BASE_URL + "/videos?part=liveStreamingDetails&id=" + videoId + "&key=" + apiKey;
+        videosQuota.add(YouTubeAPI.QUOTA_VIDEOS);
 
         try {
             Request request = new Request.Builder()
@@ -0,0 +1,561 @@
+package fr.arkyalys.event.youtube.provider;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import fr.arkyalys.event.youtube.models.ChatMessage;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser streaming des réponses get_live_chat d'InnerTube
+ *
+ * Lit le flux JSON au fil de l'eau (JsonReader) au lieu de construire l'arbre Gson complet:
+ * - seuls continuationContents.liveChatContinuation.actions et .continuations sont lus
+ * - tout le reste (responseContext, trackingParams, tickers...) est sauté avec skipValue()
+ * - les ChatMessage sont construits directement depuis le flux
+ */
+public class InnerTubeResponseParser {
+
+    // Priorité des types de continuation (même ordre que l'ancien parser)
+    private static final String[] CONTINUATION_TYPES = {
+            "invalidationContinuationData",
+            "timedContinuationData",
+            "reloadContinuationData"
+    };
+
+    /**
+     * Résultat d'un poll: messages + prochain token + intervalle conseillé
+     */
+    public static class Result {
+        public final List<ChatMessage> messages = new ArrayList<>();
+        public String continuation;
+        public int timeoutMs = -1;
+
+        // Rang du type de continuation retenu (plus petit = prioritaire)
+        private int continuationRank = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Champs collectés pendant la lecture d'un renderer de chat
+     */
+    private static class RendererFields {
+        String id;
+        String authorChannelId;
+        String authorName = "";
+        String profileImage = "";
+        String message = "";
+        String timestampUsec;
+        String amountDisplay = "";
+        boolean moderator;
+        boolean owner;
+        boolean sponsor;
+    }
+
+    /**
+     * Parse une réponse get_live_chat depuis un flux de caractères
+     * @param in Le flux de la réponse (ex: response.body().charStream())
+     * @return Les messages, le continuation token et le timeout extraits
+     * @throws IOException si le JSON est malformé ou le flux interrompu
+     */
+    public Result parse(Reader in) throws IOException {
+        Result result = new Result();
+
+        try (JsonReader reader = new JsonReader(in)) {
+            reader.setLenient(true);
+            if (!beginObjectOrSkip(reader)) return result;
+
+            while (reader.hasNext()) {
+                if ("continuationContents".equals(reader.nextName())) {
+                    readContinuationContents(reader, result);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+        return result;
+    }
+
+    private void readContinuationContents(JsonReader reader, Result result) throws IOException {
+        if (!beginObjectOrSkip(reader)) return;
+
+        while (reader.hasNext()) {
+            if ("liveChatContinuation".equals(reader.nextName())) {
+                readLiveChatContinuation(reader, result);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readLiveChatContinuation(JsonReader reader, Result result) throws IOException {
+        if (!beginObjectOrSkip(reader)) return;
+
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "continuations" -> readContinuations(reader, result);
+                case "actions" -> readActions(reader, result.messages);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Lit continuations[0] (les suivants sont ignorés, comme avant)
+     */
+    private void readContinuations(JsonReader reader, Result result) throws IOException {
+        if (!beginArrayOrSkip(reader)) return;
+
+        boolean first = true;
+        while (reader.hasNext()) {
+            if (first && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                readContinuation(reader, result);
+            } else {
+                reader.skipValue();
+            }
+            first = false;
+        }
+        reader.endArray();
+    }
+
+    private void readContinuation(JsonReader reader, Result result) throws IOException {
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+            String type = reader.nextName();
+            int rank = continuationRank(type);
+            if (rank < 0) {
+                reader.skipValue();
+                continue;
+            }
+            if (!beginObjectOrSkip(reader)) continue;
+
+            String token = null;
+            int timeout = -1;
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "continuation" -> token = readString(reader);
+                    case "timeoutMs" -> timeout = readInt(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (token != null && rank < result.continuationRank) {
+                result.continuation = token;
+                result.continuationRank = rank;
+                // reloadContinuationData ne porte pas d'intervalle de polling
+                result.timeoutMs = "reloadContinuationData".equals(type) ? -1 : timeout;
+            }
+        }
+        reader.endObject();
+    }
+
+    private int continuationRank(String type) {
+        for (int i = 0; i < CONTINUATION_TYPES.length; i++) {
+            if (CONTINUATION_TYPES[i].equals(type)) return i;
+        }
+        return -1;
+    }
+
+    private void readActions(JsonReader reader, List<ChatMessage> messages) throws IOException {
+        if (!beginArrayOrSkip(reader)) return;
+
+        while (reader.hasNext()) {
+            ChatMessage message = readAction(reader);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        reader.endArray();
+    }
+
+    /**
+     * Les messages sont dans addChatItemAction ou replayChatItemAction.actions[0].addChatItemAction
+     */
+    private ChatMessage readAction(JsonReader reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) return null;
+
+        ChatMessage message = null;
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "addChatItemAction" -> message = readAddChatItemAction(reader);
+                case "replayChatItemAction" -> message = readReplayChatItemAction(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return message;
+    }
+
+    private ChatMessage readReplayChatItemAction(JsonReader reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) return null;
+
+        ChatMessage message = null;
+        while (reader.hasNext()) {
+            if (!"actions".equals(reader.nextName())) {
+                reader.skipValue();
+                continue;
+            }
+            // Valeur déjà sautée si ce n'est pas le type attendu (ex: null)
+            if (!beginArrayOrSkip(reader)) continue;
+
+            boolean first = true;
+            while (reader.hasNext()) {
+                if (first) {
+                    message = readAction(reader);
+                } else {
+                    reader.skipValue();
+                }
+                first = false;
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        return message;
+    }
+
+    private ChatMessage readAddChatItemAction(JsonReader reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) return null;
+
+        ChatMessage message = null;
+        while (reader.hasNext()) {
+            if ("item".equals(reader.nextName())) {
+                message = readItem(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return message;
+    }
+
+    private ChatMessage readItem(JsonReader reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) return null;
+
+        ChatMessage message = null;
+        while (reader.hasNext()) {
+            String rendererType = reader.nextName();
+            switch (rendererType) {
+                case "liveChatTextMessageRenderer",
+                     "liveChatPaidMessageRenderer",
+                     "liveChatPaidStickerRenderer",
+                     "liveChatMembershipItemRenderer" -> {
+                    RendererFields fields = readRenderer(reader);
+                    if (fields != null) {
+                        message = buildMessage(rendererType, fields);
+                    }
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return message;
+    }
+
+    private RendererFields readRenderer(JsonReader reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) return null;
+
+        RendererFields fields = new RendererFields();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id" -> fields.id = readString(reader);
+                case "authorExternalChannelId" -> fields.authorChannelId = readString(reader);
+                case "authorName" -> fields.authorName = readText(reader);
+                case "authorPhoto" -> fields.profileImage = readThumbnailUrl(reader);
+                case "message" -> fields.message = readText(reader);
+                case "timestampUsec" -> fields.timestampUsec = readString(reader);
+                case "purchaseAmountText" -> fields.amountDisplay = readText(reader);
+                case "authorBadges" -> readBadges(reader, fields);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return fields;
+    }
+
+    /**
+     * Construit le ChatMessage une fois le renderer entièrement lu
+     * Les erreurs de données (champ manquant, timestamp invalide) ignorent le message seul
+     */
+    private ChatMessage buildMessage(String rendererType, RendererFields f) {
+        if (f.id == null || f.authorChannelId == null || f.timestampUsec == null) {
+            return null;
+        }
+
+        long timestamp;
+        try {
+            timestamp = Long.parseLong(f.timestampUsec) / 1000;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        return switch (rendererType) {
+            case "liveChatTextMessageRenderer" -> ChatMessage.normalMessage(f.id, f.authorChannelId,
+                    f.authorName, f.profileImage, f.message, timestamp, f.moderator, f.owner, f.sponsor);
+            case "liveChatPaidMessageRenderer" -> ChatMessage.superChat(f.id, f.authorChannelId,
+                    f.authorName, f.profileImage, f.message, timestamp, f.amountDisplay,
+                    parseAmountMicros(f.amountDisplay), extractCurrency(f.amountDisplay),
+                    false, false, true);
+            case "liveChatPaidStickerRenderer" -> ChatMessage.superSticker(f.id, f.authorChannelId,
+                    f.authorName, f.profileImage, timestamp, f.amountDisplay,
+                    parseAmountMicros(f.amountDisplay), extractCurrency(f.amountDisplay),
+                    false, false, true);
+            case "liveChatMembershipItemRenderer" -> ChatMessage.newMember(f.id, f.authorChannelId,
+                    f.authorName, f.profileImage, timestamp, false, false, true);
+            default -> null;
+        };
+    }
+
+    /**
+     * Lit un objet texte: {"simpleText": "..."} ou {"runs": [{"text": ...}, {"emoji": ...}]}
+     */
+    private String readText(JsonReader reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) return "";
+
+        String simpleText = null;
+        StringBuilder runs = null;
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "simpleText" -> simpleText = readString(reader);
+                case "runs" -> {
+                    runs = new StringBuilder();
+                    readRuns(reader, runs);
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (simpleText != null) return simpleText;
+        return runs != null ? runs.toString() : "";
+    }
+
+    private void readRuns(JsonReader reader, StringBuilder sb) throws IOException {
+        if (!beginArrayOrSkip(reader)) return;
+
+        while (reader.hasNext()) {
+            if (!beginObjectOrSkip(reader)) continue;
+
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "text" -> {
+                        String text = readString(reader);
+                        if (text != null) sb.append(text);
+                    }
+                    case "emoji" -> sb.append(readEmoji(reader));
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+    }
+
+    /**
+     * Emoji: premier shortcut (ex: ":fire:") ou placeholder
+     */
+    private String readEmoji(JsonReader reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) return "[emoji]";
+
+        String shortcut = null;
+        while (reader.hasNext()) {
+            if (!"shortcuts".equals(reader.nextName())) {
+                reader.skipValue();
+                continue;
+            }
+            if (!beginArrayOrSkip(reader)) continue;
+
+            while (reader.hasNext()) {
+                if (shortcut == null) {
+                    shortcut = readString(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        return shortcut != null ? shortcut : "[emoji]";
+    }
+
+    /**
+     * Lit l'URL de la première miniature
+     * Accepte {"thumbnails": [{"url": ...}]}, [{"thumbnails": [...]}] ou {"url": ...}
+     */
+    private String readThumbnailUrl(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+
+        if (token == JsonToken.BEGIN_ARRAY) {
+            String url = "";
+            boolean first = true;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (first) {
+                    url = readThumbnailUrl(reader);
+                } else {
+                    reader.skipValue();
+                }
+                first = false;
+            }
+            reader.endArray();
+            return url;
+        }
+
+        if (token != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return "";
+        }
+
+        String url = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "thumbnails" -> url = readThumbnailUrl(reader);
+                case "url" -> {
+                    String value = readString(reader);
+                    if (value != null && url.isEmpty()) url = value;
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return url;
+    }
+
+    /**
+     * Lit authorBadges et met à jour les rôles (icône ou tooltip)
+     */
+    private void readBadges(JsonReader reader, RendererFields fields) throws IOException {
+        if (!beginArrayOrSkip(reader)) return;
+
+        while (reader.hasNext()) {
+            if (!beginObjectOrSkip(reader)) continue;
+
+            while (reader.hasNext()) {
+                if (!"liveChatAuthorBadgeRenderer".equals(reader.nextName())) {
+                    reader.skipValue();
+                    continue;
+                }
+                if (!beginObjectOrSkip(reader)) continue;
+
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "icon" -> applyBadge(readIconType(reader), fields);
+                        case "tooltip" -> {
+                            String tooltip = readString(reader);
+                            if (tooltip != null) applyBadge(tooltip.toUpperCase(), fields);
+                        }
+                        default -> reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+    }
+
+    private String readIconType(JsonReader reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) return null;
+
+        String iconType = null;
+        while (reader.hasNext()) {
+            if ("iconType".equals(reader.nextName())) {
+                iconType = readString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return iconType;
+    }
+
+    private void applyBadge(String badge, RendererFields fields) {
+        if (badge == null) return;
+        if (badge.contains("MODERATOR")) fields.moderator = true;
+        if (badge.contains("OWNER")) fields.owner = true;
+        if (badge.contains("MEMBER") || badge.contains("SPONSOR")) fields.sponsor = true;
+    }
+
+    // ==================== Helpers JsonReader ====================
+
+    /**
+     * Ouvre un objet, ou saute la valeur si ce n'en est pas un
+     * @return true si l'objet a été ouvert
+     */
+    private boolean beginObjectOrSkip(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+            reader.beginObject();
+            return true;
+        }
+        reader.skipValue();
+        return false;
+    }
+
+    /**
+     * Ouvre un tableau, ou saute la valeur si ce n'en est pas un
+     * @return true si le tableau a été ouvert
+     */
+    private boolean beginArrayOrSkip(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            return true;
+        }
+        reader.skipValue();
+        return false;
+    }
+
+    private String readString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    private int readInt(JsonReader reader) throws IOException {
+        String value = readString(reader);
+        if (value == null) return -1;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // ==================== Montants ====================
+
+    /**
+     * Parse le montant en micros depuis le texte affiché
+     */
+    static long parseAmountMicros(String amountDisplay) {
+        try {
+            // Enlever les symboles de devise et parser le nombre
+            String cleaned = amountDisplay.replaceAll("[^0-9.,]", "")
+                    .replace(",", ".");
+            double amount = Double.parseDouble(cleaned);
+            return (long) (amount * 1_000_000);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Extrait la devise du texte affiché
+     */
+    static String extractCurrency(String amountDisplay) {
+        if (amountDisplay.contains("€")) return "EUR";
+        if (amountDisplay.contains("$")) return "USD";
+        if (amountDisplay.contains("£")) return "GBP";
+        if (amountDisplay.contains("¥")) return "JPY";
+        return "EUR";
+    }
+}
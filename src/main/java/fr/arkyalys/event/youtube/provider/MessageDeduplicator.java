@@ -0,0 +1,200 @@
+package fr.arkyalys.event.youtube.provider;
+
+import java.util.Arrays;
+
+/**
+ * Anti-doublon des IDs de messages à mémoire bornée
+ *
+ * Remplace le HashSet<String> qui grossissait pendant tout le live:
+ * - chaque ID est réduit à une empreinte 64 bits (pas de String conservée)
+ * - un ring buffer garde l'ordre d'arrivée et expire les plus anciens (nombre max ou fenêtre de temps)
+ * - une table à adressage ouvert (sondage linéaire) répond à "déjà vu ?" en O(1)
+ *
+ * La mémoire est allouée une fois pour toutes à la construction.
+ */
+public class MessageDeduplicator {
+
+    private static final long EMPTY = 0L;
+
+    // Ring buffer (ordre d'arrivée)
+    private final long[] ringFingerprints;
+    private final long[] ringTimestamps;
+    private final int ringMask;
+    private int ringHead = 0;   // Prochain emplacement d'écriture
+    private int ringSize = 0;
+
+    // Table de hachage (adressage ouvert, facteur de charge <= 0.5)
+    private final long[] table;
+    private final int tableMask;
+
+    private final long windowMillis;
+
+    /**
+     * @param maxIds Nombre max d'IDs mémorisés (arrondi à la puissance de 2 supérieure)
+     * @param windowMillis Durée de rétention d'un ID (0 = uniquement limité par maxIds)
+     */
+    public MessageDeduplicator(int maxIds, long windowMillis) {
+        int capacity = nextPowerOfTwo(Math.max(maxIds, 16));
+        this.ringFingerprints = new long[capacity];
+        this.ringTimestamps = new long[capacity];
+        this.ringMask = capacity - 1;
+        this.table = new long[capacity * 2];
+        this.tableMask = table.length - 1;
+        this.windowMillis = Math.max(windowMillis, 0);
+    }
+
+    /**
+     * Enregistre un ID s'il n'a pas déjà été vu
+     * @return true si l'ID est nouveau (message à traiter), false si doublon
+     */
+    public synchronized boolean add(String messageId) {
+        return add(messageId, System.currentTimeMillis());
+    }
+
+    synchronized boolean add(String messageId, long now) {
+        expire(now);
+
+        long fingerprint = fingerprint(messageId);
+        int slot = findSlot(fingerprint);
+        if (table[slot] == fingerprint) {
+            return false;
+        }
+
+        // Ring plein: évincer le plus ancien
+        if (ringSize == ringFingerprints.length) {
+            evictOldest();
+            slot = findSlot(fingerprint); // la suppression a pu décaler la table
+        }
+
+        table[slot] = fingerprint;
+        ringFingerprints[ringHead] = fingerprint;
+        ringTimestamps[ringHead] = now;
+        ringHead = (ringHead + 1) & ringMask;
+        ringSize++;
+        return true;
+    }
+
+    /**
+     * Vérifie si un ID a déjà été vu (sans l'enregistrer)
+     */
+    public synchronized boolean contains(String messageId) {
+        expire(System.currentTimeMillis());
+        long fingerprint = fingerprint(messageId);
+        return table[findSlot(fingerprint)] == fingerprint;
+    }
+
+    /**
+     * Oublie tous les IDs (connexion/déconnexion)
+     */
+    public synchronized void clear() {
+        Arrays.fill(table, EMPTY);
+        ringHead = 0;
+        ringSize = 0;
+    }
+
+    /**
+     * Nombre d'IDs actuellement mémorisés
+     */
+    public synchronized int size() {
+        return ringSize;
+    }
+
+    /**
+     * Nombre max d'IDs mémorisés
+     */
+    public int getCapacity() {
+        return ringFingerprints.length;
+    }
+
+    /**
+     * Mémoire occupée par les tableaux (constante), en octets
+     */
+    public long getMemoryBytes() {
+        return (long) (ringFingerprints.length + ringTimestamps.length + table.length) * Long.BYTES;
+    }
+
+    // ==================== Interne ====================
+
+    /**
+     * Supprime les IDs sortis de la fenêtre de temps
+     */
+    private void expire(long now) {
+        if (windowMillis == 0) return;
+
+        long limit = now - windowMillis;
+        while (ringSize > 0 && ringTimestamps[oldestIndex()] < limit) {
+            evictOldest();
+        }
+    }
+
+    private int oldestIndex() {
+        return (ringHead - ringSize) & ringMask;
+    }
+
+    private void evictOldest() {
+        int index = oldestIndex();
+        removeFromTable(ringFingerprints[index]);
+        ringSize--;
+    }
+
+    /**
+     * Sondage linéaire: renvoie l'emplacement de l'empreinte, ou le premier emplacement vide
+     */
+    private int findSlot(long fingerprint) {
+        int slot = (int) mix(fingerprint) & tableMask;
+        while (table[slot] != EMPTY && table[slot] != fingerprint) {
+            slot = (slot + 1) & tableMask;
+        }
+        return slot;
+    }
+
+    /**
+     * Suppression par décalage arrière (pas de pierre tombale en sondage linéaire)
+     */
+    private void removeFromTable(long fingerprint) {
+        int slot = findSlot(fingerprint);
+        if (table[slot] != fingerprint) return;
+
+        int hole = slot;
+        int next = (hole + 1) & tableMask;
+        while (table[next] != EMPTY) {
+            int home = (int) mix(table[next]) & tableMask;
+            // L'élément peut combler le trou si son emplacement idéal n'est pas entre hole (exclu) et next
+            if (((next - home) & tableMask) >= ((next - hole) & tableMask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+            next = (next + 1) & tableMask;
+        }
+        table[hole] = EMPTY;
+    }
+
+    /**
+     * Empreinte 64 bits (FNV-1a) d'un ID, jamais égale à EMPTY
+     */
+    private static long fingerprint(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == EMPTY ? 1L : hash;
+    }
+
+    /**
+     * Mélange final (murmur3 fmix64) pour bien répartir les bits bas
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        int highest = Integer.highestOneBit(value);
+        return highest == value ? value : highest << 1;
+    }
+}
@@ -0,0 +1,32 @@
+package fr.arkyalys.event.youtube.provider;
+
+import fr.arkyalys.event.metrics.Counter;
+import fr.arkyalys.event.metrics.Histogram;
+import fr.arkyalys.event.metrics.MetricsRegistry;
+
+/**
+ * Métriques communes à un provider de chat (label provider="innertube", "dataapi"...)
+ */
+final class ProviderMetrics {
+
+    final Histogram requestDuration;
+    final Counter httpErrors;
+    final Counter networkErrors;
+    final Counter parseErrors;
+    final Counter duplicates;
+
+    ProviderMetrics(MetricsRegistry registry, String provider) {
+        this.requestDuration = registry.histogram("youtubeevent_provider_request_duration_seconds",
+                "Duree des requetes de chat par provider", "provider", provider);
+        this.httpErrors = errors(registry, provider, "http");
+        this.networkErrors = errors(registry, provider, "network");
+        this.parseErrors = errors(registry, provider, "parse");
+        this.duplicates = registry.counter("youtubeevent_provider_duplicates_total",
+                "Messages deja vus ignores par la deduplication", "provider", provider);
+    }
+
+    private static Counter errors(MetricsRegistry registry, String provider, String kind) {
+        return registry.counter("youtubeevent_provider_errors_total",
+                "Requetes de chat en echec par provider et type d'erreur", "provider", provider, "kind", kind);
+    }
+}
@@ -0,0 +1,151 @@
+package fr.arkyalys.event.youtube.provider;
+
+import fr.arkyalys.event.YouTubeEventPlugin;
+import fr.arkyalys.event.youtube.models.ChatMessage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provider qui rejoue un enregistrement du chat (.ytrec) au lieu d'interroger YouTube
+ *
+ * Permet de tester toute la chaîne (LiveChatPoller -> EventManager -> GameManager)
+ * hors live, sur un trafic réel:
+ * - vitesse 1 = cadence d'origine, N = N fois plus vite
+ * - vitesse 0 = au plus vite (maxBatch messages par poll, indépendamment des horodatages)
+ *
+ * Les messages sont rendus dans l'ordre exact de l'enregistrement.
+ */
+public class ReplayChatProvider implements ChatProvider {
+
+    private final YouTubeEventPlugin plugin;
+    private final File file;
+    private final double speed;
+    private final int maxBatch;
+
+    private ChatRecording.Recording recording;
+    private int nextBatch;
+    private long startNanos;
+    private int replayedMessages;
+    private volatile boolean connected = false;
+    private boolean finished = false;
+
+    /**
+     * @param speed Facteur de vitesse (0 = au plus vite)
+     * @param maxBatch Messages max rendus par poll en mode "au plus vite"
+     */
+    public ReplayChatProvider(YouTubeEventPlugin plugin, File file, double speed, int maxBatch) {
+        this.plugin = plugin;
+        this.file = file;
+        this.speed = Math.max(speed, 0);
+        this.maxBatch = Math.max(maxBatch, 1);
+    }
+
+    @Override
+    public String getName() {
+        return "Replay (" + file.getName() + ", " + (isMaxSpeed() ? "max" : "x" + speed) + ")";
+    }
+
+    @Override
+    public boolean connect(String videoId) {
+        try {
+            recording = ChatRecording.read(file);
+        } catch (IOException e) {
+            plugin.getLogger().warning("[Replay] Lecture impossible: " + e.getMessage());
+            return false;
+        }
+
+        plugin.getLogger().info("[Replay] " + recording.getMessageCount() + " messages (" + recording.batches().size() +
+                " polls, " + (recording.getDurationMillis() / 1000) + "s) du live " + recording.liveId());
+
+        nextBatch = 0;
+        replayedMessages = 0;
+        finished = false;
+        startNanos = System.nanoTime();
+        connected = true;
+        return true;
+    }
+
+    @Override
+    public void disconnect() {
+        connected = false;
+        recording = null;
+    }
+
+    @Override
+    public List<ChatMessage> pollMessages() {
+        ChatRecording.Recording current = recording;
+        if (!connected || current == null) {
+            return new ArrayList<>();
+        }
+
+        List<ChatRecording.Batch> batches = current.batches();
+        List<ChatMessage> messages = new ArrayList<>();
+
+        if (isMaxSpeed()) {
+            while (nextBatch < batches.size() && messages.size() < maxBatch) {
+                messages.addAll(batches.get(nextBatch++).messages());
+            }
+        } else {
+            long position = getPositionMillis();
+            while (nextBatch < batches.size() && batches.get(nextBatch).offsetMillis() <= position) {
+                messages.addAll(batches.get(nextBatch++).messages());
+            }
+        }
+
+        replayedMessages += messages.size();
+
+        if (nextBatch >= batches.size() && !finished) {
+            finished = true;
+            long elapsedMs = Math.max((System.nanoTime() - startNanos) / 1_000_000L, 1);
+            plugin.getLogger().info("[Replay] Termine: " + replayedMessages + " messages en " + elapsedMs + "ms (" +
+                    String.format("%.1f", replayedMessages * 1000.0 / elapsedMs) + " msg/s)");
+        }
+
+        return messages;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Délai jusqu'au prochain bloc enregistré (0 en mode "au plus vite")
+     */
+    @Override
+    public int getPollingInterval() {
+        ChatRecording.Recording current = recording;
+        if (isMaxSpeed() || current == null || nextBatch >= current.batches().size()) {
+            return 0;
+        }
+        long wait = (long) ((current.batches().get(nextBatch).offsetMillis() - getPositionMillis()) / speed);
+        return (int) Math.max(0, Math.min(wait, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public boolean usesQuota() {
+        return false;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public int getReplayedMessages() {
+        return replayedMessages;
+    }
+
+    private boolean isMaxSpeed() {
+        return speed == 0;
+    }
+
+    /**
+     * Position dans l'enregistrement (ms), selon le temps écoulé et la vitesse
+     */
+    private long getPositionMillis() {
+        return (long) ((System.nanoTime() - startNanos) / 1_000_000.0 * speed);
+    }
+}
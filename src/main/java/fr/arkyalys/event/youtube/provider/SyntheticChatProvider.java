@@ -0,0 +1,210 @@
+package fr.arkyalys.event.youtube.provider;
+
+import fr.arkyalys.event.youtube.models.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Provider qui génère du trafic de chat synthétique (tests de charge, /youtube test stress)
+ *
+ * - débit cible jusqu'à 50 000 messages/s, selon un profil (constant, pics, dents de scie)
+ * - mélange: messages texte, mots-clés configurés, Super Chats multi-devises, stickers, nouveaux membres
+ * - générateur pseudo-aléatoire à graine fixe: deux runs identiques produisent les mêmes messages
+ *
+ * Les messages sont générés à chaque poll pour le temps écoulé depuis le poll précédent.
+ */
+public class SyntheticChatProvider implements ChatProvider {
+
+    public static final int MAX_RATE = 50_000;
+
+    /**
+     * Forme du débit dans le temps
+     */
+    public enum Profile {
+        /** Débit constant */
+        STEADY,
+        /** 10% du débit, avec un pic au débit maximum 2s toutes les 20s */
+        SPIKE,
+        /** Montée linéaire de 0 au débit maximum sur 10s, puis retour à 0 */
+        SAWTOOTH;
+
+        /**
+         * Débit (messages/s) à l'instant t
+         */
+        double rateAt(double maxRate, double seconds) {
+            return switch (this) {
+                case STEADY -> maxRate;
+                case SPIKE -> seconds % 20.0 < 2.0 ? maxRate : maxRate * 0.1;
+                case SAWTOOTH -> maxRate * (seconds % 10.0) / 10.0;
+            };
+        }
+    }
+
+    // Répartition des types de messages (cumulée, sur 1000)
+    private static final int MIX_KEYWORD = 50;
+    private static final int MIX_SUPER_CHAT = MIX_KEYWORD + 40;
+    private static final int MIX_STICKER = MIX_SUPER_CHAT + 15;
+    private static final int MIX_MEMBER = MIX_STICKER + 15;
+
+    private static final String[][] CURRENCIES = {
+            {"EUR", "€"}, {"USD", "$"}, {"GBP", "£"}, {"JPY", "¥"}, {"BRL", "R$"}, {"CAD", "CA$"}
+    };
+    private static final String[] TEXTS = {
+            "gg", "trop fort", "salut tout le monde", "lol", "encore!", "on veut du tnt", "first", "pog"
+    };
+    private static final int VIEWERS = 5_000;
+
+    private final Profile profile;
+    private final int rate;
+    private final long durationNanos;
+    private final String[] keywords;
+    private final SplittableRandom random;
+
+    private volatile boolean connected = false;
+    private long startNanos;
+    private long lastPollNanos;
+    private double pending;
+    private long sequence;
+    private volatile long generated;
+    private volatile boolean finished = false;
+
+    /**
+     * @param rate Débit maximum (messages/s, plafonné à MAX_RATE)
+     * @param durationSeconds Durée de la génération
+     * @param keywords Mots-clés à glisser dans une partie des messages (triggers.keywords)
+     * @param seed Graine du générateur
+     */
+    public SyntheticChatProvider(Profile profile, int rate, int durationSeconds, List<String> keywords, long seed) {
+        this.profile = profile;
+        this.rate = Math.max(1, Math.min(rate, MAX_RATE));
+        this.durationNanos = Math.max(durationSeconds, 1) * 1_000_000_000L;
+        this.keywords = keywords.toArray(new String[0]);
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public String getName() {
+        return "Synthetique (" + profile.name().toLowerCase() + ", " + rate + " msg/s)";
+    }
+
+    @Override
+    public boolean connect(String videoId) {
+        startNanos = System.nanoTime();
+        lastPollNanos = startNanos;
+        pending = 0;
+        generated = 0;
+        finished = false;
+        connected = true;
+        return true;
+    }
+
+    @Override
+    public void disconnect() {
+        connected = false;
+    }
+
+    @Override
+    public List<ChatMessage> pollMessages() {
+        if (!connected || finished) {
+            return new ArrayList<>();
+        }
+
+        long now = Math.min(System.nanoTime(), startNanos + durationNanos);
+        double elapsed = (now - lastPollNanos) / 1_000_000_000.0;
+        double position = (now - startNanos) / 1_000_000_000.0;
+        lastPollNanos = now;
+        if (now - startNanos >= durationNanos) {
+            finished = true;
+        }
+
+        // Débit pris au milieu de l'intervalle (polls de l'ordre de la seconde)
+        pending += profile.rateAt(rate, position - elapsed / 2) * elapsed;
+        int count = (int) pending;
+        pending -= count;
+
+        List<ChatMessage> messages = new ArrayList<>(count);
+        long publishedAt = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            messages.add(nextMessage(publishedAt));
+        }
+        generated += count;
+        return messages;
+    }
+
+    /**
+     * Génère un message selon la répartition des types
+     */
+    private ChatMessage nextMessage(long publishedAt) {
+        long id = sequence++;
+        int viewer = random.nextInt(VIEWERS);
+        String messageId = "synthetic-" + id;
+        String channelId = "UCsynthetic" + viewer;
+        String name = "Viewer" + viewer;
+
+        int roll = random.nextInt(1000);
+        boolean moderator = viewer % 100 == 0;
+        boolean sponsor = viewer % 10 == 0;
+
+        if (roll < MIX_KEYWORD && keywords.length > 0) {
+            String keyword = keywords[random.nextInt(keywords.length)];
+            return ChatMessage.normalMessage(messageId, channelId, name, "", "allez " + keyword + " !",
+                    publishedAt, moderator, false, sponsor);
+        }
+        if (roll >= MIX_KEYWORD && roll < MIX_STICKER) {
+            String[] currency = CURRENCIES[random.nextInt(CURRENCIES.length)];
+            long units = 1 + random.nextInt(roll < MIX_SUPER_CHAT ? 100 : 20);
+            long micros = units * 1_000_000L * (currency[0].equals("JPY") ? 100 : 1);
+            String display = currency[1] + (micros / 1_000_000L);
+            if (roll < MIX_SUPER_CHAT) {
+                return ChatMessage.superChat(messageId, channelId, name, "", TEXTS[random.nextInt(TEXTS.length)],
+                        publishedAt, display, micros, currency[0], moderator, false, sponsor);
+            }
+            return ChatMessage.superSticker(messageId, channelId, name, "", publishedAt, display, micros,
+                    currency[0], moderator, false, sponsor);
+        }
+        if (roll >= MIX_STICKER && roll < MIX_MEMBER) {
+            return ChatMessage.newMember(messageId, channelId, name, "", publishedAt, moderator, false, true);
+        }
+        return ChatMessage.normalMessage(messageId, channelId, name, "", TEXTS[random.nextInt(TEXTS.length)],
+                publishedAt, moderator, false, sponsor);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Aucun intervalle imposé: le poller applique son délai minimum
+     */
+    @Override
+    public int getPollingInterval() {
+        return 0;
+    }
+
+    @Override
+    public boolean usesQuota() {
+        return false;
+    }
+
+    /**
+     * Durée de génération écoulée (dernier lot rendu)
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public long getGeneratedCount() {
+        return generated;
+    }
+
+    public Profile getProfile() {
+        return profile;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+}
@@ -0,0 +1,43 @@
+// Client WebSocket des overlays: YTSocket.on('stats', (type, data) => ...)
+// Canaux: stats, chat, superchat, milestone, control (apres YTSocket.auth(token))
+(function () {
+    const handlers = {};
+    const channels = new Set();
+    let socket = null;
+    let token = null;
+
+    function send(message) {
+        if (socket && socket.readyState === WebSocket.OPEN) socket.send(JSON.stringify(message));
+    }
+
+    function connect() {
+        socket = new WebSocket('ws://' + location.hostname + ':%ws_port%/ws');
+        socket.onopen = () => {
+            if (token) send({ op: 'auth', token: token });
+            if (channels.size > 0) send({ op: 'subscribe', channels: [...channels] });
+        };
+        socket.onmessage = e => {
+            const message = JSON.parse(e.data);
+            (handlers[message.ch] || []).forEach(fn => fn(message.type, message.data));
+        };
+        socket.onclose = () => setTimeout(connect, 3000);
+    }
+
+    window.YTSocket = {
+        on(channel, fn) {
+            (handlers[channel] = handlers[channel] || []).push(fn);
+            if (channel !== 'system' && !channels.has(channel)) {
+                channels.add(channel);
+                send({ op: 'subscribe', channels: [channel] });
+            }
+        },
+        auth(value) {
+            token = value;
+            send({ op: 'auth', token: value });
+        },
+        control(action, params) {
+            send(Object.assign({ op: 'control', action: action }, params || {}));
+        }
+    };
+    connect();
+})();
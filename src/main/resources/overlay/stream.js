@@ -0,0 +1,37 @@
+(function () {
+    const state = {};
+    const listeners = [];
+    let timer = null;
+
+    function emit() { listeners.forEach(fn => fn(state)); }
+
+    async function poll() {
+        try {
+            const res = await fetch('/api/stats');
+            Object.assign(state, await res.json());
+            emit();
+        } catch (e) {}
+    }
+    function startPolling() {
+        if (timer === null) { poll(); timer = setInterval(poll, 1000); }
+    }
+    function stopPolling() {
+        if (timer !== null) { clearInterval(timer); timer = null; }
+    }
+
+    if (window.EventSource) {
+        const source = new EventSource('/api/stream');
+        source.addEventListener('stats', e => { stopPolling(); Object.assign(state, JSON.parse(e.data)); emit(); });
+        source.addEventListener('delta', e => { Object.assign(state, JSON.parse(e.data)); emit(); });
+        source.onerror = () => startPolling();
+    } else {
+        startPolling();
+    }
+
+    window.YTStream = {
+        subscribe(fn) {
+            listeners.push(fn);
+            if (Object.keys(state).length > 0) fn(state);
+        }
+    };
+})();